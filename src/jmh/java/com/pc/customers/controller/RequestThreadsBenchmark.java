@@ -0,0 +1,137 @@
+package com.pc.customers.controller;
+
+import com.pc.customers.CustomersApplication;
+import com.pc.customers.service.TierEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput and latency distribution of the running application on platform versus virtual request threads,
+ * with more concurrent clients (512 by default, {@code -t} to change) than Tomcat's default 200 worker threads.
+ * The by-id cache is disabled so every lookup reaches the database. Virtual threads need a Java 21 runtime; on older
+ * runtimes both modes run on platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(512)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djdk.httpclient.connectionPoolSize=1024"})
+public class RequestThreadsBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int SAMPLE = 1024;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private final List<URI> byId = new ArrayList<>();
+    private final List<URI> byTier = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CustomersApplication.class)
+                .profiles("virtual".equals(threads) ? new String[]{"virtual-threads"} : new String[0])
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:customers-threads-" + threads + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--customers.cache.by-id.maximum-size=0",
+                        "--customers.search.name-index.enabled=false",
+                        "--customers.tier.recompute-enabled=false",
+                        "--logging.level.com.pc.customers=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port + "/customers";
+        for (UUID id : seed(context.getBean(JdbcTemplate.class), context.getBean(TierEvaluator.class))) {
+            byId.add(URI.create(base + "/" + id));
+        }
+        for (String tier : new String[]{"Silver", "Gold", "Platinum"}) {
+            byTier.add(URI.create(base + "?tier=" + tier + "&limit=20"));
+        }
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    private List<UUID> seed(JdbcTemplate jdbcTemplate, TierEvaluator tierEvaluator) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<UUID> sample = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            UUID id = UUID.randomUUID();
+            double spend = random.nextDouble() * 20000;
+            Date purchase = new Date(now - (long) (random.nextDouble() * 500 * 24 * 3600 * 1000L));
+            String email = "customer" + i + "@example.com";
+            batch.add(new Object[]{id, "Customer " + i, email, email, spend, new Timestamp(purchase.getTime()), tierEvaluator.tier(spend, purchase)});
+            if (i % (ROWS / SAMPLE) == 0 && sample.size() < SAMPLE) {
+                sample.add(id);
+            }
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO customers (id, name, email, email_normalized, annual_spend, "
+                        + "last_purchase_date, tier) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return sample;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getById() throws IOException, InterruptedException {
+        return get(byId.get(ThreadLocalRandom.current().nextInt(byId.size())));
+    }
+
+    @Benchmark
+    public int getByTier() throws IOException, InterruptedException {
+        return get(byTier.get(ThreadLocalRandom.current().nextInt(byTier.size())));
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
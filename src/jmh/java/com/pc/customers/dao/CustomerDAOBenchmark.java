@@ -0,0 +1,167 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.CustomersApplication;
+import com.pc.customers.model.Customer;
+import com.pc.customers.service.TierEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every read query of {@link CustomerDAOJpaImpl} against an embedded in-memory H2 database seeded with 10k, 100k
+ * and 1M customers, through the application's own JPA configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CustomerDAOBenchmark {
+
+    private static final String[] SURNAMES = {"Sharma", "Patel", "Mehta", "Rao", "Iyer", "Singh", "Khan", "Das"};
+    private static final int SAMPLE = 1024;
+    private static final int PAGE = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ICustomerDAO customerDAO;
+    private TransactionTemplate transactionTemplate;
+    private TierEvaluator tierEvaluator;
+    private final List<UUID> sampleIds = new ArrayList<>();
+    private final List<String> sampleNames = new ArrayList<>();
+    private final List<String> sampleEmails = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CustomersApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:customers-bench-" + rows + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--customers.search.name-index.enabled=false",
+                        "--customers.tier.recompute-enabled=false",
+                        "--logging.level.com.pc.customers=WARN");
+        // the JPA implementation itself: the @Primary ICustomerDAO would answer most lookups from the by-id cache
+        customerDAO = context.getBean("customerDAOJpaImpl", ICustomerDAO.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        tierEvaluator = context.getBean(TierEvaluator.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        int sampleEvery = Math.max(1, rows / SAMPLE);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            UUID id = UUID.randomUUID();
+            String name = "Customer " + i + " " + SURNAMES[random.nextInt(SURNAMES.length)];
+            String email = "customer" + i + "@example.com";
+            Double spend = random.nextInt(10) == 0 ? null : random.nextDouble() * 20000;
+            Date purchase = new Date(now - (long) (random.nextDouble() * 500 * 24 * 3600 * 1000L));
+            batch.add(new Object[]{id, name, email, email, spend, new Timestamp(purchase.getTime()), tierEvaluator.tier(spend, purchase)});
+            if (i % sampleEvery == 0 && sampleIds.size() < SAMPLE) {
+                sampleIds.add(id);
+                sampleNames.add(name);
+                sampleEmails.add(email);
+            }
+            if (batch.size() == 10_000 || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO customers (id, name, email, email_normalized, annual_spend, "
+                        + "last_purchase_date, tier) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int nextSample() {
+        next = (next + 1) % sampleIds.size();
+        return next;
+    }
+
+    @Benchmark
+    public Customer findById() {
+        return customerDAO.findById(sampleIds.get(nextSample()));
+    }
+
+    @Benchmark
+    public List<Customer> findAllById() {
+        int from = nextSample() % (sampleIds.size() - PAGE);
+        return customerDAO.findAllById(sampleIds.subList(from, from + PAGE));
+    }
+
+    @Benchmark
+    public List<Customer> findByName_commonSurname() {
+        return customerDAO.findByName(SURNAMES[nextSample() % SURNAMES.length], null, PAGE);
+    }
+
+    @Benchmark
+    public List<Customer> findByName_singleMatch() {
+        return customerDAO.findByName(sampleNames.get(nextSample()), null, PAGE);
+    }
+
+    @Benchmark
+    public List<Customer> findByEmail() {
+        return customerDAO.findByEmail(sampleEmails.get(nextSample()), null, PAGE);
+    }
+
+    @Benchmark
+    public List<Customer> findByTier() {
+        return customerDAO.findByTier(Customer.TIER_GOLD, sampleIds.get(nextSample()), PAGE);
+    }
+
+    @Benchmark
+    public List<Object[]> findIdsAndNames() {
+        return customerDAO.findIdsAndNames(sampleIds.get(nextSample()), 10_000);
+    }
+
+    @Benchmark
+    public List<UUID> findIdsWithStaleTier() {
+        long now = tierEvaluator.now();
+        return customerDAO.findIdsWithStaleTier(new Date(tierEvaluator.sixMonthsBefore(now)),
+                new Date(tierEvaluator.twelveMonthsBefore(now)), null, 1000);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public long streamAll(Blackhole blackhole) {
+        Long count = transactionTemplate.execute(status -> customerDAO.streamAll(1000, blackhole::consume));
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.pc.customers.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link CustomerResponse} lists, as a JSON array (search and page responses) and as
+ * newline-delimited JSON (the export), with the mapper configured the way Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerResponseJsonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private final List<CustomerResponse> responses = new ArrayList<>();
+    private ObjectMapper objectMapper;
+    private ObjectWriter lineWriter;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        lineWriter = objectMapper.writerFor(CustomerResponse.class);
+        Random random = new Random(42);
+        String[] tiers = {"Silver", "Gold", "Platinum"};
+        for (int i = 0; i < size; i++) {
+            CustomerResponse response = new CustomerResponse();
+            response.setId(UUID.randomUUID());
+            response.setName("Customer " + i);
+            response.setEmail("customer" + i + "@example.com");
+            response.setAnnualSpend(random.nextDouble() * 20000);
+            response.setLastPurchaseDate(new Date(System.currentTimeMillis() - random.nextInt(1_000_000_000)));
+            response.setTier(tiers[random.nextInt(tiers.length)]);
+            responses.add(response);
+        }
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 200);
+        for (CustomerResponse response : responses) {
+            out.write(lineWriter.writeValueAsBytes(response));
+            out.write('\n');
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.pc.customers.service;
+
+import com.pc.customers.dto.CustomerResponse;
+import com.pc.customers.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerService#mapToResponse} and {@link CustomerService#calculateTier} over a result list of 1024
+ * customers, the per-row work of every search, page and export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int CUSTOMERS = 1024;
+
+    private final Customer[] customers = new Customer[CUSTOMERS];
+    private CustomerService service;
+
+    @Setup
+    public void setUp() {
+        service = new CustomerService();
+        ReflectionTestUtils.setField(service, "tierEvaluator", new TierEvaluator());
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setAnnualSpend(random.nextInt(8) == 0 ? null : random.nextDouble() * 20000);
+            customer.setLastPurchaseDate(new Date(now - (long) (random.nextDouble() * 500 * 24 * 3600 * 1000L)));
+            customers[i] = customer;
+        }
+    }
+
+    @Benchmark
+    public void mapToResponse(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            CustomerResponse response = service.mapToResponse(customer);
+            blackhole.consume(response);
+        }
+    }
+
+    @Benchmark
+    public void calculateTier(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            blackhole.consume(service.calculateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate()));
+        }
+    }
+}
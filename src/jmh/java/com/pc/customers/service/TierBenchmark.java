@@ -0,0 +1,93 @@
+package com.pc.customers.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tier calculation for a result list of 1024 customers: the Calendar-based implementation that mapToResponse used
+ * to call against {@link TierEvaluator}. Run with {@code -prof gc} to compare gc.alloc.rate.norm (bytes per
+ * operation) as well as throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TierBenchmark {
+
+    private static final int CUSTOMERS = 1024;
+
+    private final Double[] spends = new Double[CUSTOMERS];
+    private final Date[] purchases = new Date[CUSTOMERS];
+    private TierEvaluator evaluator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            spends[i] = random.nextInt(8) == 0 ? null : random.nextDouble() * 20000;
+            purchases[i] = random.nextInt(8) == 0 ? null : new Date(now - (long) (random.nextDouble() * 500 * 24 * 3600 * 1000L));
+        }
+        evaluator = new TierEvaluator();
+    }
+
+    @Benchmark
+    public void calendar(Blackhole blackhole) {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            blackhole.consume(calendarTier(spends[i], purchases[i]));
+        }
+    }
+
+    @Benchmark
+    public void evaluator(Blackhole blackhole) {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            blackhole.consume(evaluator.tier(spends[i], purchases[i]));
+        }
+    }
+
+    // the previous CustomerService.calculateTier, kept as the baseline
+    private static String calendarTier(Double spend, Date date) {
+        if (spend == null || spend < 1000) return "Silver";
+
+        Date now = new Date();
+        Calendar cal = Calendar.getInstance();
+
+        if (spend < 10000 && date != null) {
+            cal.setTime(now);
+            cal.add(Calendar.MONTH, -12);
+            Date twelveMonthsAgo = cal.getTime();
+
+            if (date.after(twelveMonthsAgo)) {
+                return "Gold";
+            }
+        }
+
+        if (spend >= 10000 && date != null) {
+            cal.setTime(now);
+            cal.add(Calendar.MONTH, -6);
+            Date sixMonthsAgo = cal.getTime();
+
+            if (date.after(sixMonthsAgo)) {
+                return "Platinum";
+            }
+        }
+
+        return "Silver";
+    }
+}
@@ -1,5 +1,13 @@
 package com.pc.customers.advice;
 
+import com.pc.customers.exception.InvalidChangeRequestException;
+import com.pc.customers.exception.InvalidCursorException;
+import com.pc.customers.exception.InvalidIdListException;
+import com.pc.customers.exception.InvalidPatchException;
+import com.pc.customers.exception.InvalidRangeException;
+import com.pc.customers.exception.InvalidTierException;
+import com.pc.customers.exception.PreconditionFailedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -25,4 +33,58 @@ public class ValidationExceptionHandler {
 
         return ResponseEntity.badRequest().body(Map.of("errors", errors));
     }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<?> handleInvalidPatch(InvalidPatchException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", ex.getErrors()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleVersionConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(409).body(Map.of("errors", List.of(Map.of(
+            "field", "version",
+            "defaultMessage", "Customer was changed by another request; read it again and retry"))));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<?> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(412).body(Map.of("errors", List.of(Map.of(
+            "field", "If-Match",
+            "defaultMessage", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<?> handleInvalidCursor(InvalidCursorException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", List.of(Map.of(
+            "field", "after",
+            "defaultMessage", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidIdListException.class)
+    public ResponseEntity<?> handleInvalidIdList(InvalidIdListException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", List.of(Map.of(
+            "field", "ids",
+            "defaultMessage", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidChangeRequestException.class)
+    public ResponseEntity<?> handleInvalidChangeRequest(InvalidChangeRequestException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", List.of(Map.of(
+            "field", ex.getField(),
+            "defaultMessage", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidTierException.class)
+    public ResponseEntity<?> handleInvalidTier(InvalidTierException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", List.of(Map.of(
+            "field", "tier",
+            "defaultMessage", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidRangeException.class)
+    public ResponseEntity<?> handleInvalidRange(InvalidRangeException ex) {
+        return ResponseEntity.badRequest().body(Map.of("errors", List.of(Map.of(
+            "field", ex.getField(),
+            "defaultMessage", ex.getMessage()))));
+    }
 }
@@ -0,0 +1,95 @@
+package com.pc.customers.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * HyperLogLog distinct-value estimate that also supports removal. A plain HyperLogLog keeps only the highest rank
+ * seen per register, which can't be undone; this one counts how many live values hit each (register, rank) cell and
+ * takes the register as the highest rank with a non-zero count. Removing every value of a key therefore takes it out
+ * of the estimate again, and two sketches merge by adding their counts.
+ * <p>
+ * 2^11 registers give a standard error of about 2.3%. Ranks above 32 are folded into 32, which only matters past
+ * billions of distinct values. Memory is fixed at 64K counters.
+ */
+public class CountingHyperLogLog {
+
+    static final int PRECISION = 11;
+    static final int REGISTERS = 1 << PRECISION;
+    static final int MAX_RANK = 32;
+    static final int CELLS = REGISTERS * MAX_RANK;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(CELLS);
+
+    /**
+     * @return the cell {@code value} is counted in, below {@link #CELLS}; callers keep it to remove the value later
+     */
+    public static int cellOf(String value) {
+        long hash = hash(value);
+        int register = (int) (hash >>> (64 - PRECISION));
+        int rank = Math.min(MAX_RANK, Long.numberOfLeadingZeros(hash << PRECISION | 1L << (PRECISION - 1)) + 1);
+        return register * MAX_RANK + rank - 1;
+    }
+
+    public void add(int cell) {
+        counts.incrementAndGet(cell);
+    }
+
+    public void remove(int cell) {
+        counts.decrementAndGet(cell);
+    }
+
+    public void merge(CountingHyperLogLog other) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = other.counts.get(cell);
+            if (count != 0) {
+                counts.addAndGet(cell, count);
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (int register = 0; register < REGISTERS; register++) {
+            int rank = rankOf(register);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                empty++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty); // linear counting for small cardinalities
+        }
+        return Math.round(estimate);
+    }
+
+    private int rankOf(int register) {
+        int base = register * MAX_RANK;
+        for (int rank = MAX_RANK; rank > 0; rank--) {
+            if (counts.get(base + rank - 1) > 0) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with MurmurHash3's fmix64 so every bit depends on the whole input
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
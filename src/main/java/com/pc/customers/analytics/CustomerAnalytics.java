@@ -0,0 +1,310 @@
+package com.pc.customers.analytics;
+
+import com.pc.customers.model.Customer;
+import com.pc.customers.util.UuidOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate analytics over all customers, kept current by {@code CustomerService} writes and answered from fixed-size
+ * sketches: a {@link QuantileSketch} over annual spend, a {@link CountingHyperLogLog} over email domains and a count of
+ * customers per month of their last purchase (UTC, 1970 to 2099; dates outside are counted in the first or last month).
+ * <p>
+ * Nothing is kept per customer. Writes take a customer's previous values out of the sketches using the stored row
+ * they lock or delete anyway ({@code ICustomerDAO#lockTiersAndSpend} and the deletes), and add the new ones.
+ * <p>
+ * Until the startup scan is done, a write may reach a customer before or after the scan reads it. Each write reports
+ * the stored row from inside its transaction ({@link #beforeWrite}); if the scan hasn't counted that customer yet,
+ * the scan skips it and the stored values are counted when the scan finishes instead. Only customers written during
+ * the scan are remembered, and only until it ends.
+ */
+@Component
+public class CustomerAnalytics {
+
+    static final YearMonth FIRST_MONTH = YearMonth.of(1970, 1);
+    static final int MONTHS = 130 * 12;
+
+    // contribution layout: spend slot in bits 0-15, month in 16-31, domain cell in 32-47, then one presence bit each
+    private static final int MONTH_SHIFT = 16;
+    private static final int DOMAIN_SHIFT = 32;
+    private static final long FIELD_MASK = 0xFFFF;
+    private static final long HAS_SPEND = 1L << 48;
+    private static final long HAS_MONTH = 1L << 49;
+    private static final long HAS_DOMAIN = 1L << 50;
+    // held back for a customer that had no row before the write; contributions only use bits 0-50
+    private static final long NO_ROW = -1L;
+
+    private final boolean enabled;
+    private final Sketches sketches = new Sketches();
+    // guarded by this: customers written before the scan counted them, with what the scan would have counted
+    private final Map<UUID, Long> heldBack = new HashMap<>();
+    private final List<ScanRange> ranges = new ArrayList<>();
+    private volatile boolean ready;
+    private volatile boolean abandoned;
+
+    @Autowired
+    public CustomerAnalytics(@Value("${customers.analytics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Must be called in the writing transaction before it commits, once the customer's row is locked or deleted (or a
+     * new customer has its id), for every customer the transaction creates, updates or deletes.
+     *
+     * @param stored the row as {@code lockTiersAndSpend} or a delete returned it, or null for a new customer
+     */
+    public void beforeWrite(UUID id, Object[] stored) {
+        if (!enabled || ready || abandoned) {
+            return;
+        }
+        synchronized (this) {
+            if (!ready && !scanned(id)) {
+                heldBack.putIfAbsent(id, stored != null ? contributionOf(stored) : NO_ROW);
+            }
+        }
+    }
+
+    /**
+     * Replaces a customer's stored values with the ones just committed.
+     *
+     * @param stored the row before the write as passed to {@link #beforeWrite}, or null for a new customer
+     */
+    public void written(Object[] stored, Double annualSpend, String email, Date lastPurchaseDate) {
+        if (!enabled) {
+            return;
+        }
+        if (stored != null) {
+            sketches.remove(contributionOf(stored));
+        }
+        sketches.add(contributionOf(annualSpend, email, lastPurchaseDate));
+    }
+
+    /**
+     * Takes out a customer whose deletion was just committed.
+     *
+     * @param stored the deleted row as passed to {@link #beforeWrite}
+     */
+    public void removed(Object[] stored) {
+        if (enabled) {
+            sketches.remove(contributionOf(stored));
+        }
+    }
+
+    /**
+     * Registers the part {@code after < id <= upTo} of the startup scan (null bounds are open); its pages are then
+     * counted by {@link #addLoaded}, in id order.
+     */
+    synchronized ScanRange scanRange(UUID after, UUID upTo) {
+        ScanRange range = new ScanRange(after, upTo);
+        ranges.add(range);
+        return range;
+    }
+
+    /**
+     * Counts one page of the startup scan, {@code [UUID id, Double annualSpend, String email, Date lastPurchaseDate]}
+     * rows as returned by {@code findAnalyticsRows}, into {@code partial}, except customers a write has held back.
+     * {@code partial} is merged in by {@link #merge(Sketches)}, so a live update in between may briefly take out
+     * counts that aren't there yet; the totals are right once it's merged. Writes wait while a page is counted.
+     */
+    synchronized void addLoaded(Sketches partial, ScanRange range, List<Object[]> page) {
+        for (Object[] row : page) {
+            if (!heldBack.containsKey((UUID) row[0])) {
+                partial.add(contributionOf((Double) row[1], (String) row[2], (Date) row[3]));
+            }
+        }
+        if (!page.isEmpty()) {
+            range.scannedUpTo = (UUID) page.get(page.size() - 1)[0];
+        }
+    }
+
+    void merge(Sketches partial) {
+        sketches.merge(partial);
+    }
+
+    /**
+     * Ends the scan: customers held back are counted with the values they had before their first write.
+     */
+    synchronized void markReady() {
+        heldBack.values().forEach(contribution -> {
+            if (contribution != NO_ROW) {
+                sketches.add(contribution);
+            }
+        });
+        heldBack.clear();
+        ranges.clear();
+        ready = true;
+    }
+
+    /**
+     * Stops tracking writes for a scan that failed; the sketches stay incomplete and are never reported ready.
+     */
+    synchronized void abandon() {
+        abandoned = true;
+        heldBack.clear();
+        ranges.clear();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long size() {
+        return sketches.customers.get();
+    }
+
+    // guarded by this
+    private boolean scanned(UUID id) {
+        for (ScanRange range : ranges) {
+            if (range.contains(id)) {
+                return range.scannedUpTo != null && UuidOrder.compare(id, range.scannedUpTo) <= 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return annual spend at {@code quantile}, within {@link QuantileSketch#RELATIVE_ACCURACY}, or null if no
+     * customer has one
+     */
+    public Double spendQuantile(double quantile) {
+        return sketches.spend.quantile(quantile);
+    }
+
+    public long distinctEmailDomains() {
+        return sketches.domains.estimate();
+    }
+
+    /**
+     * @return customers per month of their last purchase, for months that have any, oldest first
+     */
+    public Map<YearMonth, Long> purchasesByMonth() {
+        Map<YearMonth, Long> months = new LinkedHashMap<>();
+        for (int month = 0; month < MONTHS; month++) {
+            long count = sketches.months.get(month);
+            if (count > 0) {
+                months.put(FIRST_MONTH.plusMonths(month), count);
+            }
+        }
+        return months;
+    }
+
+    // a row of [UUID id, String tier, Double annualSpend, String email, Date lastPurchaseDate]
+    private static long contributionOf(Object[] stored) {
+        return contributionOf((Double) stored[2], (String) stored[3], (Date) stored[4]);
+    }
+
+    static long contributionOf(Double annualSpend, String email, Date lastPurchaseDate) {
+        long contribution = 0;
+        if (annualSpend != null) {
+            contribution |= HAS_SPEND | QuantileSketch.slotOf(annualSpend);
+        }
+        if (lastPurchaseDate != null) {
+            contribution |= HAS_MONTH | (long) monthOf(lastPurchaseDate) << MONTH_SHIFT;
+        }
+        String domain = domainOf(email);
+        if (domain != null) {
+            contribution |= HAS_DOMAIN | (long) CountingHyperLogLog.cellOf(domain) << DOMAIN_SHIFT;
+        }
+        return contribution;
+    }
+
+    static String domainOf(String email) {
+        String normalized = Customer.normalizeEmail(email);
+        int at = normalized == null ? -1 : normalized.lastIndexOf('@');
+        return at < 0 || at == normalized.length() - 1 ? null : normalized.substring(at + 1);
+    }
+
+    // Date.toInstant() isn't supported by the java.sql.Date values JDBC may hand back
+    private static int monthOf(Date date) {
+        YearMonth month = YearMonth.from(Instant.ofEpochMilli(date.getTime()).atZone(ZoneOffset.UTC));
+        long index = FIRST_MONTH.until(month, ChronoUnit.MONTHS);
+        return (int) Math.min(MONTHS - 1, Math.max(0, index));
+    }
+
+    /**
+     * One part of the startup scan and how far it has been counted.
+     */
+    static final class ScanRange {
+
+        private final UUID after;
+        private final UUID upTo;
+        private UUID scannedUpTo;
+
+        private ScanRange(UUID after, UUID upTo) {
+            this.after = after;
+            this.upTo = upTo;
+        }
+
+        private boolean contains(UUID id) {
+            return (after == null || UuidOrder.compare(id, after) > 0) && (upTo == null || UuidOrder.compare(id, upTo) <= 0);
+        }
+    }
+
+    /**
+     * One set of sketches: the live one, or one filled by a loader thread and merged into it.
+     */
+    static final class Sketches {
+
+        private final AtomicLong customers = new AtomicLong();
+        private final QuantileSketch spend = new QuantileSketch();
+        private final CountingHyperLogLog domains = new CountingHyperLogLog();
+        private final AtomicLongArray months = new AtomicLongArray(MONTHS);
+
+        private void add(long contribution) {
+            customers.incrementAndGet();
+            if ((contribution & HAS_SPEND) != 0) {
+                spend.add((int) (contribution & FIELD_MASK));
+            }
+            if ((contribution & HAS_MONTH) != 0) {
+                months.incrementAndGet((int) (contribution >>> MONTH_SHIFT & FIELD_MASK));
+            }
+            if ((contribution & HAS_DOMAIN) != 0) {
+                domains.add((int) (contribution >>> DOMAIN_SHIFT & FIELD_MASK));
+            }
+        }
+
+        private void remove(long contribution) {
+            customers.decrementAndGet();
+            if ((contribution & HAS_SPEND) != 0) {
+                spend.remove((int) (contribution & FIELD_MASK));
+            }
+            if ((contribution & HAS_MONTH) != 0) {
+                months.decrementAndGet((int) (contribution >>> MONTH_SHIFT & FIELD_MASK));
+            }
+            if ((contribution & HAS_DOMAIN) != 0) {
+                domains.remove((int) (contribution >>> DOMAIN_SHIFT & FIELD_MASK));
+            }
+        }
+
+        private void merge(Sketches other) {
+            customers.addAndGet(other.customers.get());
+            spend.merge(other.spend);
+            domains.merge(other.domains);
+            for (int month = 0; month < MONTHS; month++) {
+                long count = other.months.get(month);
+                if (count != 0) {
+                    months.addAndGet(month, count);
+                }
+            }
+        }
+    }
+}
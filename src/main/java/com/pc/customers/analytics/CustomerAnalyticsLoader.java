@@ -0,0 +1,124 @@
+package com.pc.customers.analytics;
+
+import com.pc.customers.dao.ICustomerDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the {@link CustomerAnalytics} sketches and, when enabled, the {@link CustomerColumns} snapshot once the
+ * application is up, from one scan. The id space is cut into {@code customers.analytics.load-threads} equal ranges of
+ * the leading UUID bits, which split generated (random) ids evenly; each range is keyset-paged into its own sketches
+ * on its own thread, and the results are merged.
+ */
+@Component
+public class CustomerAnalyticsLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerAnalyticsLoader.class);
+
+    private final ICustomerDAO customerDAO;
+    private final CustomerAnalytics customerAnalytics;
+    private final CustomerColumns customerColumns;
+
+    @Value("${customers.analytics.load-threads:4}")
+    private int threads = 4;
+
+    @Value("${customers.analytics.load-page-size:10000}")
+    private int pageSize = 10000;
+
+    @Autowired
+    public CustomerAnalyticsLoader(ICustomerDAO customerDAO, CustomerAnalytics customerAnalytics,
+                                   CustomerColumns customerColumns) {
+        this.customerDAO = customerDAO;
+        this.customerAnalytics = customerAnalytics;
+        this.customerColumns = customerColumns;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        boolean enabled = customerAnalytics.isEnabled();
+        if (!enabled && !customerColumns.isEnabled()) {
+            logger.info("Customer analytics disabled");
+            return;
+        }
+        long start = System.nanoTime();
+        int ranges = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(ranges, runnable -> {
+            Thread thread = new Thread(runnable, "customer-analytics-load-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean built = false;
+        try {
+            List<Future<CustomerAnalytics.Sketches>> partials = new ArrayList<>(ranges);
+            for (int i = 0; i < ranges; i++) {
+                UUID after = i == 0 ? null : boundary(i, ranges);
+                UUID upTo = i == ranges - 1 ? null : boundary(i + 1, ranges);
+                CustomerAnalytics.ScanRange range = enabled ? customerAnalytics.scanRange(after, upTo) : null;
+                partials.add(loaders.submit(() -> loadRange(range, after, upTo)));
+            }
+            for (Future<CustomerAnalytics.Sketches> partial : partials) {
+                CustomerAnalytics.Sketches sketches = partial.get();
+                if (enabled) {
+                    customerAnalytics.merge(sketches);
+                }
+            }
+            if (enabled) {
+                customerAnalytics.markReady();
+                built = true;
+                logger.info("Customer analytics built for {} customers in {} ms",
+                        customerAnalytics.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+            if (customerColumns.isEnabled()) {
+                customerColumns.markReady();
+                logger.info("Customer snapshot built for {} customers in {} ms",
+                        customerColumns.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted building customer analytics");
+        } catch (Exception e) {
+            logger.error("Could not build customer analytics", e);
+        } finally {
+            loaders.shutdownNow();
+            if (enabled && !built) {
+                customerAnalytics.abandon();
+            }
+        }
+    }
+
+    private CustomerAnalytics.Sketches loadRange(CustomerAnalytics.ScanRange range, UUID after, UUID upTo) {
+        CustomerAnalytics.Sketches partial = new CustomerAnalytics.Sketches();
+        UUID cursor = after;
+        List<Object[]> page;
+        do {
+            page = customerDAO.findAnalyticsRows(cursor, upTo, pageSize);
+            if (range != null) {
+                customerAnalytics.addLoaded(partial, range, page);
+            }
+            customerColumns.addLoaded(page);
+            if (!page.isEmpty()) {
+                cursor = (UUID) page.get(page.size() - 1)[0];
+            }
+        } while (page.size() == pageSize);
+        return partial;
+    }
+
+    // exclusive lower bound of range i (and upper bound of range i - 1): i / ranges of the way through the id space
+    static UUID boundary(int i, int ranges) {
+        return new UUID(Long.divideUnsigned(-1L, ranges) * i, 0L);
+    }
+}
@@ -0,0 +1,504 @@
+package com.pc.customers.analytics;
+
+import com.pc.customers.util.UuidOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Optional ({@code customers.snapshot.enabled}) columnar copy of every customer's annual spend and last purchase
+ * day, for top-N and range queries that would otherwise scan the table through Hibernate. Nothing per customer is
+ * kept on the heap: rows live in off-heap segments of {@value #SEGMENT_ROWS}, each holding one primitive column per
+ * field (spend, last purchase epoch day, the id's high and low bits), and customers are found by row through an
+ * off-heap open-addressing index. Segments are direct buffers, or memory-mapped scratch files in
+ * {@code customers.snapshot.directory} when set, which keeps them out of {@code -XX:MaxDirectMemorySize}.
+ * <p>
+ * Queries scan the segments in parallel with a branch-light loop over the primitive columns. Writes take a write lock
+ * and queries a read lock, so a query sees no half-applied write. Customers without an annual spend are not
+ * matched by any query.
+ */
+@Component
+public class CustomerColumns {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerColumns.class);
+
+    static final int SEGMENT_SHIFT = 16;
+    static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    private static final int ROW_MASK = SEGMENT_ROWS - 1;
+    private static final int MAX_ROWS = 1 << 26;
+    public static final int NO_DAY = Integer.MIN_VALUE;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    // index slots hold row + 1; 0 is empty and -1 a removed entry that probes must step over
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    private static final int MIN_INDEX_CAPACITY = 1 << 12;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private final Set<UUID> removedWhileLoading = ConcurrentHashMap.newKeySet();
+    private IntBuffer index;
+    private int indexCapacity;
+    private int indexUsed;
+    private int rows;
+    private int live;
+    // removed rows are reused; each free row's day column links to the next one
+    private int freeHead = -1;
+    private volatile boolean ready;
+    private volatile boolean failed;
+
+    @Autowired
+    public CustomerColumns(@Value("${customers.snapshot.enabled:false}") boolean enabled,
+                           @Value("${customers.snapshot.directory:}") String directory) {
+        this.enabled = enabled;
+        this.directory = directory == null || directory.isBlank() ? null : Paths.get(directory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready && !failed;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(UUID id, Double annualSpend, Date lastPurchaseDate) {
+        if (!enabled || failed) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int row = find(id);
+            write(row >= 0 ? row : insert(id), annualSpend, lastPurchaseDate);
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        if (!enabled || failed) {
+            return;
+        }
+        if (!ready) {
+            removedWhileLoading.add(id);
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(id);
+            if (slot >= 0) {
+                int row = index.get(slot) - 1;
+                index.put(slot, TOMBSTONE);
+                Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+                segment.spend.put(row & ROW_MASK, Double.NaN);
+                segment.days.put(row & ROW_MASK, freeHead);
+                freeHead = row;
+                live--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds one page of the startup scan, {@code [UUID id, Double annualSpend, String email, Date lastPurchaseDate]}
+     * rows as returned by {@code findAnalyticsRows}. Customers a live write has already put or removed are skipped;
+     * the live value is newer than the scan's.
+     */
+    void addLoaded(List<Object[]> page) {
+        if (!enabled || failed) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : page) {
+                UUID id = (UUID) row[0];
+                if (!removedWhileLoading.contains(id) && find(id) < 0) {
+                    write(insert(id), (Double) row[1], (Date) row[3]);
+                }
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        ready = true;
+        removedWhileLoading.clear();
+    }
+
+    /**
+     * Customers whose annual spend is within {@code [minSpend, maxSpend]} and whose last purchase is on or after
+     * {@code fromDay} (an epoch day; {@link #NO_DAY} for any, including none).
+     *
+     * @return how many match, their total spend, and the {@code limit} with the highest spend, highest first
+     */
+    public Ranking rank(double minSpend, double maxSpend, int fromDay, int limit) {
+        lock.readLock().lock();
+        try {
+            int rowCount = rows;
+            Partial total = IntStream.range(0, (rowCount + SEGMENT_ROWS - 1) >>> SEGMENT_SHIFT)
+                    .parallel()
+                    .mapToObj(s -> scan(segments.get(s), s << SEGMENT_SHIFT,
+                            Math.min(SEGMENT_ROWS, rowCount - (s << SEGMENT_SHIFT)), minSpend, maxSpend, fromDay, limit))
+                    .reduce(Partial::merge)
+                    .orElseGet(() -> new Partial(limit));
+            List<Ranked> top = new ArrayList<>(total.top.size);
+            for (int i = 0; i < total.top.size; i++) {
+                int row = total.top.rows[i];
+                Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+                int day = segment.days.get(row & ROW_MASK);
+                top.add(new Ranked(new UUID(segment.idHigh.get(row & ROW_MASK), segment.idLow.get(row & ROW_MASK)),
+                        total.top.spend[i], day == NO_DAY ? null : LocalDate.ofEpochDay(day)));
+            }
+            top.sort(Comparator.comparingDouble(Ranked::getAnnualSpend).reversed()
+                    .thenComparing(Ranked::getId, UuidOrder.COMPARATOR));
+            return new Ranking(total.matches, total.totalSpend, top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int epochDayOf(Date date) {
+        return date == null ? NO_DAY : (int) Math.floorDiv(date.getTime(), MILLIS_PER_DAY);
+    }
+
+    // non-short-circuit & keeps the filter free of branches; only rows that beat the current top-N cutoff branch
+    private static Partial scan(Segment segment, int base, int count, double minSpend, double maxSpend, int fromDay, int limit) {
+        Partial partial = new Partial(limit);
+        DoubleBuffer spend = segment.spend;
+        IntBuffer days = segment.days;
+        long matches = 0;
+        double totalSpend = 0;
+        double cutoff = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double value = spend.get(i);
+            boolean match = value >= minSpend & value <= maxSpend & days.get(i) >= fromDay;
+            matches += match ? 1 : 0;
+            totalSpend += match ? value : 0.0;
+            if (match & value > cutoff) {
+                partial.top.offer(value, base + i);
+                cutoff = partial.top.cutoff();
+            }
+        }
+        partial.matches = matches;
+        partial.totalSpend = totalSpend;
+        return partial;
+    }
+
+    private void write(int row, Double annualSpend, Date lastPurchaseDate) {
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        segment.spend.put(row & ROW_MASK, annualSpend == null ? Double.NaN : annualSpend);
+        segment.days.put(row & ROW_MASK, epochDayOf(lastPurchaseDate));
+    }
+
+    private int insert(UUID id) {
+        int row;
+        if (freeHead >= 0) {
+            row = freeHead;
+            freeHead = segments.get(row >>> SEGMENT_SHIFT).days.get(row & ROW_MASK);
+        } else {
+            if (rows == MAX_ROWS) {
+                throw new IllegalStateException("Customer snapshot is full at " + MAX_ROWS + " rows");
+            }
+            row = rows++;
+            if (row >>> SEGMENT_SHIFT == segments.size()) {
+                segments.add(new Segment(allocate("segment-" + segments.size() + ".bin", (long) SEGMENT_ROWS * Segment.ROW_BYTES)));
+            }
+        }
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        segment.idHigh.put(row & ROW_MASK, id.getMostSignificantBits());
+        segment.idLow.put(row & ROW_MASK, id.getLeastSignificantBits());
+        if ((indexUsed + 1) * 2L > indexCapacity) {
+            resizeIndex();
+        }
+        int slot = hashOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) & (indexCapacity - 1);
+        while (index.get(slot) > 0) {
+            slot = (slot + 1) & (indexCapacity - 1);
+        }
+        if (index.get(slot) == EMPTY) {
+            indexUsed++;
+        }
+        index.put(slot, row + 1);
+        live++;
+        return row;
+    }
+
+    private int find(UUID id) {
+        int slot = slotOf(id);
+        return slot < 0 ? -1 : index.get(slot) - 1;
+    }
+
+    private int slotOf(UUID id) {
+        if (index == null) {
+            return -1;
+        }
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        for (int slot = hashOf(high, low) & (indexCapacity - 1); ; slot = (slot + 1) & (indexCapacity - 1)) {
+            int entry = index.get(slot);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != TOMBSTONE) {
+                Segment segment = segments.get((entry - 1) >>> SEGMENT_SHIFT);
+                if (segment.idHigh.get((entry - 1) & ROW_MASK) == high && segment.idLow.get((entry - 1) & ROW_MASK) == low) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    // at most half full, counting removed entries, so probes stay short and always reach an empty slot
+    private void resizeIndex() {
+        int capacity = MIN_INDEX_CAPACITY;
+        while (capacity < (live + 1) * 4L) {
+            capacity <<= 1;
+        }
+        IntBuffer previous = index;
+        int previousCapacity = indexCapacity;
+        index = allocate("index.bin", (long) capacity * Integer.BYTES).asIntBuffer();
+        indexCapacity = capacity;
+        indexUsed = 0;
+        for (int slot = 0; previous != null && slot < previousCapacity; slot++) {
+            int entry = previous.get(slot);
+            if (entry > 0) {
+                Segment segment = segments.get((entry - 1) >>> SEGMENT_SHIFT);
+                int target = hashOf(segment.idHigh.get((entry - 1) & ROW_MASK), segment.idLow.get((entry - 1) & ROW_MASK))
+                        & (capacity - 1);
+                while (index.get(target) != EMPTY) {
+                    target = (target + 1) & (capacity - 1);
+                }
+                index.put(target, entry);
+                indexUsed++;
+            }
+        }
+    }
+
+    private ByteBuffer allocate(String name, long bytes) {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        }
+        try {
+            Files.createDirectories(directory);
+            // a resized index gets a fresh file; the old mapping stays valid until it is collected
+            Path file = Files.createTempFile(directory, name, null);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        failed = true;
+        logger.error("Customer snapshot disabled after a failed update; restart to rebuild it", e);
+    }
+
+    // murmur3 fmix64 over both halves, so sequential and random ids spread alike
+    private static int hashOf(long high, long low) {
+        long h = high * 31 + low;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Query result: match count and spend over all matches, plus the top rows.
+     */
+    public static final class Ranking {
+        private final long matches;
+        private final double totalSpend;
+        private final List<Ranked> top;
+
+        Ranking(long matches, double totalSpend, List<Ranked> top) {
+            this.matches = matches;
+            this.totalSpend = totalSpend;
+            this.top = top;
+        }
+
+        public long getMatches() {
+            return matches;
+        }
+
+        public double getTotalSpend() {
+            return totalSpend;
+        }
+
+        public List<Ranked> getTop() {
+            return top;
+        }
+    }
+
+    public static final class Ranked {
+        private final UUID id;
+        private final double annualSpend;
+        private final LocalDate lastPurchaseDate;
+
+        Ranked(UUID id, double annualSpend, LocalDate lastPurchaseDate) {
+            this.id = id;
+            this.annualSpend = annualSpend;
+            this.lastPurchaseDate = lastPurchaseDate;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public double getAnnualSpend() {
+            return annualSpend;
+        }
+
+        public LocalDate getLastPurchaseDate() {
+            return lastPurchaseDate;
+        }
+    }
+
+    /**
+     * One segment's columns, sliced out of a single allocation.
+     */
+    private static final class Segment {
+
+        private static final int ROW_BYTES = Double.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+        private final DoubleBuffer spend;
+        private final IntBuffer days;
+        private final LongBuffer idHigh;
+        private final LongBuffer idLow;
+
+        private Segment(ByteBuffer memory) {
+            int offset = 0;
+            spend = column(memory, offset, Double.BYTES).asDoubleBuffer();
+            offset += SEGMENT_ROWS * Double.BYTES;
+            days = column(memory, offset, Integer.BYTES).asIntBuffer();
+            offset += SEGMENT_ROWS * Integer.BYTES;
+            idHigh = column(memory, offset, Long.BYTES).asLongBuffer();
+            offset += SEGMENT_ROWS * Long.BYTES;
+            idLow = column(memory, offset, Long.BYTES).asLongBuffer();
+        }
+
+        private static ByteBuffer column(ByteBuffer memory, int offset, int width) {
+            return memory.slice(offset, SEGMENT_ROWS * width).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * A scan's running result; partials of different segments are merged.
+     */
+    private static final class Partial {
+        private final TopN top;
+        private long matches;
+        private double totalSpend;
+
+        private Partial(int limit) {
+            this.top = new TopN(limit);
+        }
+
+        private Partial merge(Partial other) {
+            matches += other.matches;
+            totalSpend += other.totalSpend;
+            for (int i = 0; i < other.top.size; i++) {
+                top.offer(other.top.spend[i], other.top.rows[i]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Bounded min-heap of (spend, row): keeps the {@code limit} highest spends seen.
+     */
+    static final class TopN {
+        private final double[] spend;
+        private final int[] rows;
+        private int size;
+
+        TopN(int limit) {
+            this.spend = new double[Math.max(1, limit)];
+            this.rows = new int[spend.length];
+        }
+
+        double cutoff() {
+            return size < spend.length ? Double.NEGATIVE_INFINITY : spend[0];
+        }
+
+        void offer(double value, int row) {
+            if (size < spend.length) {
+                int i = size++;
+                while (i > 0 && spend[(i - 1) >>> 1] > value) {
+                    spend[i] = spend[(i - 1) >>> 1];
+                    rows[i] = rows[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+                spend[i] = value;
+                rows[i] = row;
+            } else if (value > spend[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && spend[child + 1] < spend[child]) {
+                        child++;
+                    }
+                    if (spend[child] >= value) {
+                        break;
+                    }
+                    spend[i] = spend[child];
+                    rows[i] = rows[child];
+                    i = child;
+                }
+                spend[i] = value;
+                rows[i] = row;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.pc.customers.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Quantile sketch over non-negative values with a fixed relative accuracy, in the style of DDSketch: value {@code x}
+ * is counted in bucket {@code ceil(log_gamma(x))}, so any quantile is answered to within {@link #RELATIVE_ACCURACY}
+ * of the true value. Buckets cover {@link #MIN_VALUE} to {@link #MAX_VALUE}; smaller values share the zero bucket and
+ * larger ones are counted in the last bucket.
+ * <p>
+ * Counts are plain counters, so a value can be removed again and two sketches merge by adding their counts. Memory
+ * is fixed at a few thousand counters whatever the number of values.
+ */
+public class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_VALUE = 0.01;
+    static final double MAX_VALUE = 1e12;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MIN_INDEX = index(MIN_VALUE);
+    static final int SLOTS = index(MAX_VALUE) - MIN_INDEX + 2; // slot 0 holds zero and values below MIN_VALUE
+
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+    /**
+     * @return the slot {@code value} is counted in; callers keep it to remove the value later
+     */
+    public static int slotOf(double value) {
+        if (!(value >= MIN_VALUE)) {
+            return 0;
+        }
+        return Math.min(SLOTS - 1, index(value) - MIN_INDEX + 1);
+    }
+
+    public void add(int slot) {
+        counts.incrementAndGet(slot);
+    }
+
+    public void remove(int slot) {
+        counts.decrementAndGet(slot);
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long count = other.counts.get(slot);
+            if (count != 0) {
+                counts.addAndGet(slot, count);
+            }
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            total += counts.get(slot);
+        }
+        return total;
+    }
+
+    /**
+     * Nearest-rank quantile: the value at rank {@code ceil(quantile * n)}, so p99 of a small sample is its largest
+     * value rather than the one below it.
+     *
+     * @param quantile between 0 and 1
+     * @return the estimated value at {@code quantile}, or null if the sketch is empty
+     */
+    public Double quantile(double quantile) {
+        long[] snapshot = new long[SLOTS];
+        long total = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            snapshot[slot] = Math.max(0, counts.get(slot));
+            total += snapshot[slot];
+        }
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(0, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * total) - 1);
+        long seen = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            seen += snapshot[slot];
+            if (seen > rank) {
+                return valueOf(slot);
+            }
+        }
+        return valueOf(SLOTS - 1);
+    }
+
+    // the point of the bucket that is within RELATIVE_ACCURACY of both of its bounds
+    static double valueOf(int slot) {
+        if (slot == 0) {
+            return 0;
+        }
+        return 2 * Math.pow(GAMMA, slot - 1 + MIN_INDEX) / (GAMMA + 1);
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+}
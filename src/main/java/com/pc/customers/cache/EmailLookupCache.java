@@ -0,0 +1,121 @@
+package com.pc.customers.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.pc.customers.datasource.ReadRouting;
+import com.pc.customers.model.Customer;
+import com.pc.customers.util.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for email lookups, keyed by the normalized email.
+ * <p>
+ * Empty results are cached as well, so writers must invalidate the emails they touch. Invalidation runs
+ * both immediately and again after commit, which keeps a lookup racing the writing transaction from
+ * re-populating the entry with pre-commit data. Misses are loaded outside the cache, so concurrent misses on
+ * the same email may each query the database.
+ */
+@Component
+public class EmailLookupCache implements MeterBinder {
+
+    private final Cache<String, List<Customer>> cache;
+
+    // reverse index so a delete by id can find the entry to drop without loading the customer
+    private final Map<UUID, String> emailById = new ConcurrentHashMap<>();
+
+    // bumped by every invalidation; a load that saw it change may hold pre-commit data and doesn't keep its entry
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public EmailLookupCache(@Value("${customers.cache.email.maximum-size:10000}") long maximumSize,
+                            @Value("${customers.cache.email.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .evictionListener((String email, List<Customer> customers, RemovalCause cause) -> forget(email, customers))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param loader may return null to signal that the result must not be cached; null is then returned as well
+     */
+    public List<Customer> get(String email, Function<String, List<Customer>> loader) {
+        String key = Customer.normalizeEmail(email);
+        if (key == null) {
+            return loader.apply(null);
+        }
+        List<Customer> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // load outside the cache's map: a compute would hold a bin lock across the query and pin virtual threads
+        long generation = invalidations.get();
+        List<Customer> loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        List<Customer> customers = List.copyOf(loaded);
+        if (ReadRouting.isReplicaRead()) {
+            return customers; // a replica may not have caught up with the last invalidation yet
+        }
+        customers.forEach(customer -> emailById.put(customer.getId(), key));
+        cache.put(key, customers);
+        if (invalidations.get() != generation && cache.asMap().remove(key, customers)) {
+            forget(key, customers);
+        }
+        return customers;
+    }
+
+    public void invalidate(String email) {
+        String key = Customer.normalizeEmail(email);
+        if (key != null) {
+            evict(key);
+            AfterCommit.run(() -> evict(key));
+        }
+    }
+
+    public void invalidateCustomer(UUID id) {
+        String key = emailById.get(id);
+        if (key != null) {
+            evict(key);
+            AfterCommit.run(() -> evict(key));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "customers.by-email");
+    }
+
+    public Cache<String, List<Customer>> getCache() {
+        return cache;
+    }
+
+    // bump the generation before removing: a load that put its value after the removal is then sure to see it
+    private void evict(String key) {
+        invalidations.incrementAndGet();
+        List<Customer> customers = cache.asMap().remove(key);
+        forget(key, customers);
+    }
+
+    private void forget(String key, List<Customer> customers) {
+        if (customers != null) {
+            customers.forEach(customer -> emailById.remove(customer.getId(), key));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pc.customers.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pc.customers.util.AfterCommit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional cache of customer responses already encoded as JSON, plus a gzip copy, so hot customers are served
+ * without running Jackson.
+ * <p>
+ * Each entry remembers the ETag (version and tier) it was encoded for and is only used for that ETag; an entry for
+ * an older version, or one whose tier has since lapsed, is re-encoded on the next read. Writers still invalidate the
+ * ids they touch so outdated bytes don't hold memory. The cache is capped by the bytes it holds. Hits and misses are
+ * published as {@code cache.gets} with {@code cache=customers.response-bytes}, next to the entry count and bytes held.
+ */
+@Component
+public class EncodedResponseCache implements MeterBinder {
+
+    static final String CACHE_NAME = "customers.response-bytes";
+
+    // rough per-entry cost beyond the byte arrays: key, entry object, ETag string, cache node
+    private static final int ENTRY_OVERHEAD = 200;
+
+    private final boolean enabled;
+    private final Cache<UUID, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public EncodedResponseCache(@Value("${customers.cache.response-bytes.enabled:false}") boolean enabled,
+                                @Value("${customers.cache.response-bytes.maximum-size:16MB}") DataSize maximumSize) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(enabled ? maximumSize.toBytes() : 0)
+                .weigher((UUID id, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Reads served from already encoded bytes")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Reads that had to encode the response")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictionCount())
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        Gauge.builder("cache.size", cache, Cache::estimatedSize)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        Gauge.builder("cache.weight", this, EncodedResponseCache::weight)
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param json encodes the response; only called when there is no entry for {@code eTag}
+     */
+    public Entry get(UUID id, String eTag, Supplier<byte[]> json) {
+        // asMap().get doesn't count towards Caffeine's stats, which would report an entry for an old ETag as a hit
+        Entry cached = cache.asMap().get(id);
+        if (cached != null && eTag != null && eTag.equals(cached.eTag)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Entry entry = new Entry(eTag, json.get());
+        if (enabled && eTag != null) {
+            cache.put(id, entry);
+        }
+        return entry;
+    }
+
+    public void invalidate(UUID id) {
+        if (id != null) {
+            cache.invalidate(id);
+            AfterCommit.run(() -> cache.invalidate(id));
+        }
+    }
+
+    long weight() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    Cache<UUID, Entry> getCache() {
+        return cache;
+    }
+
+    public static final class Entry {
+
+        private final String eTag;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        Entry(String eTag, byte[] json) {
+            this.eTag = eTag;
+            this.json = json;
+            this.gzip = gzip(json);
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        private int weight() {
+            return json.length + gzip.length + ENTRY_OVERHEAD;
+        }
+
+        private static byte[] gzip(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
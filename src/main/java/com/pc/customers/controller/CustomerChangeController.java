@@ -0,0 +1,78 @@
+package com.pc.customers.controller;
+
+import com.pc.customers.dto.ConsumerOffset;
+import com.pc.customers.exception.InvalidChangeRequestException;
+import com.pc.customers.outbox.ChangeLog;
+import com.pc.customers.outbox.ChangeStream;
+import com.pc.customers.outbox.ConsumerOffsets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/customers/changes")
+public class CustomerChangeController {
+
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    @Autowired
+    private ChangeStream changeStream;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ConsumerOffsets consumerOffsets;
+
+    /**
+     * Streams customer changes as Server-Sent Events. Starts after {@code Last-Event-ID} when reconnecting, else at
+     * {@code from}, else at the committed offset of {@code consumer}, else with the next change; 503 when the
+     * subscriber limit is reached.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) Long from,
+                                             @RequestParam(required = false) String consumer,
+                                             @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId)
+            throws IOException {
+        SseEmitter emitter = changeStream.subscribe(startOffset(from, consumer, lastEventId));
+        return emitter != null ? ResponseEntity.ok(emitter) : ResponseEntity.status(503).build();
+    }
+
+    @GetMapping("/offsets/{consumer}")
+    public ResponseEntity<ConsumerOffset> offset(@PathVariable String consumer) {
+        Long offset = consumerOffsets.get(consumer);
+        return offset != null ? ResponseEntity.ok(new ConsumerOffset(consumer, offset)) : ResponseEntity.notFound().build();
+    }
+
+    @PutMapping("/offsets/{consumer}")
+    public ResponseEntity<ConsumerOffset> commit(@PathVariable String consumer, @RequestBody ConsumerOffset request)
+            throws IOException {
+        if (request == null || request.getOffset() == null) {
+            throw new InvalidChangeRequestException("offset", "Offset is required");
+        }
+        if (request.getOffset() > changeLog.endOffset()) {
+            throw new InvalidChangeRequestException("offset", "Offset is past the end of the change log");
+        }
+        consumerOffsets.commit(consumer, request.getOffset());
+        return ResponseEntity.ok(new ConsumerOffset(consumer, request.getOffset()));
+    }
+
+    private long startOffset(Long from, String consumer, String lastEventId) {
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                return Long.parseLong(lastEventId.trim()) + 1;
+            } catch (NumberFormatException e) {
+                throw new InvalidChangeRequestException(LAST_EVENT_ID_HEADER, "Last-Event-ID must be a change offset");
+            }
+        }
+        if (from != null) {
+            return from;
+        }
+        Long committed = consumer != null ? consumerOffsets.get(consumer) : null;
+        return committed != null ? committed : changeLog.endOffset();
+    }
+}
@@ -1,21 +1,53 @@
 package com.pc.customers.controller;
 
+import com.pc.customers.cache.EncodedResponseCache;
+import com.pc.customers.dto.AnalyticsResponse;
+import com.pc.customers.dto.BatchCreateResponse;
+import com.pc.customers.dto.BulkDeleteResponse;
+import com.pc.customers.dto.CustomerPage;
+import com.pc.customers.dto.CustomerPatchRequest;
 import com.pc.customers.dto.CustomerRequest;
 import com.pc.customers.dto.CustomerResponse;
+import com.pc.customers.dto.LookupResponse;
+import com.pc.customers.dto.PageCursor;
+import com.pc.customers.dto.PurchaseRequest;
+import com.pc.customers.dto.RangeCursor;
+import com.pc.customers.dto.SpendRankingResponse;
+import com.pc.customers.dto.TierSummaryResponse;
+import com.pc.customers.exception.InvalidIdListException;
+import com.pc.customers.exception.InvalidRangeException;
+import com.pc.customers.exception.InvalidTierException;
 import com.pc.customers.model.Customer;
 import com.pc.customers.service.CustomerService;
+import com.pc.customers.util.ETags;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/customers")
 public class CustomerController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_LOOKUP_IDS = 1000;
+    static final int MAX_DELETE_IDS = 100_000;
+    static final int MAX_BATCH_CREATE = 10_000;
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private CustomerService service;
 
@@ -29,31 +61,291 @@ public class CustomerController {
         return ResponseEntity.status(201).body(service.createCustomer(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateResponse> createBatch(@RequestBody List<CustomerRequest> requests) {
+        if (requests.size() > MAX_BATCH_CREATE) {
+            throw new InvalidIdListException("At most " + MAX_BATCH_CREATE + " customers can be created at once, got " + requests.size());
+        }
+        BatchCreateResponse response = service.createCustomers(requests);
+        return ResponseEntity.status(response.getFailed() == 0 ? 201 : 207).body(response);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> service.exportCustomers(out));
+    }
+
+    /**
+     * Approximate spend quantiles, distinct email domains and last purchases by month, answered from in-memory
+     * sketches; 503 until they have been built after startup.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResponse> analytics() {
+        AnalyticsResponse analytics = service.getAnalytics();
+        return analytics != null ? ResponseEntity.ok(analytics) : ResponseEntity.status(503).build();
+    }
+
+    /**
+     * Highest annual spenders, from the columnar snapshot ({@code customers.snapshot.enabled}); 503 while it is
+     * disabled or being built.
+     */
+    @GetMapping("/top-spenders")
+    public ResponseEntity<SpendRankingResponse> topSpenders(@RequestParam(required = false) Integer limit) {
+        return toRankingResponse(service.getTopSpenders(pageSize(limit)));
+    }
+
+    /**
+     * Count, total spend and highest spenders among customers with {@code min <= annualSpend <= max} who last
+     * purchased after {@code lastPurchaseAfter} ({@code yyyy-MM-dd}, UTC); every bound is optional.
+     */
+    @GetMapping("/spend-range")
+    public ResponseEntity<SpendRankingResponse> spendRange(@RequestParam(required = false) Double min,
+                                                           @RequestParam(required = false) Double max,
+                                                           @RequestParam(required = false) String lastPurchaseAfter,
+                                                           @RequestParam(required = false) Integer limit) {
+        if (min != null && max != null && min > max) {
+            throw new InvalidRangeException("min", "min must not be greater than max");
+        }
+        LocalDate after = parseDay("lastPurchaseAfter", lastPurchaseAfter);
+        return toRankingResponse(service.getSpendRange(min, max, after, pageSize(limit)));
+    }
+
+    /**
+     * Exact customer count and total spend per tier, from the incrementally maintained summary rows.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<TierSummaryResponse> summary() {
+        return ResponseEntity.ok(service.getTierSummary());
+    }
+
+    /**
+     * A conditional GET whose {@code If-None-Match} still matches is answered with 304 from the customer's version
+     * and tier alone, without mapping or serializing the customer. With the encoded-response cache enabled, the body
+     * is written as ready-made JSON (or gzip) bytes instead of going through Jackson.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerResponse> getById(@PathVariable UUID id) {
+    public ResponseEntity<?> getById(@PathVariable UUID id,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (ifNoneMatch != null) {
+            String eTag = ETags.matchingEncoding(ifNoneMatch, service.getCustomerETag(id), true);
+            if (eTag != null) {
+                return ResponseEntity.status(304).eTag(eTag).build();
+            }
+        }
+        if (service.isEncodedResponseCacheEnabled()) {
+            EncodedResponseCache.Entry encoded = service.getEncodedCustomer(id);
+            return encoded != null ? toEncodedResponse(encoded, acceptsGzip(acceptEncoding)) : ResponseEntity.notFound().build();
+        }
         CustomerResponse customer = service.getCustomerById(id);
-        return customer != null ? ResponseEntity.ok(customer) : ResponseEntity.notFound().build();
+        return customer != null ? withETag(customer) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Customers with {@code minSpend <= annualSpend <= maxSpend} who last purchased after {@code lastPurchaseAfter}
+     * and before {@code lastPurchaseBefore} (UTC days, both exclusive), ordered by annual spend and paged like the
+     * other lookups. Every bound but {@code minSpend} is optional.
+     */
+    @GetMapping(params = "minSpend")
+    public ResponseEntity<List<CustomerResponse>> getBySpend(@RequestParam Double minSpend,
+                                                            @RequestParam(required = false) Double maxSpend,
+                                                            @RequestParam(required = false) String lastPurchaseAfter,
+                                                            @RequestParam(required = false) String lastPurchaseBefore,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String after) {
+        return getInRange(minSpend, maxSpend, lastPurchaseAfter, lastPurchaseBefore, limit, after);
+    }
+
+    /**
+     * Customers who last purchased after {@code lastPurchaseAfter}, optionally before {@code lastPurchaseBefore} and
+     * with {@code annualSpend <= maxSpend}, ordered by last purchase date.
+     */
+    @GetMapping(params = {"lastPurchaseAfter", "!minSpend"})
+    public ResponseEntity<List<CustomerResponse>> getByLastPurchase(@RequestParam String lastPurchaseAfter,
+                                                                   @RequestParam(required = false) String lastPurchaseBefore,
+                                                                   @RequestParam(required = false) Double maxSpend,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String after) {
+        return getInRange(null, maxSpend, lastPurchaseAfter, lastPurchaseBefore, limit, after);
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<LookupResponse> lookup(@RequestBody List<UUID> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            throw new InvalidIdListException("At most " + MAX_LOOKUP_IDS + " ids can be looked up at once, got " + ids.size());
+        }
+        checkNoNulls(ids);
+        return ResponseEntity.ok(service.lookupCustomers(ids));
     }
 
     @GetMapping(params = "name")
-    public ResponseEntity<List<CustomerResponse>> getByName(@RequestParam(required = false) String name) {
-        return ResponseEntity.ok(service.getCustomerByName(name));
+    public ResponseEntity<List<CustomerResponse>> getByName(@RequestParam(required = false) String name,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after) {
+        return toPageResponse(service.getCustomerByName(name, PageCursor.decode(after), pageSize(limit)));
     }
 
     @GetMapping(params = "email")
-    public ResponseEntity<List<CustomerResponse>> getByEmail(@RequestParam(required = false) String email) {
-        return ResponseEntity.ok(service.getCustomerByEmail(email));
+    public ResponseEntity<List<CustomerResponse>> getByEmail(@RequestParam(required = false) String email,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String after) {
+        return toPageResponse(service.getCustomerByEmail(email, PageCursor.decode(after), pageSize(limit)));
+    }
+
+    @GetMapping(params = "tier")
+    public ResponseEntity<List<CustomerResponse>> getByTier(@RequestParam String tier,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after) {
+        String normalized = Customer.normalizeTier(tier);
+        if (normalized == null) {
+            throw new InvalidTierException("Unknown tier: " + tier + " (expected Silver, Gold or Platinum)");
+        }
+        return toPageResponse(service.getCustomersByTier(normalized, PageCursor.decode(after), pageSize(limit)));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CustomerResponse> update(@PathVariable UUID id, @RequestBody CustomerRequest request) {
-        CustomerResponse updated = service.updateCustomer(id, request);
-        return updated != null ? ResponseEntity.ok(updated) : ResponseEntity.notFound().build();
+    public ResponseEntity<CustomerResponse> update(@PathVariable UUID id, @RequestBody CustomerRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CustomerResponse updated = service.updateCustomer(id, request, ifMatch);
+        return updated != null ? withETag(updated) : ResponseEntity.notFound().build();
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<CustomerResponse> patch(@PathVariable UUID id, @RequestBody CustomerPatchRequest request) {
+        CustomerResponse patched = service.patchCustomer(id, request);
+        return patched != null ? withETag(patched) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Records a purchase for write-behind: 202 once it is buffered, applied to the customer's spend, last purchase
+     * date and tier within about {@code customers.purchases.flush-interval}; 503 while the buffer is full.
+     */
+    @PostMapping("/{id}/purchases")
+    public ResponseEntity<Void> recordPurchase(@PathVariable UUID id, @Valid @RequestBody PurchaseRequest request) {
+        return service.recordPurchase(id, request)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable UUID id) {
-        service.deleteCustomer(id);
+    public ResponseEntity<Void> delete(@PathVariable UUID id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.deleteCustomer(id, ifMatch);
         return ResponseEntity.noContent().build();
     }
+
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResponse> deleteAll(@RequestBody List<UUID> ids) {
+        if (ids.size() > MAX_DELETE_IDS) {
+            throw new InvalidIdListException("At most " + MAX_DELETE_IDS + " ids can be deleted at once, got " + ids.size());
+        }
+        checkNoNulls(ids);
+        return ResponseEntity.ok(service.deleteCustomers(ids));
+    }
+
+    // not ids.contains(null): immutable lists such as List.of throw on a null probe
+    private static void checkNoNulls(List<UUID> ids) {
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidIdListException("ids must not contain null");
+        }
+    }
+
+    private static ResponseEntity<byte[]> toEncodedResponse(EncodedResponseCache.Entry encoded, boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoded.getETag() != null) {
+            response.eTag(gzip ? ETags.gzip(encoded.getETag()) : encoded.getETag());
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? encoded.getGzip() : encoded.getJson());
+    }
+
+    // an explicit gzip entry decides, otherwise "*" does; q=0 refuses the coding
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip")) {
+                return qualityOf(parts) > 0;
+            }
+            if (name.equals("*")) {
+                any = qualityOf(parts) > 0;
+            }
+        }
+        return any != null && any;
+    }
+
+    private static double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static ResponseEntity<CustomerResponse> withETag(CustomerResponse customer) {
+        String eTag = ETags.of(customer.getVersion(), customer.getTier());
+        return eTag != null ? ResponseEntity.ok().eTag(eTag).body(customer) : ResponseEntity.ok(customer);
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private ResponseEntity<List<CustomerResponse>> getInRange(Double minSpend, Double maxSpend, String lastPurchaseAfter,
+                                                              String lastPurchaseBefore, Integer limit, String after) {
+        if (minSpend != null && maxSpend != null && minSpend > maxSpend) {
+            throw new InvalidRangeException("minSpend", "minSpend must not be greater than maxSpend");
+        }
+        LocalDate afterDay = parseDay("lastPurchaseAfter", lastPurchaseAfter);
+        LocalDate beforeDay = parseDay("lastPurchaseBefore", lastPurchaseBefore);
+        if (minSpend == null && afterDay == null) {
+            throw new InvalidRangeException("lastPurchaseAfter", "lastPurchaseAfter is required without minSpend");
+        }
+        Date purchasedFrom = afterDay != null ? startOfDay(afterDay.plusDays(1)) : null;
+        Date purchasedBefore = beforeDay != null ? startOfDay(beforeDay) : null;
+        return toPageResponse(service.getCustomersInRange(minSpend, maxSpend, purchasedFrom, purchasedBefore,
+                RangeCursor.decode(after), pageSize(limit)));
+    }
+
+    private static LocalDate parseDay(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRangeException(field, "Expected a date like 2024-01-31: " + value);
+        }
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    private static ResponseEntity<SpendRankingResponse> toRankingResponse(SpendRankingResponse ranking) {
+        return ranking != null ? ResponseEntity.ok(ranking) : ResponseEntity.status(503).build();
+    }
+
+    // the body stays a plain array; the cursor for the next page travels in a header
+    private static ResponseEntity<List<CustomerResponse>> toPageResponse(CustomerPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
@@ -0,0 +1,34 @@
+package com.pc.customers.controller;
+
+import com.pc.customers.dto.ImportJobStatus;
+import com.pc.customers.importer.CustomerImportService;
+import com.pc.customers.importer.ImportFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/customers/import")
+public class CustomerImportController {
+
+    @Autowired
+    private CustomerImportService importService;
+
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportJobStatus> start(HttpServletRequest request) throws IOException {
+        ImportJobStatus status = importService.startImport(request.getInputStream(),
+                ImportFormat.fromContentType(request.getContentType()));
+        return ResponseEntity.accepted().location(URI.create("/customers/import/" + status.getId())).body(status);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobStatus> status(@PathVariable UUID jobId) {
+        ImportJobStatus status = importService.getStatus(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+}
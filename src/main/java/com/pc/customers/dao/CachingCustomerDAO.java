@@ -0,0 +1,269 @@
+package com.pc.customers.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pc.customers.datasource.ReadRouting;
+import com.pc.customers.model.Customer;
+import com.pc.customers.util.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, TTL-evicted cache of customers by id in front of {@link CustomerDAOJpaImpl}.
+ * <p>
+ * Only reads outside a transaction are served from the cache; transactional callers always get the managed entity
+ * from the database. Cached customers are private snapshots and every hit returns a fresh copy, so callers can't
+ * change what the next reader sees. Writes invalidate the ids they touch immediately and again after commit.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics with {@code cache=customers.by-id}.
+ */
+@Primary
+@Repository
+public class CachingCustomerDAO implements ICustomerDAO, MeterBinder {
+
+    static final String CACHE_NAME = "customers.by-id";
+
+    private final ICustomerDAO delegate;
+    private final Cache<UUID, Customer> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public CachingCustomerDAO(@Qualifier("customerDAOJpaImpl") ICustomerDAO delegate,
+                              @Value("${customers.cache.by-id.maximum-size:10000}") long maximumSize,
+                              @Value("${customers.cache.by-id.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Misses are loaded outside the cache's map. A compute would hold a bin lock (a synchronized block, which pins a
+     * virtual thread to its carrier) for the whole JDBC call. Instead, a load that overlapped any invalidation takes
+     * its own value out again, so a racing write can't leave pre-commit data behind. Customers that don't exist are
+     * not cached, and neither is anything read from a replica, which may not have caught up with the last invalidation.
+     */
+    @Override
+    public Customer findById(UUID id) {
+        if (id == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.findById(id);
+        }
+        Customer cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        long generation = invalidations.get();
+        Customer loaded = delegate.findById(id);
+        if (loaded != null && !ReadRouting.isReplicaRead()) {
+            Customer snapshot = copyOf(loaded);
+            cache.put(id, snapshot);
+            if (invalidations.get() != generation) {
+                cache.asMap().remove(id, snapshot);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Cached customers are served from the cache and only the rest is queried; loaded customers are cached the same
+     * way {@link #findById(UUID)} caches them.
+     */
+    @Override
+    public List<Customer> findAllById(Collection<UUID> ids) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.findAllById(ids);
+        }
+        List<Customer> customers = new ArrayList<>(ids.size());
+        Set<UUID> misses = new LinkedHashSet<>();
+        for (UUID id : ids) {
+            Customer cached = id == null ? null : cache.getIfPresent(id);
+            if (cached != null) {
+                customers.add(copyOf(cached));
+            } else if (id != null) {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return customers;
+        }
+        long generation = invalidations.get();
+        List<Customer> loaded = delegate.findAllById(misses);
+        if (ReadRouting.isReplicaRead()) {
+            customers.addAll(loaded);
+            return customers;
+        }
+        List<Customer> snapshots = new ArrayList<>(loaded.size());
+        for (Customer customer : loaded) {
+            Customer snapshot = copyOf(customer);
+            cache.put(customer.getId(), snapshot);
+            snapshots.add(snapshot);
+        }
+        if (invalidations.get() != generation) {
+            snapshots.forEach(snapshot -> cache.asMap().remove(snapshot.getId(), snapshot));
+        }
+        customers.addAll(loaded);
+        return customers;
+    }
+
+    @Override
+    public List<Customer> findByName(String name, UUID after, int limit) {
+        return delegate.findByName(name, after, limit);
+    }
+
+    @Override
+    public List<Customer> findByEmail(String email, UUID after, int limit) {
+        return delegate.findByEmail(email, after, limit);
+    }
+
+    @Override
+    public List<Customer> findByTier(String tier, UUID after, int limit) {
+        return delegate.findByTier(tier, after, limit);
+    }
+
+    @Override
+    public List<Customer> findBySpendRange(double minSpend, Double maxSpend, Date purchasedFrom, Date purchasedBefore,
+                                           Double afterSpend, UUID afterId, int limit) {
+        return delegate.findBySpendRange(minSpend, maxSpend, purchasedFrom, purchasedBefore, afterSpend, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> findByLastPurchaseRange(Date purchasedFrom, Date purchasedBefore, Double maxSpend,
+                                                  Date afterDate, UUID afterId, int limit) {
+        return delegate.findByLastPurchaseRange(purchasedFrom, purchasedBefore, maxSpend, afterDate, afterId, limit);
+    }
+
+    @Override
+    public List<Object[]> findIdsAndNames(UUID after, int limit) {
+        return delegate.findIdsAndNames(after, limit);
+    }
+
+    @Override
+    public List<Object[]> findAnalyticsRows(UUID after, UUID upTo, int limit) {
+        return delegate.findAnalyticsRows(after, upTo, limit);
+    }
+
+    @Override
+    public List<UUID> findIdsWithStaleTier(Date sixMonthsAgo, Date twelveMonthsAgo, UUID after, int limit) {
+        return delegate.findIdsWithStaleTier(sixMonthsAgo, twelveMonthsAgo, after, limit);
+    }
+
+    @Override
+    public int recomputeTiers(Collection<UUID> ids, Date sixMonthsAgo, Date twelveMonthsAgo) {
+        int updated = delegate.recomputeTiers(ids, sixMonthsAgo, twelveMonthsAgo);
+        ids.forEach(this::invalidate);
+        return updated;
+    }
+
+    @Override
+    public int patch(UUID id, Long expectedVersion, Map<String, Object> values, Date sixMonthsAgo, Date twelveMonthsAgo) {
+        int updated = delegate.patch(id, expectedVersion, values, sixMonthsAgo, twelveMonthsAgo);
+        invalidate(id);
+        return updated;
+    }
+
+    @Override
+    public Long findVersion(UUID id) {
+        return delegate.findVersion(id);
+    }
+
+    @Override
+    public List<Object[]> lockTiersAndSpend(Collection<UUID> ids) {
+        return delegate.lockTiersAndSpend(ids);
+    }
+
+    @Override
+    public long streamAll(int fetchSize, Consumer<Customer> consumer) {
+        return delegate.streamAll(fetchSize, consumer);
+    }
+
+    @Override
+    public Customer save(Customer customer) {
+        Customer saved = delegate.save(customer);
+        invalidate(customer.getId());
+        return saved;
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) {
+        return delegate.saveAll(customers); // new customers only, nothing cached yet
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public List<Object[]> deleteById(UUID id) {
+        List<Object[]> deleted = delegate.deleteById(id);
+        invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public List<Object[]> deleteById(UUID id, Long expectedVersion) {
+        List<Object[]> deleted = delegate.deleteById(id, expectedVersion);
+        invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public List<Object[]> deleteAllById(Collection<UUID> ids) {
+        List<Object[]> deleted = delegate.deleteAllById(ids);
+        ids.forEach(this::invalidate);
+        return deleted;
+    }
+
+    Cache<UUID, Customer> getCache() {
+        return cache;
+    }
+
+    private void invalidate(UUID id) {
+        if (id != null) {
+            evict(id);
+            AfterCommit.run(() -> evict(id));
+        }
+    }
+
+    // bump the generation before removing: a load that put its value after the removal is then sure to see it
+    private void evict(UUID id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer(customer.getId());
+        copy.setName(customer.getName());
+        copy.setEmail(customer.getEmail());
+        copy.setAnnualSpend(customer.getAnnualSpend());
+        copy.setLastPurchaseDate(customer.getLastPurchaseDate() == null ? null : new Date(customer.getLastPurchaseDate().getTime()));
+        copy.setTier(customer.getTier());
+        copy.setVersion(customer.getVersion());
+        return copy;
+    }
+}
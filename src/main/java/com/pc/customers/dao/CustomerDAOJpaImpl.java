@@ -2,16 +2,35 @@ package com.pc.customers.dao;
 
 import com.pc.customers.model.Customer;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 public class CustomerDAOJpaImpl implements ICustomerDAO{
 
+    // keeps IN lists well below driver/database parameter limits
+    static final int IN_CHUNK_SIZE = 500;
+
+    // attributes patch() may set; anything else would be spliced into JPQL
+    static final Set<String> PATCHABLE_FIELDS = Set.of("name", "email", "annualSpend", "lastPurchaseDate");
+
     private final EntityManager entityManager;
 
     @Autowired
@@ -28,27 +47,351 @@ public class CustomerDAOJpaImpl implements ICustomerDAO{
     }
 
     /**
+     * Loads many customers with one {@code IN (...)} query per {@value #IN_CHUNK_SIZE} ids.
+     *
+     * @param ids
+     * @return the customers found, in no particular order
+     */
+    @Override
+    public List<Customer> findAllById(Collection<UUID> ids) {
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Customer> customers = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            List<UUID> chunk = distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size()));
+            TypedQuery<Customer> query = entityManager.createQuery("SELECT c FROM Customer c WHERE c.id IN :ids", Customer.class);
+            query.setParameter("ids", chunk);
+            customers.addAll(query.getResultList());
+        }
+        return customers;
+    }
+
+    /**
+     * Keyset-paged substring search, ordered by id.
+     *
      * @param name
+     * @param after last id of the previous page, or null for the first page
+     * @param limit page size
      * @return
      */
     @Override
-    public List<Customer> findByName(String name) {
-        String jpql = "SELECT c FROM Customer c WHERE LOWER(c.name) LIKE LOWER(:name)";
+    public List<Customer> findByName(String name, UUID after, int limit) {
+        String jpql = "SELECT c FROM Customer c WHERE LOWER(c.name) LIKE LOWER(:name)"
+                + (after != null ? " AND c.id > :after" : "") + " ORDER BY c.id";
         TypedQuery<Customer> query = entityManager.createQuery(jpql, Customer.class);
         query.setParameter("name", "%" + name + "%");
-        return query.getResultList();
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.setMaxResults(limit).getResultList();
     }
 
     /**
+     * Case-insensitive, keyset-paged lookup through the indexed email_normalized column, ordered by id.
+     *
      * @param email
+     * @param after last id of the previous page, or null for the first page
+     * @param limit page size
      * @return
      */
     @Override
-    public List<Customer> findByEmail(String email) {
-        String jpql = "SELECT c FROM Customer c WHERE c.email = :email";
+    public List<Customer> findByEmail(String email, UUID after, int limit) {
+        String jpql = "SELECT c FROM Customer c WHERE c.emailNormalized = :email"
+                + (after != null ? " AND c.id > :after" : "") + " ORDER BY c.id";
         TypedQuery<Customer> query = entityManager.createQuery(jpql, Customer.class);
-        query.setParameter("email", email);
-        return query.getResultList();
+        query.setParameter("email", Customer.normalizeEmail(email));
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Keyset-paged lookup by the stored tier, served by the (tier, id) index.
+     *
+     * @param tier canonical tier name
+     * @param after last id of the previous page, or null for the first page
+     * @param limit page size
+     * @return
+     */
+    @Override
+    public List<Customer> findByTier(String tier, UUID after, int limit) {
+        String jpql = "SELECT c FROM Customer c WHERE c.tier = :tier"
+                + (after != null ? " AND c.id > :after" : "") + " ORDER BY c.id";
+        TypedQuery<Customer> query = entityManager.createQuery(jpql, Customer.class);
+        query.setParameter("tier", tier);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Customers with {@code minSpend <= annualSpend <= maxSpend} whose last purchase is in
+     * {@code [purchasedFrom, purchasedBefore)}, ordered by (annual spend, id). Served by the
+     * (annual_spend, id, last_purchase_date) index: the spend bounds and the cursor delimit an index range scan, and
+     * the date bounds are checked on the index entries before any row is read.
+     *
+     * @param maxSpend upper spend bound, or null for none
+     * @param purchasedFrom inclusive lower date bound, or null for none
+     * @param purchasedBefore exclusive upper date bound, or null for none
+     * @param afterSpend spend of the last row of the previous page, or null for the first page
+     * @param afterId id of the last row of the previous page
+     * @param limit page size
+     */
+    @Override
+    public List<Customer> findBySpendRange(double minSpend, Double maxSpend, Date purchasedFrom, Date purchasedBefore,
+                                           Double afterSpend, UUID afterId, int limit) {
+        StringBuilder where = new StringBuilder("c.annualSpend >= :minSpend");
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("minSpend", minSpend);
+        if (maxSpend != null) {
+            where.append(" AND c.annualSpend <= :maxSpend");
+            parameters.put("maxSpend", maxSpend);
+        }
+        appendDateBounds(where, parameters, purchasedFrom, purchasedBefore);
+        return findInRange("c.annualSpend", where, parameters, afterSpend, afterId, limit);
+    }
+
+    /**
+     * Customers whose last purchase is in {@code [purchasedFrom, purchasedBefore)} and whose annual spend is at most
+     * {@code maxSpend}, ordered by (last purchase date, id) and served by the (last_purchase_date, id, annual_spend)
+     * index the same way as {@link #findBySpendRange}.
+     */
+    @Override
+    public List<Customer> findByLastPurchaseRange(Date purchasedFrom, Date purchasedBefore, Double maxSpend,
+                                                  Date afterDate, UUID afterId, int limit) {
+        StringBuilder where = new StringBuilder("c.lastPurchaseDate IS NOT NULL");
+        Map<String, Object> parameters = new HashMap<>();
+        appendDateBounds(where, parameters, purchasedFrom, purchasedBefore);
+        if (maxSpend != null) {
+            where.append(" AND c.annualSpend <= :maxSpend");
+            parameters.put("maxSpend", maxSpend);
+        }
+        return findInRange("c.lastPurchaseDate", where, parameters, afterDate, afterId, limit);
+    }
+
+    private static void appendDateBounds(StringBuilder where, Map<String, Object> parameters,
+                                         Date purchasedFrom, Date purchasedBefore) {
+        if (purchasedFrom != null) {
+            where.append(" AND c.lastPurchaseDate >= :purchasedFrom");
+            parameters.put("purchasedFrom", purchasedFrom);
+        }
+        if (purchasedBefore != null) {
+            where.append(" AND c.lastPurchaseDate < :purchasedBefore");
+            parameters.put("purchasedBefore", purchasedBefore);
+        }
+    }
+
+    // (value, id) > (afterValue, afterId), spelled so the leading >= also bounds the index scan
+    private List<Customer> findInRange(String orderBy, StringBuilder where, Map<String, Object> parameters,
+                                       Object afterValue, UUID afterId, int limit) {
+        if (afterValue != null) {
+            where.append(" AND ").append(orderBy).append(" >= :afterValue AND (")
+                    .append(orderBy).append(" > :afterValue OR c.id > :afterId)");
+            parameters.put("afterValue", afterValue);
+            parameters.put("afterId", afterId);
+        }
+        TypedQuery<Customer> query = entityManager.createQuery(
+                "SELECT c FROM Customer c WHERE " + where + " ORDER BY " + orderBy + ", c.id", Customer.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Keyset-paged (id, name) pairs ordered by id, used to build in-memory indexes without loading entities.
+     *
+     * @param after last id of the previous page, or null for the first page
+     * @param limit page size
+     * @return rows of {@code [UUID id, String name]}
+     */
+    @Override
+    public List<Object[]> findIdsAndNames(UUID after, int limit) {
+        TypedQuery<Object[]> query = after == null
+                ? entityManager.createQuery("SELECT c.id, c.name FROM Customer c ORDER BY c.id", Object[].class)
+                : entityManager.createQuery("SELECT c.id, c.name FROM Customer c WHERE c.id > :after ORDER BY c.id", Object[].class)
+                        .setParameter("after", after);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Rows of {@code (id, annualSpend, email, lastPurchaseDate)} with {@code after < id <= upTo}, in id order, for
+     * rebuilding the analytics sketches; a null bound is left open. Disjoint id ranges can be read in parallel.
+     */
+    @Override
+    public List<Object[]> findAnalyticsRows(UUID after, UUID upTo, int limit) {
+        List<String> bounds = new ArrayList<>(2);
+        if (after != null) {
+            bounds.add("c.id > :after");
+        }
+        if (upTo != null) {
+            bounds.add("c.id <= :upTo");
+        }
+        String jpql = "SELECT c.id, c.annualSpend, c.email, c.lastPurchaseDate FROM Customer c"
+                + (bounds.isEmpty() ? "" : " WHERE " + String.join(" AND ", bounds)) + " ORDER BY c.id";
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        if (upTo != null) {
+            query.setParameter("upTo", upTo);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Ids of customers whose stored tier is missing or has lapsed because its purchase window moved past
+     * {@code lastPurchaseDate}. Both conditions are range scans on the (tier, last_purchase_date) index.
+     *
+     * @param after last id of the previous chunk, or null for the first chunk
+     * @param limit chunk size
+     * @return ids in id order
+     */
+    @Override
+    public List<UUID> findIdsWithStaleTier(Date sixMonthsAgo, Date twelveMonthsAgo, UUID after, int limit) {
+        String jpql = "SELECT c.id FROM Customer c WHERE (c.tier IS NULL"
+                + " OR (c.tier = '" + Customer.TIER_GOLD + "' AND c.lastPurchaseDate <= :twelveMonthsAgo)"
+                + " OR (c.tier = '" + Customer.TIER_PLATINUM + "' AND c.lastPurchaseDate <= :sixMonthsAgo))"
+                + (after != null ? " AND c.id > :after" : "") + " ORDER BY c.id";
+        TypedQuery<UUID> query = entityManager.createQuery(jpql, UUID.class);
+        query.setParameter("sixMonthsAgo", sixMonthsAgo);
+        query.setParameter("twelveMonthsAgo", twelveMonthsAgo);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Recomputes the stored tier of the given customers with one bulk update per {@value #IN_CHUNK_SIZE} ids.
+     * The tier is derived from the row's current values inside the UPDATE itself, so a concurrent write to the
+     * same customer can't be overwritten with a tier computed from stale data. Mirrors CustomerService's tier
+     * rules for the given cutoffs.
+     *
+     * @return number of rows updated
+     */
+    @Override
+    public int recomputeTiers(Collection<UUID> ids, Date sixMonthsAgo, Date twelveMonthsAgo) {
+        String jpql = "UPDATE Customer c SET c.tier = " + tierCase("c.annualSpend", "c.lastPurchaseDate")
+                + " WHERE c.id IN :ids";
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        int updated = 0;
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            updated += entityManager.createQuery(jpql)
+                    .setParameter("sixMonthsAgo", sixMonthsAgo)
+                    .setParameter("twelveMonthsAgo", twelveMonthsAgo)
+                    .setParameter("ids", distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size())))
+                    .executeUpdate();
+        }
+        return updated;
+    }
+
+    /**
+     * Updates the given fields of one customer with a single UPDATE by primary key, without loading it first. Only
+     * the supplied columns are written, plus the version and the tier, which is derived inside the statement from
+     * the new values and the columns left unchanged.
+     *
+     * @param values new values by entity attribute name, see {@link #PATCHABLE_FIELDS}
+     * @param expectedVersion when not null, the row is only updated if its version still matches
+     * @return 1 if the row was updated, 0 if it doesn't exist or its version didn't match
+     */
+    @Override
+    public int patch(UUID id, Long expectedVersion, Map<String, Object> values, Date sixMonthsAgo, Date twelveMonthsAgo) {
+        StringBuilder jpql = new StringBuilder("UPDATE Customer c SET c.version = c.version + 1");
+        for (String field : values.keySet()) {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Not a patchable field: " + field);
+            }
+            jpql.append(", c.").append(field).append(" = :").append(field);
+        }
+        if (values.containsKey("email")) {
+            jpql.append(", c.emailNormalized = :emailNormalized");
+        }
+        jpql.append(", c.tier = ").append(tierCase(
+                values.containsKey("annualSpend") ? ":annualSpend" : "c.annualSpend",
+                values.containsKey("lastPurchaseDate") ? ":lastPurchaseDate" : "c.lastPurchaseDate"));
+        jpql.append(" WHERE c.id = :id");
+        if (expectedVersion != null) {
+            jpql.append(" AND c.version = :version");
+        }
+
+        Query query = entityManager.createQuery(jpql.toString());
+        values.forEach(query::setParameter);
+        if (values.containsKey("email")) {
+            query.setParameter("emailNormalized", Customer.normalizeEmail((String) values.get("email")));
+        }
+        query.setParameter("sixMonthsAgo", sixMonthsAgo);
+        query.setParameter("twelveMonthsAgo", twelveMonthsAgo);
+        query.setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * @return the current version of the customer, or null if it doesn't exist
+     */
+    @Override
+    public Long findVersion(UUID id) {
+        List<Long> versions = entityManager.createQuery("SELECT c.version FROM Customer c WHERE c.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    /**
+     * Reads the stored values the tier summary and the analytics sketches are kept from, and locks the rows until
+     * the transaction ends, so the values can't change before the caller's own update of the same rows.
+     *
+     * @return rows of {@code [UUID id, String tier, Double annualSpend, String email, Date lastPurchaseDate]} for the
+     * customers that exist
+     */
+    @Override
+    public List<Object[]> lockTiersAndSpend(Collection<UUID> ids) {
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Object[]> rows = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            rows.addAll(entityManager.createQuery("SELECT c.id, c.tier, c.annualSpend, c.email, c.lastPurchaseDate"
+                            + " FROM Customer c WHERE c.id IN :ids", Object[].class)
+                    .setParameter("ids", distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size())))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList());
+        }
+        return rows;
+    }
+
+    // JPQL CASE mirroring TierEvaluator for the :sixMonthsAgo and :twelveMonthsAgo cutoffs
+    private static String tierCase(String spend, String lastPurchaseDate) {
+        return "CASE"
+                + " WHEN " + spend + " IS NULL OR " + spend + " < 1000 THEN '" + Customer.TIER_SILVER + "'"
+                + " WHEN " + spend + " < 10000 AND " + lastPurchaseDate + " > :twelveMonthsAgo THEN '" + Customer.TIER_GOLD + "'"
+                + " WHEN " + spend + " >= 10000 AND " + lastPurchaseDate + " > :sixMonthsAgo THEN '" + Customer.TIER_PLATINUM + "'"
+                + " ELSE '" + Customer.TIER_SILVER + "' END";
+    }
+
+    /**
+     * Feeds every customer to {@code consumer} through a forward-only JDBC cursor, in id order. Entities are loaded
+     * read-only and the persistence context is cleared every {@code fetchSize} rows, so memory use does not grow
+     * with the table. Must run inside a transaction that stays open for the whole scan.
+     *
+     * @return number of customers streamed
+     */
+    @Override
+    public long streamAll(int fetchSize, Consumer<Customer> consumer) {
+        long count = 0;
+        try (ScrollableResults<Customer> results = entityManager.unwrap(Session.class)
+                .createQuery("SELECT c FROM Customer c ORDER BY c.id", Customer.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+                if (++count % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
     }
 
     /**
@@ -60,13 +403,78 @@ public class CustomerDAOJpaImpl implements ICustomerDAO{
     }
 
     /**
+     * Writes pending changes now instead of at commit, so the version of a saved customer is current.
+     */
+    @Override
+    public void flush() {
+        entityManager.flush();
+    }
+
+    /**
+     * Persists new customers in the caller's transaction. Ids come from the in-JVM UUID generator, so
+     * the inserts are grouped into JDBC batches (hibernate.jdbc.batch_size) instead of one round trip each.
+     * The persistence context is flushed and cleared afterwards so large chunks don't pile up in memory.
+     *
+     * @param customers new (transient) customers
+     * @return the same customers with their generated ids
+     */
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) {
+        for (Customer customer : customers) {
+            entityManager.persist(customer);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return customers;
+    }
+
+    /**
+     * Deletes with a single statement, without loading the customer first. The statement also returns the deleted
+     * row's stored values, so the tier summary and the analytics need no locking read before it.
+     *
      * @param id
+     * @return the deleted row, if any, as {@link #lockTiersAndSpend} reads it
+     */
+    @Override
+    public List<Object[]> deleteById(UUID id) {
+        return deleteReturning("id = :id", Map.of("id", id));
+    }
+
+    /**
+     * Deletes the customer only if it is still at {@code expectedVersion}, in the same single statement.
+     *
+     * @return the deleted row as for {@link #deleteById(UUID)}; none if the customer doesn't exist or has moved on
+     * to another version
+     */
+    @Override
+    public List<Object[]> deleteById(UUID id, Long expectedVersion) {
+        return deleteReturning("id = :id AND version = :version", Map.of("id", id, "version", expectedVersion));
+    }
+
+    /**
+     * Deletes many customers in the caller's transaction with one {@code DELETE ... IN (...)} per
+     * {@value #IN_CHUNK_SIZE} ids.
+     *
+     * @return the deleted rows as for {@link #deleteById(UUID)}
      */
     @Override
-    public void deleteById(UUID id) {
-        Customer customer = entityManager.find(Customer.class, id);
-        if (customer != null) {
-            entityManager.remove(customer);
+    public List<Object[]> deleteAllById(Collection<UUID> ids) {
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Object[]> deleted = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            deleted.addAll(deleteReturning("id IN (:ids)",
+                    Map.of("ids", distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size())))));
         }
+        return deleted;
+    }
+
+    // H2's data change delta table: the rows as they were when the DELETE removed them, read by the same statement
+    @SuppressWarnings("unchecked")
+    private List<Object[]> deleteReturning(String where, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT id, tier, annual_spend, email, last_purchase_date FROM OLD TABLE (DELETE FROM customers WHERE "
+                        + where + ")", Customer.STORED_VALUES);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
     }
 }
@@ -0,0 +1,44 @@
+package com.pc.customers.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills derived columns for rows written before those columns existed. ddl-auto=update adds new
+ * columns as NULL, so existing data has to be brought in line once at startup.
+ */
+@Component
+public class CustomerSchemaBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSchemaBackfill.class);
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public CustomerSchemaBackfill(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int emails = entityManager.createNativeQuery(
+                "UPDATE customers SET email_normalized = LOWER(TRIM(email)) "
+                        + "WHERE email IS NOT NULL AND email_normalized IS NULL")
+                .executeUpdate();
+        if (emails > 0) {
+            logger.info("Backfilled email_normalized for {} customers", emails);
+        }
+        int versions = entityManager.createNativeQuery("UPDATE customers SET version = 0 WHERE version IS NULL")
+                .executeUpdate();
+        if (versions > 0) {
+            logger.info("Backfilled version for {} customers", versions);
+        }
+    }
+}
@@ -2,14 +2,36 @@ package com.pc.customers.dao;
 
 import com.pc.customers.model.Customer;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ICustomerDAO {
 
     Customer findById(UUID id);
-    List<Customer> findByName(String name);
-    List<Customer> findByEmail(String email);
+    List<Customer> findAllById(Collection<UUID> ids);
+    List<Customer> findByName(String name, UUID after, int limit);
+    List<Customer> findByEmail(String email, UUID after, int limit);
+    List<Customer> findByTier(String tier, UUID after, int limit);
+    List<Customer> findBySpendRange(double minSpend, Double maxSpend, Date purchasedFrom, Date purchasedBefore,
+                                    Double afterSpend, UUID afterId, int limit);
+    List<Customer> findByLastPurchaseRange(Date purchasedFrom, Date purchasedBefore, Double maxSpend,
+                                           Date afterDate, UUID afterId, int limit);
+    List<Object[]> findIdsAndNames(UUID after, int limit);
+    List<Object[]> findAnalyticsRows(UUID after, UUID upTo, int limit);
+    List<UUID> findIdsWithStaleTier(Date sixMonthsAgo, Date twelveMonthsAgo, UUID after, int limit);
+    int recomputeTiers(Collection<UUID> ids, Date sixMonthsAgo, Date twelveMonthsAgo);
+    int patch(UUID id, Long expectedVersion, Map<String, Object> values, Date sixMonthsAgo, Date twelveMonthsAgo);
+    Long findVersion(UUID id);
+    List<Object[]> lockTiersAndSpend(Collection<UUID> ids);
+    long streamAll(int fetchSize, Consumer<Customer> consumer);
     Customer save(Customer customer);
-    void deleteById(UUID id);
+    List<Customer> saveAll(List<Customer> customers);
+    void flush();
+    List<Object[]> deleteById(UUID id);
+    List<Object[]> deleteById(UUID id, Long expectedVersion);
+    List<Object[]> deleteAllById(Collection<UUID> ids);
 }
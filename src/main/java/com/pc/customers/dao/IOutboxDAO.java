@@ -0,0 +1,13 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.model.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IOutboxDAO {
+
+    void save(OutboxEvent event);
+    List<OutboxEvent> findOldest(int limit);
+    int deleteAllById(Collection<Long> ids);
+}
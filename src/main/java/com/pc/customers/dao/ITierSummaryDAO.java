@@ -0,0 +1,13 @@
+package com.pc.customers.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ITierSummaryDAO {
+
+    int add(String tier, int slot, long customers, BigDecimal spend);
+    List<Object[]> findTotals();
+    List<Object[]> findSlots();
+    void insert(String tier, int slot, long customers, BigDecimal spend);
+    List<Object[]> summarizeCustomers();
+}
@@ -0,0 +1,46 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.model.OutboxEvent;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class OutboxDAOJpaImpl implements IOutboxDAO {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public OutboxDAOJpaImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void save(OutboxEvent event) {
+        entityManager.persist(event);
+    }
+
+    /**
+     * @return up to {@code limit} events in id order; an event from a transaction that commits late can still show up
+     * after events with higher ids have been relayed
+     */
+    @Override
+    public List<OutboxEvent> findOldest(int limit) {
+        return entityManager.createQuery("SELECT e FROM OutboxEvent e ORDER BY e.id", OutboxEvent.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
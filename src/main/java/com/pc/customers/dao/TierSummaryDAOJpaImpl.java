@@ -0,0 +1,71 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.model.TierSummary;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public class TierSummaryDAOJpaImpl implements ITierSummaryDAO {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public TierSummaryDAOJpaImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds to one slot's totals with a single UPDATE, so the addition happens in the database under the row lock
+     * and concurrent writers can't overwrite each other's counts.
+     *
+     * @return 1, or 0 if the slot's row doesn't exist
+     */
+    @Override
+    public int add(String tier, int slot, long customers, BigDecimal spend) {
+        return entityManager.createQuery("UPDATE TierSummary s SET s.customers = s.customers + :customers,"
+                        + " s.totalSpend = s.totalSpend + :spend WHERE s.tier = :tier AND s.slot = :slot")
+                .setParameter("customers", customers)
+                .setParameter("spend", spend)
+                .setParameter("tier", tier)
+                .setParameter("slot", slot)
+                .executeUpdate();
+    }
+
+    /**
+     * @return rows of {@code [String tier, Long customers, BigDecimal totalSpend]}, the sum over each tier's slots
+     */
+    @Override
+    public List<Object[]> findTotals() {
+        return entityManager.createQuery("SELECT s.tier, SUM(s.customers), SUM(s.totalSpend) FROM TierSummary s"
+                + " GROUP BY s.tier", Object[].class).getResultList();
+    }
+
+    /**
+     * @return rows of {@code [String tier, Integer slot]} for every slot that exists
+     */
+    @Override
+    public List<Object[]> findSlots() {
+        return entityManager.createQuery("SELECT s.tier, s.slot FROM TierSummary s", Object[].class).getResultList();
+    }
+
+    @Override
+    public void insert(String tier, int slot, long customers, BigDecimal spend) {
+        entityManager.persist(new TierSummary(tier, slot, customers, spend));
+    }
+
+    /**
+     * Counts {@code customers} by stored tier and annual spend with one full scan; only used to fill an empty summary.
+     * Spends are returned rather than summed as doubles, so the caller can add them up the way writes do.
+     *
+     * @return rows of {@code [String tier, Double annualSpend, Long customers]}, without customers that have no tier yet
+     */
+    @Override
+    public List<Object[]> summarizeCustomers() {
+        return entityManager.createQuery("SELECT c.tier, c.annualSpend, COUNT(c) FROM Customer c"
+                + " WHERE c.tier IS NOT NULL GROUP BY c.tier, c.annualSpend", Object[].class).getResultList();
+    }
+}
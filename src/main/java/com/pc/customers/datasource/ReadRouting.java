@@ -0,0 +1,50 @@
+package com.pc.customers.datasource;
+
+/**
+ * Per-thread routing state read by {@link ReplicaRoutingDataSource} when a connection is taken.
+ * <p>
+ * A thread reads from a replica only while it runs a {@link ReplicaRead} method and hasn't been pinned to the primary
+ * by {@link ReadYourWritesFilter}. Caches consult {@link #isReplicaRead()} as well: a replica can lag behind the
+ * invalidation that preceded its read, so what it returns mustn't be cached.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isReplicaRead() {
+        return REPLICA.get() != null;
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    /**
+     * Allows replica reads on this thread until {@link #exitReplica()}.
+     *
+     * @return false if nothing changed, because the thread is pinned to the primary or already on a replica
+     */
+    static boolean enterReplica() {
+        if (isPinnedToPrimary() || isReplicaRead()) {
+            return false;
+        }
+        REPLICA.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void exitReplica() {
+        REPLICA.remove();
+    }
+
+    static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
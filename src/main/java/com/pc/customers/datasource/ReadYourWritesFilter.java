@@ -0,0 +1,89 @@
+package com.pc.customers.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Read-your-writes across requests without server-side sessions: every write request (anything but GET, HEAD and
+ * OPTIONS) sets a cookie holding the time of the write, and requests carrying a cookie younger than
+ * {@code customers.datasource.replicas.read-your-writes} read only from the primary. The window should exceed the
+ * replicas' usual lag.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.datasource.replicas.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "customers-last-write";
+
+    private final Duration window;
+    private final Clock clock;
+
+    @Autowired
+    public ReadYourWritesFilter(@Value("${customers.datasource.replicas.read-your-writes:5s}") Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = clock.millis();
+        boolean write = !isRead(request.getMethod());
+        if (write) {
+            // set before the chain runs; the response may be committed by the time it returns
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (window.toMillis() + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        long sinceWrite = now - lastWrite(request);
+        if (write || (sinceWrite >= 0 && sinceWrite < window.toMillis())) {
+            ReadRouting.pinToPrimary();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ReadRouting.unpin();
+            }
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pc.customers.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code customers.datasource.replicas.enabled}, replaces the auto-configured DataSource with a
+ * {@link ReplicaRoutingDataSource}: the primary pool is still built from {@code spring.datasource.*} (and
+ * {@code spring.datasource.hikari.*}), and each of {@code customers.datasource.replicas.urls} gets its own read-only
+ * pool, sized independently of the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customers.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               @Value("${customers.datasource.replicas.urls}") String[] urls,
+                                               @Value("${customers.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                               @Value("${customers.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                               @Value("${customers.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${customers.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + replicas.size());
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            // short, so a replica that is down or saturated hands the read to the next one quickly
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+}
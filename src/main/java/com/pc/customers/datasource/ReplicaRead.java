@@ -0,0 +1,18 @@
+package com.pc.customers.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service method whose queries may run on a read replica when replicas are enabled
+ * ({@code customers.datasource.replicas.enabled}). Only applies outside a transaction and for clients that haven't
+ * written recently; everything else reads from the primary.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
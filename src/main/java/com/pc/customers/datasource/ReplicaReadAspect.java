@@ -0,0 +1,30 @@
+package com.pc.customers.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the queries of {@link ReplicaRead} methods to a replica. A method called inside a transaction keeps using
+ * the transaction's connection, which is always on the primary.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "customers.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.pc.customers.datasource.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || !ReadRouting.enterReplica()) {
+            return joinPoint.proceed();
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadRouting.exitReplica();
+        }
+    }
+}
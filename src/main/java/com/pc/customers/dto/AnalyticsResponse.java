@@ -0,0 +1,72 @@
+package com.pc.customers.dto;
+
+import java.util.Map;
+
+/**
+ * Approximate figures over all customers; see {@code GET /customers/analytics}.
+ */
+public class AnalyticsResponse {
+
+    private long customers;
+    private Map<String, Double> spendQuantiles;
+    private double spendRelativeAccuracy;
+    private long distinctEmailDomains;
+    private double distinctEmailDomainsStandardError;
+    private Map<String, Long> lastPurchaseByMonth;
+
+    public long getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(long customers) {
+        this.customers = customers;
+    }
+
+    /**
+     * @return annual spend by quantile ({@code p50}, {@code p90}, ...), each within {@link #getSpendRelativeAccuracy()}
+     * of the exact value
+     */
+    public Map<String, Double> getSpendQuantiles() {
+        return spendQuantiles;
+    }
+
+    public void setSpendQuantiles(Map<String, Double> spendQuantiles) {
+        this.spendQuantiles = spendQuantiles;
+    }
+
+    public double getSpendRelativeAccuracy() {
+        return spendRelativeAccuracy;
+    }
+
+    public void setSpendRelativeAccuracy(double spendRelativeAccuracy) {
+        this.spendRelativeAccuracy = spendRelativeAccuracy;
+    }
+
+    public long getDistinctEmailDomains() {
+        return distinctEmailDomains;
+    }
+
+    public void setDistinctEmailDomains(long distinctEmailDomains) {
+        this.distinctEmailDomains = distinctEmailDomains;
+    }
+
+    public double getDistinctEmailDomainsStandardError() {
+        return distinctEmailDomainsStandardError;
+    }
+
+    public void setDistinctEmailDomainsStandardError(double distinctEmailDomainsStandardError) {
+        this.distinctEmailDomainsStandardError = distinctEmailDomainsStandardError;
+    }
+
+    /**
+     * @return customers by the month of their last purchase ({@code yyyy-MM}, UTC), oldest first; months without
+     * customers are left out
+     */
+    public Map<String, Long> getLastPurchaseByMonth() {
+        return lastPurchaseByMonth;
+    }
+
+    public void setLastPurchaseByMonth(Map<String, Long> lastPurchaseByMonth) {
+        this.lastPurchaseByMonth = lastPurchaseByMonth;
+    }
+}
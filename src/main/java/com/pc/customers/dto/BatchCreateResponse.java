@@ -0,0 +1,34 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+
+public class BatchCreateResponse {
+
+    private int created;
+    private int failed;
+    private List<BatchItemResult> results;
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
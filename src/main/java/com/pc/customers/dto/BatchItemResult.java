@@ -0,0 +1,55 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class BatchItemResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private String status;
+    private CustomerResponse customer;
+    private List<Map<String, String>> errors;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, String status) {
+        this.index = index;
+        this.status = status;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public CustomerResponse getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(CustomerResponse customer) {
+        this.customer = customer;
+    }
+
+    public List<Map<String, String>> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<Map<String, String>> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pc.customers.dto;
+
+public class BulkDeleteResponse {
+
+    private int requested;
+    private int deleted;
+
+    public BulkDeleteResponse() {
+    }
+
+    public BulkDeleteResponse(int requested, int deleted) {
+        this.requested = requested;
+        this.deleted = deleted;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,34 @@
+package com.pc.customers.dto;
+
+/**
+ * A change log consumer's position: the next offset it wants.
+ */
+public class ConsumerOffset {
+
+    private String consumer;
+    private Long offset;
+
+    public ConsumerOffset() {
+    }
+
+    public ConsumerOffset(String consumer, Long offset) {
+        this.consumer = consumer;
+        this.offset = offset;
+    }
+
+    public String getConsumer() {
+        return consumer;
+    }
+
+    public void setConsumer(String consumer) {
+        this.consumer = consumer;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+}
@@ -0,0 +1,36 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+
+public class CustomerPage {
+
+    private List<CustomerResponse> items;
+    private String nextCursor;
+
+    public CustomerPage() {
+    }
+
+    public CustomerPage(List<CustomerResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CustomerResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CustomerResponse> items) {
+        this.items = items;
+    }
+
+    /**
+     * @return cursor for the following page, or null when this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
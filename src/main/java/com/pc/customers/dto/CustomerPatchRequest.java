@@ -0,0 +1,70 @@
+package com.pc.customers.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Body of a partial update. Only the properties present in the JSON are changed; a property sent as {@code null}
+ * clears the field. {@code version}, when given, is the version the client last read and makes the update fail
+ * with 409 if the customer has changed since.
+ */
+public class CustomerPatchRequest {
+
+    public static final String NAME = "name";
+    public static final String EMAIL = "email";
+    public static final String ANNUAL_SPEND = "annualSpend";
+    public static final String LAST_PURCHASE_DATE = "lastPurchaseDate";
+
+    // supplied fields by entity attribute name, in request order
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private Long version;
+
+    public String getName() {
+        return (String) fields.get(NAME);
+    }
+
+    public void setName(String name) {
+        fields.put(NAME, name);
+    }
+
+    public String getEmail() {
+        return (String) fields.get(EMAIL);
+    }
+
+    public void setEmail(String email) {
+        fields.put(EMAIL, email);
+    }
+
+    public Double getAnnualSpend() {
+        return (Double) fields.get(ANNUAL_SPEND);
+    }
+
+    public void setAnnualSpend(Double annualSpend) {
+        fields.put(ANNUAL_SPEND, annualSpend);
+    }
+
+    public Date getLastPurchaseDate() {
+        return (Date) fields.get(LAST_PURCHASE_DATE);
+    }
+
+    public void setLastPurchaseDate(Date lastPurchaseDate) {
+        fields.put(LAST_PURCHASE_DATE, lastPurchaseDate);
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @JsonIgnore
+    public Map<String, Object> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+}
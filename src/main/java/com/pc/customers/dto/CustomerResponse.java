@@ -10,6 +10,7 @@ public class CustomerResponse {
     private Double annualSpend;
     private Date lastPurchaseDate;
     private String tier;
+    private Long version;
 
     public UUID getId() {
         return id;
@@ -58,4 +59,12 @@ public class CustomerResponse {
     public void setTier(String tier) {
         this.tier = tier;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
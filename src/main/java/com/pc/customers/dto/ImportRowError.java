@@ -0,0 +1,34 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ImportRowError {
+
+    private long line;
+    private List<Map<String, String>> errors;
+
+    public ImportRowError() {
+    }
+
+    public ImportRowError(long line, List<Map<String, String>> errors) {
+        this.line = line;
+        this.errors = errors;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public List<Map<String, String>> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<Map<String, String>> errors) {
+        this.errors = errors;
+    }
+}
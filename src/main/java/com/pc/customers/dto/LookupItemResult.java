@@ -0,0 +1,45 @@
+package com.pc.customers.dto;
+
+import java.util.UUID;
+
+public class LookupItemResult {
+
+    public static final String FOUND = "FOUND";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private UUID id;
+    private String status;
+    private CustomerResponse customer;
+
+    public LookupItemResult() {
+    }
+
+    public LookupItemResult(UUID id, String status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public CustomerResponse getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(CustomerResponse customer) {
+        this.customer = customer;
+    }
+}
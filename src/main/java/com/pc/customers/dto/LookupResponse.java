@@ -0,0 +1,34 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+
+public class LookupResponse {
+
+    private int found;
+    private int notFound;
+    private List<LookupItemResult> results;
+
+    public int getFound() {
+        return found;
+    }
+
+    public void setFound(int found) {
+        this.found = found;
+    }
+
+    public int getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(int notFound) {
+        this.notFound = notFound;
+    }
+
+    public List<LookupItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<LookupItemResult> results) {
+        this.results = results;
+    }
+}
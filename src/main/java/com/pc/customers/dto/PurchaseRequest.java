@@ -0,0 +1,32 @@
+package com.pc.customers.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.Date;
+
+public class PurchaseRequest {
+
+    @NotNull(message = "Purchase amount is required")
+    @Positive(message = "Purchase amount must be positive")
+    private Double amount;
+
+    // defaults to the time the purchase is recorded
+    private Date purchaseDate;
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    public Date getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public void setPurchaseDate(Date purchaseDate) {
+        this.purchaseDate = purchaseDate;
+    }
+}
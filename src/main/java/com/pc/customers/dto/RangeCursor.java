@@ -0,0 +1,79 @@
+package com.pc.customers.dto;
+
+import com.pc.customers.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Keyset cursor for range queries, handed to clients as {@code after}. Unlike {@link PageCursor} it also carries the
+ * value the page is sorted by (annual spend or last purchase date), so the next page seeks straight to
+ * {@code (value, id)} in the range index.
+ */
+public final class RangeCursor {
+
+    private static final byte BY_SPEND = 'S';
+    private static final byte BY_LAST_PURCHASE = 'D';
+    private static final int LENGTH = 1 + 3 * Long.BYTES;
+
+    private final byte order;
+    private final long key;
+    private final UUID id;
+
+    private RangeCursor(byte order, long key, UUID id) {
+        this.order = order;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static RangeCursor bySpend(double annualSpend, UUID id) {
+        return new RangeCursor(BY_SPEND, Double.doubleToLongBits(annualSpend), id);
+    }
+
+    public static RangeCursor byLastPurchase(Date lastPurchaseDate, UUID id) {
+        return new RangeCursor(BY_LAST_PURCHASE, lastPurchaseDate.getTime(), id);
+    }
+
+    public boolean isBySpend() {
+        return order == BY_SPEND;
+    }
+
+    public double getAnnualSpend() {
+        return Double.longBitsToDouble(key);
+    }
+
+    public Date getLastPurchaseDate() {
+        return new Date(key);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(order)
+                .putLong(key)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static RangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != LENGTH || (bytes[0] != BY_SPEND && bytes[0] != BY_LAST_PURCHASE)) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new RangeCursor(buffer.get(), buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException e) {
+            throw e instanceof InvalidCursorException ? e : new InvalidCursorException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
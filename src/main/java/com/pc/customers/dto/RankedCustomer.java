@@ -0,0 +1,50 @@
+package com.pc.customers.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One customer of a {@link SpendRankingResponse}.
+ */
+public class RankedCustomer {
+
+    private UUID id;
+    private double annualSpend;
+    private LocalDate lastPurchaseDate;
+
+    public RankedCustomer() {
+    }
+
+    public RankedCustomer(UUID id, double annualSpend, LocalDate lastPurchaseDate) {
+        this.id = id;
+        this.annualSpend = annualSpend;
+        this.lastPurchaseDate = lastPurchaseDate;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public double getAnnualSpend() {
+        return annualSpend;
+    }
+
+    public void setAnnualSpend(double annualSpend) {
+        this.annualSpend = annualSpend;
+    }
+
+    /**
+     * @return the UTC day of the last purchase, or null if there was none
+     */
+    public LocalDate getLastPurchaseDate() {
+        return lastPurchaseDate;
+    }
+
+    public void setLastPurchaseDate(LocalDate lastPurchaseDate) {
+        this.lastPurchaseDate = lastPurchaseDate;
+    }
+}
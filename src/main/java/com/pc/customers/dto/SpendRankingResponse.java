@@ -0,0 +1,44 @@
+package com.pc.customers.dto;
+
+import java.util.List;
+
+/**
+ * Customers matching a spend filter, answered from the columnar snapshot; see {@code GET /customers/top-spenders}
+ * and {@code GET /customers/spend-range}.
+ */
+public class SpendRankingResponse {
+
+    private long matches;
+    private double totalSpend;
+    private List<RankedCustomer> customers;
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public void setMatches(long matches) {
+        this.matches = matches;
+    }
+
+    /**
+     * @return annual spend summed over all matches, not only the listed ones
+     */
+    public double getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(double totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    /**
+     * @return the matches with the highest annual spend, highest first
+     */
+    public List<RankedCustomer> getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(List<RankedCustomer> customers) {
+        this.customers = customers;
+    }
+}
@@ -0,0 +1,77 @@
+package com.pc.customers.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Exact number of customers and total annual spend, overall and per stored tier; see {@code GET /customers/summary}.
+ */
+public class TierSummaryResponse {
+
+    private long customers;
+    private BigDecimal totalSpend;
+    private Map<String, TierTotals> tiers;
+
+    public TierSummaryResponse() {
+    }
+
+    public TierSummaryResponse(long customers, BigDecimal totalSpend, Map<String, TierTotals> tiers) {
+        this.customers = customers;
+        this.totalSpend = totalSpend;
+        this.tiers = tiers;
+    }
+
+    public long getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(long customers) {
+        this.customers = customers;
+    }
+
+    public BigDecimal getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(BigDecimal totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    public Map<String, TierTotals> getTiers() {
+        return tiers;
+    }
+
+    public void setTiers(Map<String, TierTotals> tiers) {
+        this.tiers = tiers;
+    }
+
+    public static class TierTotals {
+
+        private long customers;
+        private BigDecimal totalSpend;
+
+        public TierTotals() {
+        }
+
+        public TierTotals(long customers, BigDecimal totalSpend) {
+            this.customers = customers;
+            this.totalSpend = totalSpend;
+        }
+
+        public long getCustomers() {
+            return customers;
+        }
+
+        public void setCustomers(long customers) {
+            this.customers = customers;
+        }
+
+        public BigDecimal getTotalSpend() {
+            return totalSpend;
+        }
+
+        public void setTotalSpend(BigDecimal totalSpend) {
+            this.totalSpend = totalSpend;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pc.customers.exception;
+
+public class InvalidChangeRequestException extends IllegalArgumentException {
+
+    private final String field;
+
+    public InvalidChangeRequestException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
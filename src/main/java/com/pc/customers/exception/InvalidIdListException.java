@@ -0,0 +1,7 @@
+package com.pc.customers.exception;
+
+public class InvalidIdListException extends IllegalArgumentException {
+    public InvalidIdListException(String message) {
+        super(message);
+    }
+}
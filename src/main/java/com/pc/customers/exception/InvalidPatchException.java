@@ -0,0 +1,18 @@
+package com.pc.customers.exception;
+
+import java.util.List;
+import java.util.Map;
+
+public class InvalidPatchException extends IllegalArgumentException {
+
+    private final List<Map<String, String>> errors;
+
+    public InvalidPatchException(List<Map<String, String>> errors) {
+        super("Invalid patch: " + errors);
+        this.errors = errors;
+    }
+
+    public List<Map<String, String>> getErrors() {
+        return errors;
+    }
+}
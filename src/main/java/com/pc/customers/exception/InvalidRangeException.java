@@ -0,0 +1,15 @@
+package com.pc.customers.exception;
+
+public class InvalidRangeException extends IllegalArgumentException {
+
+    private final String field;
+
+    public InvalidRangeException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pc.customers.exception;
+
+public class InvalidTierException extends IllegalArgumentException {
+    public InvalidTierException(String message) {
+        super(message);
+    }
+}
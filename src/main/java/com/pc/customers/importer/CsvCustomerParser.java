@@ -0,0 +1,123 @@
+package com.pc.customers.importer;
+
+import com.pc.customers.dto.CustomerRequest;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps CSV lines to {@link CustomerRequest}s using the column names of the header line
+ * ({@code name,email,annualSpend,lastPurchaseDate}, in any order; snake_case names are accepted too).
+ * Fields may be quoted with {@code "}, doubling quotes inside; quoted fields cannot span lines.
+ * Dates are {@code yyyy-MM-dd} (read as UTC midnight, like the JSON API does) or ISO-8601 timestamps.
+ */
+class CsvCustomerParser {
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    CsvCustomerParser(String headerLine) {
+        List<String> header = split(headerLine);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain a name column");
+        }
+    }
+
+    CustomerRequest parse(String line) {
+        List<String> fields = split(line);
+        CustomerRequest request = new CustomerRequest();
+        request.setName(field(fields, "name"));
+        request.setEmail(field(fields, "email"));
+        String spend = field(fields, "annualspend");
+        if (spend != null) {
+            try {
+                request.setAnnualSpend(Double.valueOf(spend));
+            } catch (NumberFormatException e) {
+                throw new FieldException("annualSpend", "Not a number: " + spend);
+            }
+        }
+        String date = field(fields, "lastpurchasedate");
+        if (date != null) {
+            request.setLastPurchaseDate(parseDate(date));
+        }
+        return request;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new FieldException("", "Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Date parseDate(String value) {
+        try {
+            if (value.length() == 10) {
+                return Date.from(LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            return Date.from(OffsetDateTime.parse(value).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new FieldException("lastPurchaseDate", "Not a date: " + value);
+        }
+    }
+
+    /**
+     * A value that could not be converted, reported against its field like a validation error.
+     */
+    static class FieldException extends IllegalArgumentException {
+
+        private final String field;
+
+        FieldException(String field, String message) {
+            super(message);
+            this.field = field;
+        }
+
+        String getField() {
+            return field;
+        }
+    }
+}
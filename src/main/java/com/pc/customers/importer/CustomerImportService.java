@@ -0,0 +1,150 @@
+package com.pc.customers.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pc.customers.dto.ImportJobStatus;
+import com.pc.customers.exception.CustomerServiceException;
+import com.pc.customers.service.CustomerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs bulk imports in the background. The upload is spooled to a temporary file first, so the HTTP request
+ * finishes as soon as the bytes are on disk and the pipeline can read at disk speed.
+ */
+@Service
+public class CustomerImportService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportService.class);
+
+    static final int MAX_FINISHED_JOBS = 100;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${customers.import.validator-threads:2}")
+    private int validatorThreads = 2;
+
+    @Value("${customers.import.writer-threads:2}")
+    private int writerThreads = 2;
+
+    @Value("${customers.import.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${customers.import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${customers.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<UUID, ImportPipeline> running = new ConcurrentHashMap<>();
+
+    private final ExecutorService coordinators = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "customer-import-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImportJobStatus startImport(InputStream content, ImportFormat format) {
+        Path file;
+        try {
+            file = Files.createTempFile("customer-import-", "." + format.name().toLowerCase());
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Error spooling {} import", format, e);
+            throw new CustomerServiceException("Error reading import upload", e);
+        }
+
+        ImportJob job = new ImportJob(format, maxReportedErrors);
+        pruneFinishedJobs();
+        jobs.put(job.getId(), job);
+        logger.info("Import {} started from {} ({} bytes)", job.getId(), format, file.toFile().length());
+        coordinators.submit(() -> run(job, file));
+        return job.toStatus();
+    }
+
+    public ImportJobStatus getStatus(UUID jobId) {
+        ImportJob job = jobs.get(jobId);
+        return job == null ? null : job.toStatus();
+    }
+
+    void run(ImportJob job, Path file) {
+        ImportPipeline pipeline = new ImportPipeline(job, validator, objectMapper,
+                customerService::toCustomer, customerService::saveBatch,
+                Math.max(1, validatorThreads), Math.max(1, writerThreads), Math.max(1, queueCapacity), Math.max(1, batchSize));
+        running.put(job.getId(), pipeline);
+        try {
+            pipeline.run(file);
+            job.complete();
+            ImportJobStatus status = job.toStatus();
+            logger.info("Import {} finished: {} read, {} imported, {} failed",
+                    job.getId(), status.getRowsRead(), status.getRowsImported(), status.getRowsFailed());
+        } catch (Exception e) {
+            logger.error("Import {} failed", job.getId(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            running.remove(job.getId());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete import file {}", file, e);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customers.import.jobs.active", running, Map::size)
+                .description("Imports currently running")
+                .register(registry);
+        Gauge.builder("customers.import.queue.rows", running, pipelines -> pipelines.values().stream().mapToInt(ImportPipeline::queuedRows).sum())
+                .description("Parsed rows waiting for validation, across running imports")
+                .register(registry);
+        Gauge.builder("customers.import.queue.batches", running, pipelines -> pipelines.values().stream().mapToInt(ImportPipeline::queuedBatches).sum())
+                .description("Validated batches waiting to be written, across running imports")
+                .register(registry);
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() < MAX_FINISHED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted(Comparator.comparing(ImportJob::getFinishedAt))
+                .limit(jobs.size() - MAX_FINISHED_JOBS + 1L)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(ImportJob::abort);
+        coordinators.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package com.pc.customers.importer;
+
+import com.pc.customers.dto.ImportJobStatus;
+import com.pc.customers.dto.ImportRowError;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import, updated concurrently by the pipeline stages and read by status requests.
+ */
+class ImportJob {
+
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    private final UUID id = UUID.randomUUID();
+    private final ImportFormat format;
+    private final int maxReportedErrors;
+    private final Date startedAt = new Date();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final Queue<ImportRowError> errors = new ConcurrentLinkedQueue<>();
+
+    private volatile String status = RUNNING;
+    private volatile Date finishedAt;
+    private volatile String message;
+    private volatile boolean aborted;
+
+    ImportJob(ImportFormat format, int maxReportedErrors) {
+        this.format = format;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    ImportFormat getFormat() {
+        return format;
+    }
+
+    long rowRead() {
+        return rowsRead.incrementAndGet();
+    }
+
+    void imported(long rows) {
+        rowsImported.addAndGet(rows);
+    }
+
+    void failed(long line, List<Map<String, String>> rowErrors) {
+        if (rowsFailed.incrementAndGet() <= maxReportedErrors) {
+            errors.add(new ImportRowError(line, rowErrors));
+        }
+    }
+
+    void failed(long line, String field, String message) {
+        failed(line, List.of(Map.of("field", field, "defaultMessage", message)));
+    }
+
+    /**
+     * Tells every stage to stop; blocked queue operations notice within their poll interval.
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    void complete() {
+        finish(COMPLETED, null);
+    }
+
+    void fail(String reason) {
+        aborted = true;
+        finish(FAILED, reason);
+    }
+
+    private void finish(String status, String message) {
+        this.message = message;
+        this.status = status;
+        this.finishedAt = new Date();
+    }
+
+    ImportJobStatus toStatus() {
+        ImportJobStatus status = new ImportJobStatus();
+        status.setId(id);
+        status.setStatus(this.status);
+        status.setFormat(format.name());
+        status.setRowsRead(rowsRead.get());
+        status.setRowsImported(rowsImported.get());
+        status.setRowsFailed(rowsFailed.get());
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        status.setMessage(message);
+        status.setErrors(new ArrayList<>(errors));
+        return status;
+    }
+}
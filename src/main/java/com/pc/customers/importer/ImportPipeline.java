@@ -0,0 +1,254 @@
+package com.pc.customers.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pc.customers.dto.CustomerRequest;
+import com.pc.customers.model.Customer;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs one import as three concurrent stages connected by bounded queues:
+ * <ol>
+ *     <li>a reader that parses the file line by line into {@link CustomerRequest}s,</li>
+ *     <li>validator threads that apply the Bean Validation constraints and group valid rows into batches,</li>
+ *     <li>writer threads that hand each batch to the batch writer (chunked, JDBC-batched inserts).</li>
+ * </ol>
+ * The bounded queues apply back-pressure, so a fast parser never buffers more than a few batches ahead of the
+ * database. A stage that fails aborts the whole job.
+ */
+class ImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final Row END_OF_ROWS = new Row(-1, null);
+    private static final List<Row> END_OF_BATCHES = List.of();
+    private static final long POLL_MILLIS = 100;
+    private static final long PROGRESS_EVERY = 100_000;
+
+    private final ImportJob job;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final Function<CustomerRequest, Customer> mapper;
+    private final Function<List<Customer>, Map<Integer, String>> batchWriter;
+    private final int validatorThreads;
+    private final int writerThreads;
+    private final int batchSize;
+    private final BlockingQueue<Row> rows;
+    private final BlockingQueue<List<Row>> batches;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ImportPipeline(ImportJob job, Validator validator, ObjectMapper objectMapper,
+                   Function<CustomerRequest, Customer> mapper,
+                   Function<List<Customer>, Map<Integer, String>> batchWriter,
+                   int validatorThreads, int writerThreads, int queueCapacity, int batchSize) {
+        this.job = job;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.mapper = mapper;
+        this.batchWriter = batchWriter;
+        this.validatorThreads = validatorThreads;
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.rows = new ArrayBlockingQueue<>(queueCapacity);
+        this.batches = new ArrayBlockingQueue<>(Math.max(2, writerThreads * 2));
+    }
+
+    int queuedRows() {
+        return rows.size();
+    }
+
+    int queuedBatches() {
+        return batches.size();
+    }
+
+    void run(Path file) throws Exception {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService stages = Executors.newFixedThreadPool(1 + validatorThreads + writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "customer-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> reader = stages.submit(stage(() -> read(file)));
+            List<Future<?>> validators = new ArrayList<>();
+            for (int i = 0; i < validatorThreads; i++) {
+                validators.add(stages.submit(stage(this::validate)));
+            }
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                writers.add(stages.submit(stage(this::write)));
+            }
+
+            await(reader);
+            for (int i = 0; i < validatorThreads; i++) {
+                put(rows, END_OF_ROWS);
+            }
+            for (Future<?> validatorStage : validators) {
+                await(validatorStage);
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                put(batches, END_OF_BATCHES);
+            }
+            for (Future<?> writerStage : writers) {
+                await(writerStage);
+            }
+        } catch (CancellationException e) {
+            throw failure.get() instanceof Exception ? (Exception) failure.get() : e;
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    private void read(Path file) throws Exception {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvCustomerParser csv = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (job.getFormat() == ImportFormat.CSV && csv == null) {
+                    csv = new CsvCustomerParser(line);
+                    continue;
+                }
+                long read = job.rowRead();
+                if (read % PROGRESS_EVERY == 0) {
+                    logger.info("Import {}: {} rows read", job.getId(), read);
+                }
+                try {
+                    CustomerRequest request = csv != null ? csv.parse(line) : objectMapper.readValue(line, CustomerRequest.class);
+                    if (request == null) {
+                        // a literal null line; the validators can't take it, so it fails here like any unreadable row
+                        job.failed(lineNumber, "", "Customer must not be null");
+                        continue;
+                    }
+                    put(rows, new Row(lineNumber, request));
+                } catch (CsvCustomerParser.FieldException e) {
+                    job.failed(lineNumber, e.getField(), e.getMessage());
+                } catch (InterruptedException | CancellationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    job.failed(lineNumber, "", "Unreadable record: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void validate() throws InterruptedException {
+        List<Row> batch = new ArrayList<>(batchSize);
+        for (Row row = take(rows); row != END_OF_ROWS; row = take(rows)) {
+            List<Map<String, String>> errors = validator.validate(row.request).stream()
+                    .map(violation -> Map.of(
+                            "field", violation.getPropertyPath().toString(),
+                            "defaultMessage", violation.getMessage()))
+                    .collect(Collectors.toList());
+            if (!errors.isEmpty()) {
+                job.failed(row.line, errors);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                put(batches, batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            put(batches, batch);
+        }
+    }
+
+    private void write() throws InterruptedException {
+        for (List<Row> batch = take(batches); batch != END_OF_BATCHES; batch = take(batches)) {
+            List<Customer> customers = batch.stream().map(row -> mapper.apply(row.request)).collect(Collectors.toList());
+            Map<Integer, String> failures = batchWriter.apply(customers);
+            for (Map.Entry<Integer, String> failed : failures.entrySet()) {
+                job.failed(batch.get(failed.getKey()).line, "", failed.getValue());
+            }
+            job.imported(customers.size() - failures.size());
+        }
+    }
+
+    private Callable<Void> stage(StageBody body) {
+        return () -> {
+            try {
+                body.run();
+                return null;
+            } catch (Throwable t) {
+                if (!(t instanceof CancellationException)) {
+                    failure.compareAndSet(null, t);
+                }
+                job.abort(); // unblocks the other stages
+                throw t;
+            }
+        };
+    }
+
+    private void await(Future<?> stage) throws Exception {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            // report the stage that failed first, not one that was cancelled because of it
+            Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkAborted();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        T item;
+        while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkAborted();
+        }
+        return item;
+    }
+
+    private void checkAborted() {
+        if (job.isAborted()) {
+            throw new CancellationException("Import " + job.getId() + " aborted");
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    private static final class Row {
+        private final long line;
+        private final CustomerRequest request;
+
+        private Row(long line, CustomerRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+}
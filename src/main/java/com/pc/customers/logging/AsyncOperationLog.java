@@ -0,0 +1,200 @@
+package com.pc.customers.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request-path logging that never waits on an appender. Events go into a {@link LogRingBuffer} and a single
+ * background thread hands them to the real logger, so request threads only pay for a random draw and, for sampled
+ * events, one CAS.
+ * <p>
+ * INFO events are sampled per operation: {@code customers.logging.sample-rate.<operation>} (e.g. {@code get-by-id}),
+ * falling back to {@code customers.logging.sample-rate.default}. Each event carries the operation and the rate as
+ * key-value pairs ({@code op}, {@code sampleRate}), so counts can be scaled back up. WARN events are not sampled.
+ * Errors don't belong here: log them directly, so they are never sampled or dropped.
+ * <p>
+ * When the ring is full, events are dropped rather than slowing the request down. Written, dropped and sampled-out
+ * events are counted as {@code customers.log.events} by {@code outcome}, and the writer logs how many were dropped
+ * once it catches up. Arguments are formatted on the writer thread, so they must not change after the call.
+ */
+@Component
+public class AsyncOperationLog implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOperationLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Environment environment;
+    private final double defaultRate;
+    private final Map<String, Double> rates = new ConcurrentHashMap<>();
+    private final LogRingBuffer<Event> ring;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AsyncOperationLog(Environment environment,
+                             @Value("${customers.logging.sample-rate.default:1.0}") double defaultRate,
+                             @Value("${customers.logging.buffer-size:8192}") int bufferSize) {
+        this(environment, defaultRate, bufferSize, true);
+    }
+
+    AsyncOperationLog(Environment environment, double defaultRate, int bufferSize, boolean start) {
+        this.environment = environment;
+        this.defaultRate = defaultRate;
+        this.ring = new LogRingBuffer<>(bufferSize);
+        this.writer = new Thread(this::drain, "customers-async-log");
+        this.writer.setDaemon(true);
+        if (start) {
+            writer.start();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customers.log.events", written, LongAdder::sum)
+                .tag("outcome", "written")
+                .register(registry);
+        FunctionCounter.builder("customers.log.events", dropped, LongAdder::sum)
+                .tag("outcome", "dropped")
+                .description("Events refused because the log buffer was full")
+                .register(registry);
+        FunctionCounter.builder("customers.log.events", sampledOut, LongAdder::sum)
+                .tag("outcome", "sampled_out")
+                .register(registry);
+        Gauge.builder("customers.log.queued", ring, LogRingBuffer::size)
+                .description("Events waiting for the log writer")
+                .register(registry);
+    }
+
+    public void info(Logger target, String operation, String format, Object arg) {
+        if (target.isInfoEnabled() && sampled(operation)) {
+            enqueue(new Event(target, Level.INFO, operation, rateOf(operation), format, new Object[]{arg}));
+        }
+    }
+
+    public void info(Logger target, String operation, String format, Object arg1, Object arg2) {
+        if (target.isInfoEnabled() && sampled(operation)) {
+            enqueue(new Event(target, Level.INFO, operation, rateOf(operation), format, new Object[]{arg1, arg2}));
+        }
+    }
+
+    public void warn(Logger target, String operation, String format, Object... args) {
+        if (target.isWarnEnabled()) {
+            enqueue(new Event(target, Level.WARN, operation, 1.0, format, args));
+        }
+    }
+
+    double rateOf(String operation) {
+        Double rate = rates.get(operation);
+        if (rate == null) {
+            rate = rates.computeIfAbsent(operation, op ->
+                    environment.getProperty("customers.logging.sample-rate." + op, Double.class, defaultRate));
+        }
+        return rate;
+    }
+
+    private boolean sampled(String operation) {
+        double rate = rateOf(operation);
+        if (rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return true;
+        }
+        sampledOut.increment();
+        return false;
+    }
+
+    private void enqueue(Event event) {
+        if (!ring.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes whatever is queued on the calling thread; the background writer does this continuously.
+     *
+     * @return number of events written
+     */
+    int flush() {
+        int count = 0;
+        for (Event event = ring.poll(); event != null; event = ring.poll()) {
+            write(event);
+            count++;
+        }
+        return count;
+    }
+
+    private void drain() {
+        long reportedDrops = 0;
+        long lastReport = System.nanoTime() - DROP_REPORT_INTERVAL_NANOS;
+        while (running || ring.size() > 0) {
+            if (flush() == 0) {
+                long drops = dropped.sum();
+                if (drops > reportedDrops && System.nanoTime() - lastReport >= DROP_REPORT_INTERVAL_NANOS) {
+                    logger.warn("Dropped {} log events because the buffer of {} was full",
+                            drops - reportedDrops, ring.capacity());
+                    reportedDrops = drops;
+                    lastReport = System.nanoTime();
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(Event event) {
+        try {
+            LoggingEventBuilder builder = event.target.atLevel(event.level).addKeyValue("op", event.operation);
+            if (event.rate < 1.0) {
+                builder.addKeyValue("sampleRate", event.rate);
+            }
+            builder.log(event.format, event.args);
+            written.increment();
+        } catch (RuntimeException e) {
+            logger.error("Error writing log event for {}", event.operation, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private static final class Event {
+        private final Logger target;
+        private final Level level;
+        private final String operation;
+        private final double rate;
+        private final String format;
+        private final Object[] args;
+
+        private Event(Logger target, Level level, String operation, double rate, String format, Object[] args) {
+            this.target = target;
+            this.level = level;
+            this.operation = operation;
+            this.rate = rate;
+            this.format = format;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.pc.customers.metrics;
+
+import com.pc.customers.dto.CustomerPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public {@code CustomerService} and {@code ICustomerDAO} operation.
+ * <p>
+ * Timers are tagged with the operation and its outcome: {@code hit} (something was found), {@code not_found} (null or
+ * empty result), {@code success} (operations that don't return a lookup result) and {@code error}. They publish
+ * percentile histograms, so p99s are computed by the metrics backend from bucket counters rather than in-process;
+ * recording is a few atomic increments and never takes a lock. The timers for each method are created once and
+ * looked up by class and {@link Method} afterwards.
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+
+    static final String SERVICE_METRIC = "customers.service";
+    static final String DAO_METRIC = "customers.dao";
+
+    static final String HIT = "hit";
+    static final String NOT_FOUND = "not_found";
+    static final String SUCCESS = "success";
+    static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Map<Method, OperationTimers>> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OperationMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.pc.customers.service.CustomerService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, SERVICE_METRIC);
+    }
+
+    @Around("execution(public * com.pc.customers.dao.ICustomerDAO+.*(..)) && !execution(* bindTo(..))")
+    public Object timeDao(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, DAO_METRIC);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String metric) throws Throwable {
+        OperationTimers operation = timersFor(joinPoint, metric);
+        long start = System.nanoTime();
+        Timer timer = operation.error;
+        try {
+            Object result = joinPoint.proceed();
+            timer = operation.timerFor(result);
+            return result;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // plain gets on the hot path; computeIfAbsent (which may lock a bin) only the first time a method is seen
+    private OperationTimers timersFor(ProceedingJoinPoint joinPoint, String metric) {
+        Class<?> component = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Method, OperationTimers> byMethod = timers.get(component);
+        OperationTimers operation = byMethod != null ? byMethod.get(method) : null;
+        if (operation == null) {
+            operation = timers.computeIfAbsent(component, c -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(method, m -> new OperationTimers(registry, metric, component.getSimpleName(), m));
+        }
+        return operation;
+    }
+
+    private static final class OperationTimers {
+        private final boolean lookup;
+        private final boolean returnsValue;
+        private final Timer hit;
+        private final Timer notFound;
+        private final Timer success;
+        private final Timer error;
+
+        private OperationTimers(MeterRegistry registry, String metric, String component, Method method) {
+            String name = method.getName();
+            this.lookup = name.startsWith("find") || name.startsWith("get");
+            this.returnsValue = !method.getReturnType().isPrimitive();
+            this.hit = timer(registry, metric, component, name, HIT);
+            this.notFound = timer(registry, metric, component, name, NOT_FOUND);
+            this.success = timer(registry, metric, component, name, SUCCESS);
+            this.error = timer(registry, metric, component, name, ERROR);
+        }
+
+        private static Timer timer(MeterRegistry registry, String metric, String component, String operation, String outcome) {
+            return Timer.builder(metric)
+                    .tag("component", component)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+        }
+
+        // lookups report whether they found anything; other operations only report a missing target (e.g. an
+        // update of an unknown id returning null)
+        private Timer timerFor(Object result) {
+            if (returnsValue && result == null) {
+                return notFound;
+            }
+            if (!lookup) {
+                return success;
+            }
+            if (result instanceof Collection<?> collection && collection.isEmpty()
+                    || result instanceof CustomerPage page && (page.getItems() == null || page.getItems().isEmpty())) {
+                return notFound;
+            }
+            return hit;
+        }
+    }
+}
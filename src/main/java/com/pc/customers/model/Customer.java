@@ -2,16 +2,43 @@ package com.pc.customers.model;
 
 import jakarta.persistence.*;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.Date;
 import jakarta.persistence.Entity;
 
 @Entity
-@Table(name="customers")
+@DynamicUpdate // updates write only the columns that changed
+@Table(name="customers", indexes = {
+        @Index(name = "idx_customers_email_normalized", columnList = "email_normalized"),
+        @Index(name = "idx_customers_tier", columnList = "tier, id"),
+        @Index(name = "idx_customers_tier_last_purchase", columnList = "tier, last_purchase_date"),
+        // range queries: leading column for the range and order, id for the keyset, the other bound checked in the index
+        @Index(name = "idx_customers_spend", columnList = "annual_spend, id, last_purchase_date"),
+        @Index(name = "idx_customers_last_purchase", columnList = "last_purchase_date, id, annual_spend")
+})
+// stored values as read by native queries, typed as the entity's attributes; see STORED_VALUES
+@SqlResultSetMapping(name = Customer.STORED_VALUES, columns = {
+        @ColumnResult(name = "id", type = UUID.class),
+        @ColumnResult(name = "tier", type = String.class),
+        @ColumnResult(name = "annual_spend", type = Double.class),
+        @ColumnResult(name = "email", type = String.class),
+        @ColumnResult(name = "last_purchase_date", type = Date.class)
+})
 public class Customer {
 
+    // rows of [UUID id, String tier, Double annualSpend, String email, Date lastPurchaseDate]
+    public static final String STORED_VALUES = "Customer.storedValues";
+
+    public static final String TIER_SILVER = "Silver";
+    public static final String TIER_GOLD = "Gold";
+    public static final String TIER_PLATINUM = "Platinum";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name="id")
@@ -23,12 +50,26 @@ public class Customer {
     @Column(name="email")
     private String email;
 
+    // lower-cased, trimmed copy of email; lookups go through its index instead of scanning the table
+    @Column(name="email_normalized")
+    private String emailNormalized;
+
     @Column(name="annual_spend")
     private Double annualSpend;
 
     @Column(name="last_purchase_date")
     private Date lastPurchaseDate;
 
+    // tier as of the last write or recompute; time alone can move it down, see TierRecomputeJob
+    @Column(name="tier", length = 16)
+    private String tier;
+
+    // optimistic lock: every update bumps it and checks it, so concurrent writers can't silently overwrite each other
+    @Version
+    @ColumnDefault("0")
+    @Column(name="version")
+    private Long version;
+
     public Customer() {
     }
 
@@ -38,7 +79,26 @@ public class Customer {
 
     public Customer(String name, String email) {
         this.name = name;
-        this.email = email;
+        setEmail(email);
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the canonical spelling of a tier name, matched case-insensitively, or null if it isn't one
+     */
+    public static String normalizeTier(String tier) {
+        if (tier == null) {
+            return null;
+        }
+        for (String known : List.of(TIER_SILVER, TIER_GOLD, TIER_PLATINUM)) {
+            if (known.equalsIgnoreCase(tier.trim())) {
+                return known;
+            }
+        }
+        return null;
     }
 
     public UUID getId() {
@@ -63,6 +123,11 @@ public class Customer {
 
     public void setEmail(String email) {
         this.email = email;
+        this.emailNormalized = normalizeEmail(email);
+    }
+
+    public String getEmailNormalized() {
+        return emailNormalized;
     }
 
     public Double getAnnualSpend() {
@@ -81,6 +146,22 @@ public class Customer {
         this.lastPurchaseDate = lastPurchaseDate;
     }
 
+    public String getTier() {
+        return tier;
+    }
+
+    public void setTier(String tier) {
+        this.tier = tier;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Customer{" +
@@ -89,6 +170,8 @@ public class Customer {
                 ", email='" + email + '\'' +
                 ", annualSpend=" + annualSpend +
                 ", lastPurchaseDate=" + lastPurchaseDate +
+                ", tier='" + tier + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,79 @@
+package com.pc.customers.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A customer change written in the same transaction as the change itself, waiting for the outbox relay to move it to
+ * the change log. Rows are deleted once relayed.
+ */
+@Entity
+@Table(name = "customer_outbox")
+public class OutboxEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    // pooled sequence values, so a batch of events is inserted with JDBC batching instead of one round trip each
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_outbox_seq")
+    @SequenceGenerator(name = "customer_outbox_seq", sequenceName = "customer_outbox_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+
+    @Column(name = "type", length = 16, nullable = false)
+    private String type;
+
+    // the customer's version after the change; null for deletes that didn't read it
+    @Column(name = "version")
+    private Long version;
+
+    // the CustomerResponse as JSON; null for deletes
+    @Lob
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String type, UUID customerId, Long version, String payload, Instant occurredAt) {
+        this.type = type;
+        this.customerId = customerId;
+        this.version = version;
+        this.payload = payload;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pc.customers.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running count and total annual spend of the customers in one tier. Each tier is striped over several slots, so
+ * concurrent writers mostly lock different rows; the tier's totals are the sum of its slots.
+ */
+@Entity
+@IdClass(TierSummary.Key.class)
+@Table(name = "tier_summary")
+public class TierSummary {
+
+    @Id
+    @Column(name = "tier", length = 16)
+    private String tier;
+
+    @Id
+    @Column(name = "slot")
+    private int slot;
+
+    @Column(name = "customers", nullable = false)
+    private long customers;
+
+    // decimal, so adding and subtracting the same spends always comes back to the same total
+    @Column(name = "total_spend", nullable = false, precision = 38, scale = 6)
+    private BigDecimal totalSpend = BigDecimal.ZERO;
+
+    public TierSummary() {
+    }
+
+    public TierSummary(String tier, int slot, long customers, BigDecimal totalSpend) {
+        this.tier = tier;
+        this.slot = slot;
+        this.customers = customers;
+        this.totalSpend = totalSpend;
+    }
+
+    public String getTier() {
+        return tier;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getCustomers() {
+        return customers;
+    }
+
+    public BigDecimal getTotalSpend() {
+        return totalSpend;
+    }
+
+    public static class Key implements Serializable {
+
+        private String tier;
+        private int slot;
+
+        public Key() {
+        }
+
+        public Key(String tier, int slot) {
+            this.tier = tier;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return slot == key.slot && Objects.equals(tier, key.tier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tier, slot);
+        }
+    }
+}
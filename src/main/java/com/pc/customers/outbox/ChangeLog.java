@@ -0,0 +1,365 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.exception.InvalidChangeRequestException;
+import com.pc.customers.model.OutboxEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append-only log of relayed customer changes in {@code customers.outbox.log-dir}. Every change gets the next offset
+ * and is written as one JSON line; files hold consecutive offsets and are named after the first one
+ * ({@code 00000000000000000000.ndjson}). A new file is started once the current one reaches
+ * {@code customers.outbox.segment-size}, and only the newest {@code customers.outbox.retained-segments} are kept.
+ * <p>
+ * Appends are forced to disk before their offsets become visible, so readers never see a change that a crash could
+ * lose, and a torn last line left by a crash is cut off at startup.
+ */
+@Component
+public class ChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+
+    private static final String SUFFIX = ".ndjson";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{20})\\" + SUFFIX);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int retainedSegments;
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition appended = appendLock.newCondition();
+    private FileChannel current;
+    private long currentBytes;
+    // offset the next change gets; everything below it is on disk
+    private volatile long endOffset;
+
+    @Autowired
+    public ChangeLog(@Value("${customers.outbox.log-dir:./data/changes}") String directory,
+                     @Value("${customers.outbox.segment-size:64MB}") DataSize segmentSize,
+                     @Value("${customers.outbox.retained-segments:16}") int retainedSegments) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = Math.max(1, segmentSize.toBytes());
+        this.retainedSegments = Math.max(1, retainedSegments);
+        Files.createDirectories(this.directory);
+        recover();
+    }
+
+    /**
+     * Appends {@code events} in order and returns the offset after the last one.
+     */
+    public long append(List<OutboxEvent> events) throws IOException {
+        appendLock.lock();
+        try {
+            long offset = endOffset;
+            if (current == null || currentBytes >= segmentBytes) {
+                roll(offset);
+            }
+            StringBuilder lines = new StringBuilder();
+            for (OutboxEvent event : events) {
+                lines.append(line(offset++, event)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(UTF_8));
+            long before = currentBytes;
+            try {
+                while (buffer.hasRemaining()) {
+                    current.write(buffer);
+                }
+                current.force(false);
+            } catch (IOException e) {
+                // don't leave half a batch for the next append to follow
+                current.truncate(before);
+                current.position(before);
+                throw e;
+            }
+            currentBytes += buffer.limit();
+            endOffset = offset;
+            appended.signalAll();
+            return offset;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for a change at {@code offset} or later to be appended.
+     *
+     * @return whether there is one
+     */
+    public boolean awaitAppend(long offset, long timeoutMillis) throws InterruptedException {
+        if (endOffset > offset) {
+            return true;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        appendLock.lock();
+        try {
+            while (endOffset <= offset && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            return endOffset > offset;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return the oldest offset still on disk
+     */
+    public long firstOffset() {
+        Map.Entry<Long, Path> first = segments.firstEntry();
+        return first == null ? endOffset : first.getKey();
+    }
+
+    /**
+     * Opens a reader positioned at {@code offset}, which must be between {@link #firstOffset()} and
+     * {@link #endOffset()}.
+     */
+    public Reader reader(long offset) throws IOException {
+        long first = firstOffset();
+        long end = endOffset;
+        if (offset < first || offset > end) {
+            throw new InvalidChangeRequestException("from",
+                    "Offset " + offset + " is outside the retained change log (" + first + " to " + end + ")");
+        }
+        return new Reader(offset);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    static String line(long offset, OutboxEvent event) {
+        String payload = event.getPayload();
+        if (payload != null && (payload.indexOf('\n') >= 0 || payload.indexOf('\r') >= 0)) {
+            // only possible with pretty-printed JSON, where line breaks are whitespace between tokens
+            payload = payload.replace('\n', ' ').replace('\r', ' ');
+        }
+        return "{\"offset\":" + offset
+                + ",\"type\":\"" + event.getType() + "\""
+                + ",\"customerId\":\"" + event.getCustomerId() + "\""
+                + ",\"version\":" + event.getVersion()
+                + ",\"occurredAt\":\"" + event.getOccurredAt() + "\""
+                + ",\"customer\":" + payload + "}";
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        if (last == null) {
+            endOffset = 0;
+            return;
+        }
+        current = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long lines = 0;
+        long complete = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long position = 0;
+        int read;
+        while ((read = current.read(buffer, position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    lines++;
+                    complete = position + i + 1;
+                }
+            }
+            position += read;
+            buffer.clear();
+        }
+        if (complete < current.size()) {
+            logger.warn("Cutting {} bytes of an incomplete change off {}", current.size() - complete, last.getValue());
+            current.truncate(complete);
+        }
+        current.position(complete);
+        currentBytes = complete;
+        endOffset = last.getKey() + lines;
+        logger.info("Change log in {} holds offsets {} to {}", directory, firstOffset(), endOffset);
+    }
+
+    private void roll(long offset) throws IOException {
+        Path file = directory.resolve(String.format("%020d", offset) + SUFFIX);
+        FileChannel next = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (current != null) {
+            current.close();
+        }
+        current = next;
+        currentBytes = next.size();
+        next.position(currentBytes);
+        segments.put(offset, file);
+        while (segments.size() > retainedSegments) {
+            Map.Entry<Long, Path> oldest = segments.pollFirstEntry();
+            // readers still in it keep their open handle
+            Files.deleteIfExists(oldest.getValue());
+        }
+    }
+
+    public static final class Entry {
+        private final long offset;
+        private final String line;
+
+        Entry(long offset, String line) {
+            this.offset = offset;
+            this.line = line;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * @return the change as a JSON object
+         */
+        public String line() {
+            return line;
+        }
+    }
+
+    /**
+     * Reads the log forward from an offset, following it into newer files. Not thread-safe; one per subscriber.
+     */
+    public final class Reader implements Closeable {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private long offset;
+        private FileChannel channel;
+
+        private Reader(long offset) {
+            this.offset = offset;
+            buffer.flip();
+        }
+
+        /**
+         * @return the offset of the next change this reader returns
+         */
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * @return up to {@code max} changes from the current offset; empty if it has reached the end of the log
+         */
+        public List<Entry> next(int max) throws IOException {
+            List<Entry> entries = new ArrayList<>();
+            while (entries.size() < max && offset < endOffset) {
+                if (channel == null && !open()) {
+                    break;
+                }
+                String line = readLine();
+                if (line == null) {
+                    // this file is done; the next one starts at our offset
+                    closeChannel();
+                    if (!segments.containsKey(offset)) {
+                        throw new IOException("Change log has no file starting at offset " + offset);
+                    }
+                    continue;
+                }
+                entries.add(new Entry(offset++, line));
+            }
+            return entries;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeChannel();
+        }
+
+        private boolean open() throws IOException {
+            Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+            if (segment == null) {
+                throw new IOException("Offset " + offset + " is no longer in the change log");
+            }
+            channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+            buffer.clear().flip();
+            for (long skip = offset - segment.getKey(); skip > 0; skip--) {
+                if (readLine() == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void closeChannel() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+
+        // lines below endOffset are complete, so running out of bytes mid-line can't happen
+        private String readLine() throws IOException {
+            ByteArrayOutputStream partial = null;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int read = channel.read(buffer);
+                    buffer.flip();
+                    if (read <= 0) {
+                        return null;
+                    }
+                }
+                int start = buffer.position();
+                for (int i = start; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        buffer.position(i + 1);
+                        if (partial == null) {
+                            return new String(buffer.array(), start, i - start, UTF_8);
+                        }
+                        partial.write(buffer.array(), start, i - start);
+                        return partial.toString(UTF_8);
+                    }
+                }
+                if (partial == null) {
+                    partial = new ByteArrayOutputStream();
+                }
+                partial.write(buffer.array(), start, buffer.limit() - start);
+                buffer.position(buffer.limit());
+            }
+        }
+    }
+}
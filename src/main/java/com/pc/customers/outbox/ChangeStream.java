@@ -0,0 +1,160 @@
+package com.pc.customers.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the {@link ChangeLog} to Server-Sent Events subscribers. Each subscriber has its own reader and thread, so
+ * a slow client only holds up itself; at most {@code customers.outbox.max-subscribers} are served at once. Changes
+ * go out in batches of up to {@code customers.outbox.send-batch-size}, one flush per batch, with the offset as the
+ * event id so a client can reconnect with {@code Last-Event-ID}. An idle stream gets a comment every
+ * {@code customers.outbox.heartbeat-interval} to keep proxies from closing it.
+ */
+@Component
+public class ChangeStream implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStream.class);
+
+    static final String EVENT_NAME = "customer-change";
+
+    private final ChangeLog changeLog;
+    private final Semaphore permits;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ExecutorService senders;
+
+    @Value("${customers.outbox.send-batch-size:100}")
+    private int sendBatchSize = 100;
+
+    @Value("${customers.outbox.heartbeat-interval:15000}")
+    private long heartbeatMillis = 15000;
+
+    @Autowired
+    public ChangeStream(ChangeLog changeLog, @Value("${customers.outbox.max-subscribers:32}") int maxSubscribers) {
+        this.changeLog = changeLog;
+        this.permits = new Semaphore(Math.max(1, maxSubscribers));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "customer-changes-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customers.outbox.subscribers", subscribers, AtomicInteger::get)
+                .description("Open change stream connections")
+                .register(registry);
+    }
+
+    /**
+     * Starts streaming changes from {@code from}.
+     *
+     * @return the emitter, or null if there are already as many subscribers as allowed
+     */
+    public SseEmitter subscribe(long from) throws IOException {
+        ChangeLog.Reader reader = changeLog.reader(from);
+        if (!permits.tryAcquire()) {
+            reader.close();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription subscription = new Subscription(emitter, reader);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        subscribers.incrementAndGet();
+        try {
+            senders.execute(subscription::run);
+        } catch (RuntimeException e) {
+            subscription.release();
+            throw e;
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private final ChangeLog.Reader reader;
+        private final AtomicInteger released = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        private Subscription(SseEmitter emitter, ChangeLog.Reader reader) {
+            this.emitter = emitter;
+            this.reader = reader;
+        }
+
+        private void run() {
+            try {
+                while (!cancelled) {
+                    List<ChangeLog.Entry> entries = reader.next(Math.max(1, sendBatchSize));
+                    if (entries.isEmpty()) {
+                        if (!changeLog.awaitAppend(reader.offset(), heartbeatMillis) && !cancelled) {
+                            emitter.send(SseEmitter.event().comment("keep-alive"));
+                        }
+                        continue;
+                    }
+                    Set<ResponseBodyEmitter.DataWithMediaType> batch = new LinkedHashSet<>();
+                    for (ChangeLog.Entry entry : entries) {
+                        batch.addAll(SseEmitter.event()
+                                .id(Long.toString(entry.offset()))
+                                .name(EVENT_NAME)
+                                .data(entry.line())
+                                .build());
+                    }
+                    emitter.send(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // the client went away, or the emitter was completed under us
+                logger.debug("Change stream subscriber at offset {} closed: {}", reader.offset(), e.getMessage());
+            } catch (Exception e) {
+                logger.error("Change stream subscriber at offset {} failed", reader.offset(), e);
+            } finally {
+                emitter.complete();
+                release();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        private void release() {
+            if (released.getAndIncrement() == 0) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    logger.debug("Could not close change log reader", e);
+                }
+                subscribers.decrementAndGet();
+                permits.release();
+            }
+        }
+    }
+}
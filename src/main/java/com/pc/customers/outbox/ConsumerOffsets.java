@@ -0,0 +1,78 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.exception.InvalidChangeRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Offsets committed by named change log consumers, kept next to the log in {@code consumer-offsets.properties}. A
+ * committed offset is the next one the consumer wants, so a consumer that reconnects by name resumes after what it
+ * has processed.
+ */
+@Component
+public class ConsumerOffsets {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final String FILE_NAME = "consumer-offsets.properties";
+
+    private final Path file;
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConsumerOffsets(@Value("${customers.outbox.log-dir:./data/changes}") String directory) throws IOException {
+        this.file = Paths.get(directory).resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+                properties.load(reader);
+            }
+            properties.stringPropertyNames().forEach(name -> offsets.put(name, Long.parseLong(properties.getProperty(name))));
+        }
+    }
+
+    /**
+     * @return the committed offset of {@code consumer}, or null if it never committed one
+     */
+    public Long get(String consumer) {
+        return offsets.get(validName(consumer));
+    }
+
+    public synchronized void commit(String consumer, long offset) throws IOException {
+        if (offset < 0) {
+            throw new InvalidChangeRequestException("offset", "Offset must not be negative");
+        }
+        offsets.put(validName(consumer), offset);
+        Properties properties = new Properties();
+        offsets.forEach((name, value) -> properties.setProperty(name, Long.toString(value)));
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, UTF_8)) {
+            properties.store(writer, null);
+        }
+        // readers of the file see either the old offsets or the new ones
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String validName(String consumer) {
+        if (consumer == null || !NAME.matcher(consumer).matches()) {
+            throw new InvalidChangeRequestException("consumer",
+                    "Consumer names are 1 to 64 letters, digits, dots, dashes or underscores");
+        }
+        return consumer;
+    }
+}
@@ -0,0 +1,97 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.dao.IOutboxDAO;
+import com.pc.customers.model.OutboxEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves committed outbox rows into the {@link ChangeLog}, oldest first, {@code customers.outbox.batch-size} at a time,
+ * every {@code customers.outbox.relay-interval}. A batch is appended and then deleted in one transaction, so a crash
+ * between the two relays it again: delivery is at least once, and consumers should skip a change whose customer
+ * version they have already seen.
+ * <p>
+ * Only one instance should relay a given outbox table; turn the others off with {@code customers.outbox.relay-enabled}.
+ */
+@Component
+public class OutboxRelay implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final IOutboxDAO outboxDAO;
+    private final ChangeLog changeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final LongAdder relayed = new LongAdder();
+
+    @Value("${customers.outbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${customers.outbox.relay-enabled:true}")
+    private boolean relayEnabled = true;
+
+    @Value("${customers.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Autowired
+    public OutboxRelay(IOutboxDAO outboxDAO, ChangeLog changeLog, TransactionTemplate transactionTemplate) {
+        this.outboxDAO = outboxDAO;
+        this.changeLog = changeLog;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customers.outbox.relayed", relayed, LongAdder::sum)
+                .description("Customer changes moved from the outbox to the change log")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${customers.outbox.relay-initial-delay:PT5S}",
+            fixedDelayString = "${customers.outbox.relay-interval:PT0.2S}")
+    public void relay() {
+        if (!enabled || !relayEnabled) {
+            return;
+        }
+        try {
+            // keep going while batches come back full, so a burst is drained in one run
+            int moved;
+            do {
+                moved = relayBatch();
+            } while (moved == Math.max(1, batchSize));
+        } catch (Exception e) {
+            logger.error("Outbox relay failed; the batch stays in the outbox", e);
+        }
+    }
+
+    int relayBatch() {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxDAO.findOldest(Math.max(1, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                changeLog.append(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            outboxDAO.deleteAllById(events.stream().map(OutboxEvent::getId).toList());
+            return events.size();
+        });
+        int count = moved == null ? 0 : moved;
+        relayed.add(count);
+        return count;
+    }
+}
@@ -0,0 +1,52 @@
+package com.pc.customers.purchase;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Purchases of one customer buffered since the last flush: their total amount and the latest purchase date.
+ * Only changed by the {@link PurchaseBuffer} stripe that holds it, under that stripe's lock.
+ */
+public final class PendingPurchase {
+
+    private final UUID customerId;
+    private double amount;
+    private long lastPurchasedAt;
+    private long firstRecordedNanos;
+
+    PendingPurchase(UUID customerId, double amount, long purchasedAt, long recordedNanos) {
+        this.customerId = customerId;
+        this.amount = amount;
+        this.lastPurchasedAt = purchasedAt;
+        this.firstRecordedNanos = recordedNanos;
+    }
+
+    void add(double amount, long purchasedAt) {
+        this.amount += amount;
+        this.lastPurchasedAt = Math.max(lastPurchasedAt, purchasedAt);
+    }
+
+    void merge(PendingPurchase other) {
+        add(other.amount, other.lastPurchasedAt);
+        // an older, unflushed entry coming back keeps its age
+        if (other.firstRecordedNanos - firstRecordedNanos < 0) {
+            firstRecordedNanos = other.firstRecordedNanos;
+        }
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public Date getLastPurchaseDate() {
+        return new Date(lastPurchasedAt);
+    }
+
+    long getFirstRecordedNanos() {
+        return firstRecordedNanos;
+    }
+}
@@ -0,0 +1,160 @@
+package com.pc.customers.purchase;
+
+import com.pc.customers.util.UuidOrder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for {@code POST /customers/{id}/purchases}: purchases are summed per customer in memory and
+ * written by {@link PurchaseFlusher}, so a busy customer costs one row update per flush instead of one transaction
+ * per purchase.
+ * <p>
+ * Customers are spread over {@code customers.purchases.stripes} maps, each behind its own lock, so concurrent
+ * purchases of different customers seldom wait on each other. At most {@code customers.purchases.max-pending}
+ * customers are buffered; purchases of further customers are refused until the next flush, while customers already
+ * in the buffer keep accumulating.
+ */
+@Component
+public class PurchaseBuffer implements MeterBinder {
+
+    private final Stripe[] stripes;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public PurchaseBuffer(@Value("${customers.purchases.stripes:16}") int stripes,
+                          @Value("${customers.purchases.max-pending:100000}") int maxPending) {
+        this.stripes = new Stripe[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customers.purchases.pending", pending, AtomicInteger::get)
+                .description("Customers with purchases waiting to be flushed")
+                .register(registry);
+        Gauge.builder("customers.purchases.oldest", this, buffer -> buffer.oldestAgeNanos() / 1e9)
+                .description("Age of the oldest unflushed purchase")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("customers.purchases.recorded", recorded, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("customers.purchases.rejected", rejected, LongAdder::sum)
+                .description("Purchases refused because the buffer was full")
+                .register(registry);
+    }
+
+    /**
+     * @return false if the purchase was refused because the buffer is full
+     */
+    public boolean record(UUID customerId, double amount, long purchasedAt) {
+        Stripe stripe = stripeOf(customerId);
+        stripe.lock.lock();
+        try {
+            PendingPurchase purchase = stripe.purchases.get(customerId);
+            if (purchase != null) {
+                purchase.add(amount, purchasedAt);
+            } else if (pending.get() >= maxPending) {
+                rejected.increment();
+                return false;
+            } else {
+                stripe.purchases.put(customerId, new PendingPurchase(customerId, amount, purchasedAt, System.nanoTime()));
+                pending.incrementAndGet();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        recorded.increment();
+        return true;
+    }
+
+    /**
+     * Takes everything buffered so far, in id order so flushes lock rows in the same order.
+     */
+    public List<PendingPurchase> drain() {
+        List<PendingPurchase> drained = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            Map<UUID, PendingPurchase> purchases;
+            stripe.lock.lock();
+            try {
+                purchases = stripe.purchases;
+                stripe.purchases = new HashMap<>();
+            } finally {
+                stripe.lock.unlock();
+            }
+            pending.addAndGet(-purchases.size());
+            drained.addAll(purchases.values());
+        }
+        drained.sort((a, b) -> UuidOrder.compare(a.getCustomerId(), b.getCustomerId()));
+        return drained;
+    }
+
+    /**
+     * Puts back purchases a flush could not write, merged with anything recorded for the same customers since. Never
+     * refused, so a failed flush loses nothing.
+     */
+    public void restore(List<PendingPurchase> purchases) {
+        for (PendingPurchase purchase : purchases) {
+            Stripe stripe = stripeOf(purchase.getCustomerId());
+            stripe.lock.lock();
+            try {
+                PendingPurchase current = stripe.purchases.putIfAbsent(purchase.getCustomerId(), purchase);
+                if (current != null) {
+                    current.merge(purchase);
+                } else {
+                    pending.incrementAndGet();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        return pending.get();
+    }
+
+    long oldestAgeNanos() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (PendingPurchase purchase : stripe.purchases.values()) {
+                    oldest = Math.max(oldest, now - purchase.getFirstRecordedNanos());
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return oldest;
+    }
+
+    private Stripe stripeOf(UUID customerId) {
+        return stripes[Math.floorMod(customerId.hashCode(), stripes.length)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<UUID, PendingPurchase> purchases = new HashMap<>();
+    }
+}
@@ -0,0 +1,94 @@
+package com.pc.customers.purchase;
+
+import com.pc.customers.service.CustomerService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the {@link PurchaseBuffer} to the database every {@code customers.purchases.flush-interval}, so a recorded
+ * purchase reaches its customer within about one interval. The buffer is written
+ * {@code customers.purchases.flush-chunk-size} customers per transaction; a chunk that fails goes back into the
+ * buffer for the next flush. With {@code customers.purchases.flush-on-shutdown} the buffer is flushed once more when
+ * the application stops; purchases still buffered when the process dies are lost either way.
+ */
+@Component
+public class PurchaseFlusher implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseFlusher.class);
+
+    private final PurchaseBuffer purchaseBuffer;
+    private final CustomerService customerService;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @Value("${customers.purchases.flush-chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${customers.purchases.flush-on-shutdown:true}")
+    private boolean flushOnShutdown = true;
+
+    @Autowired
+    public PurchaseFlusher(PurchaseBuffer purchaseBuffer, CustomerService customerService) {
+        this.purchaseBuffer = purchaseBuffer;
+        this.customerService = customerService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customers.purchases.flushed", flushed, LongAdder::sum)
+                .description("Customers updated with buffered purchases")
+                .register(registry);
+        FunctionCounter.builder("customers.purchases.dropped", dropped, LongAdder::sum)
+                .description("Buffered purchases of customers that no longer exist")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${customers.purchases.flush-interval:PT1S}",
+            fixedDelayString = "${customers.purchases.flush-interval:PT1S}")
+    public void flush() {
+        // the shutdown flush may overlap a scheduled one
+        flushLock.lock();
+        try {
+            List<PendingPurchase> purchases = purchaseBuffer.drain();
+            int size = Math.max(1, chunkSize);
+            for (int from = 0; from < purchases.size(); from += size) {
+                List<PendingPurchase> chunk = purchases.subList(from, Math.min(from + size, purchases.size()));
+                try {
+                    int applied = customerService.applyPurchases(chunk);
+                    flushed.add(applied);
+                    dropped.add(chunk.size() - applied);
+                } catch (Exception e) {
+                    logger.error("Could not flush purchases of {} customers; they stay buffered", chunk.size(), e);
+                    purchaseBuffer.restore(chunk);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushOnShutdown) {
+            flush();
+            if (purchaseBuffer.size() > 0) {
+                logger.error("{} customers still have unflushed purchases at shutdown", purchaseBuffer.size());
+            }
+        } else if (purchaseBuffer.size() > 0) {
+            logger.warn("Discarding unflushed purchases of {} customers", purchaseBuffer.size());
+        }
+    }
+}
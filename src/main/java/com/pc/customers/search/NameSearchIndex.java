@@ -0,0 +1,164 @@
+package com.pc.customers.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram inverted index over customer names, used to answer substring searches without the
+ * full table scan that {@code LOWER(name) LIKE '%x%'} implies.
+ * <p>
+ * Names are stored lower-cased next to a posting set per trigram. A query of three or more characters only
+ * checks the customers in its rarest trigram's posting set, and every candidate is confirmed with
+ * {@link String#contains}, so results are exactly those of the SQL substring match. Shorter queries fall back
+ * to a scan of the in-memory names. Queries containing LIKE wildcards are left to the database.
+ */
+@Component
+public class NameSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> postings = new ConcurrentHashMap<>();
+    // deletes seen before the index is ready; the snapshot being loaded may still contain these customers
+    private final Set<UUID> removedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    /**
+     * @return ids of customers whose name contains {@code query} (case-insensitive), or {@code null} when the
+     * index cannot answer the query and the caller has to ask the database
+     */
+    public List<UUID> search(String query) {
+        if (!ready || query == null || hasLikeWildcards(query)) {
+            return null;
+        }
+        String needle = normalize(query);
+        if (needle.length() < GRAM) {
+            List<UUID> matches = new ArrayList<>();
+            names.forEach((id, name) -> {
+                if (name.contains(needle)) {
+                    matches.add(id);
+                }
+            });
+            return matches;
+        }
+
+        Set<UUID> rarest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<UUID> posting = postings.get(gram(needle, i));
+            if (posting == null || posting.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (rarest == null || posting.size() < rarest.size()) {
+                rarest = posting;
+            }
+        }
+        List<UUID> matches = new ArrayList<>();
+        for (UUID id : rarest) {
+            String name = names.get(id);
+            if (name != null && name.contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    public void put(UUID id, String name) {
+        if (name == null) {
+            remove(id);
+            return;
+        }
+        String normalized = normalize(name);
+        names.compute(id, (key, previous) -> {
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            index(key, normalized);
+            return normalized;
+        });
+    }
+
+    public void remove(UUID id) {
+        if (!ready) {
+            removedWhileLoading.add(id);
+        }
+        drop(id);
+    }
+
+    /**
+     * Loads a full snapshot of (id, name) pairs in parallel and marks the index ready. Entries already written
+     * by live updates are newer than the snapshot and are kept, and customers deleted since the snapshot was read
+     * are removed again once it is loaded.
+     */
+    public void rebuild(List<Object[]> idsAndNames) {
+        idsAndNames.parallelStream().forEach(row -> {
+            UUID id = (UUID) row[0];
+            String name = (String) row[1];
+            if (name != null && !removedWhileLoading.contains(id)) {
+                String normalized = normalize(name);
+                names.computeIfAbsent(id, key -> {
+                    index(key, normalized);
+                    return normalized;
+                });
+            }
+        });
+        // a delete can land between a row's check and its insert above, so tombstones are applied after the load
+        removedWhileLoading.forEach(this::drop);
+        ready = true;
+        removedWhileLoading.clear();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private void drop(UUID id) {
+        names.computeIfPresent(id, (key, previous) -> {
+            unindex(key, previous);
+            return null;
+        });
+    }
+
+    private void index(UUID id, String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            // mutate posting sets only inside compute so a concurrent unindex can't drop a set we are adding to
+            postings.compute(gram(name, i), (key, posting) -> {
+                Set<UUID> ids = posting != null ? posting : ConcurrentHashMap.newKeySet();
+                ids.add(id);
+                return ids;
+            });
+        }
+    }
+
+    private void unindex(UUID id, String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            postings.computeIfPresent(gram(name, i), (key, posting) -> {
+                posting.remove(id);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private static String normalize(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean hasLikeWildcards(String query) {
+        return query.indexOf('%') >= 0 || query.indexOf('_') >= 0 || query.indexOf('\\') >= 0;
+    }
+}
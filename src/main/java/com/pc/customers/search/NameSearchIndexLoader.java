@@ -0,0 +1,64 @@
+package com.pc.customers.search;
+
+import com.pc.customers.dao.ICustomerDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the {@link NameSearchIndex} once the application is up. Until it is ready, name searches go to the database.
+ */
+@Component
+public class NameSearchIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(NameSearchIndexLoader.class);
+
+    private final ICustomerDAO customerDAO;
+    private final NameSearchIndex nameSearchIndex;
+
+    @Value("${customers.search.name-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${customers.search.name-index.load-page-size:10000}")
+    private int pageSize = 10000;
+
+    @Autowired
+    public NameSearchIndexLoader(ICustomerDAO customerDAO, NameSearchIndex nameSearchIndex) {
+        this.customerDAO = customerDAO;
+        this.nameSearchIndex = nameSearchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            logger.info("Name search index disabled, name searches will use the database");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            UUID after = null;
+            List<Object[]> page;
+            do {
+                page = customerDAO.findIdsAndNames(after, pageSize);
+                rows.addAll(page);
+                if (!page.isEmpty()) {
+                    after = (UUID) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == pageSize);
+            nameSearchIndex.rebuild(rows);
+            logger.info("Name search index built for {} customers in {} ms",
+                    nameSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Could not build name search index, name searches will use the database", e);
+        }
+    }
+}
@@ -1,16 +1,65 @@
 package com.pc.customers.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pc.customers.analytics.CountingHyperLogLog;
+import com.pc.customers.analytics.CustomerAnalytics;
+import com.pc.customers.analytics.CustomerColumns;
+import com.pc.customers.analytics.QuantileSketch;
+import com.pc.customers.cache.EmailLookupCache;
+import com.pc.customers.cache.EncodedResponseCache;
 import com.pc.customers.dao.ICustomerDAO;
+import com.pc.customers.dao.IOutboxDAO;
+import com.pc.customers.datasource.ReplicaRead;
+import com.pc.customers.dto.AnalyticsResponse;
+import com.pc.customers.dto.BatchCreateResponse;
+import com.pc.customers.dto.BatchItemResult;
+import com.pc.customers.dto.BulkDeleteResponse;
+import com.pc.customers.dto.CustomerPage;
+import com.pc.customers.dto.CustomerPatchRequest;
 import com.pc.customers.dto.CustomerRequest;
 import com.pc.customers.dto.CustomerResponse;
+import com.pc.customers.dto.LookupItemResult;
+import com.pc.customers.dto.LookupResponse;
+import com.pc.customers.dto.PageCursor;
+import com.pc.customers.dto.PurchaseRequest;
+import com.pc.customers.dto.RangeCursor;
+import com.pc.customers.dto.RankedCustomer;
+import com.pc.customers.dto.SpendRankingResponse;
+import com.pc.customers.dto.TierSummaryResponse;
 import com.pc.customers.exception.CustomerServiceException;
+import com.pc.customers.exception.InvalidCursorException;
+import com.pc.customers.exception.InvalidPatchException;
+import com.pc.customers.exception.PreconditionFailedException;
+import com.pc.customers.logging.AsyncOperationLog;
 import com.pc.customers.model.Customer;
+import com.pc.customers.model.OutboxEvent;
+import com.pc.customers.purchase.PendingPurchase;
+import com.pc.customers.purchase.PurchaseBuffer;
+import com.pc.customers.search.NameSearchIndex;
+import com.pc.customers.util.AfterCommit;
+import com.pc.customers.util.ETags;
+import com.pc.customers.util.UuidOrder;
 import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,17 +69,74 @@ public class CustomerService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
+    // email lookups matching more rows than this are paged from the database instead of cached
+    static final int EMAIL_CACHE_MAX_ROWS = 100;
+
+    static final double[] SPEND_QUANTILES = {0.5, 0.75, 0.9, 0.95, 0.99};
+
     @Autowired
     private ICustomerDAO customerDAO;
 
+    @Autowired
+    private EmailLookupCache emailLookupCache;
+
+    @Autowired
+    private NameSearchIndex nameSearchIndex;
+
+    @Autowired
+    private EncodedResponseCache encodedResponseCache;
+
+    @Autowired
+    private CustomerAnalytics customerAnalytics;
+
+    @Autowired
+    private CustomerColumns customerColumns;
+
+    @Autowired
+    private AsyncOperationLog asyncLog;
+
+    @Autowired
+    private TierEvaluator tierEvaluator;
+
+    @Autowired
+    private TierSummaryService tierSummaryService;
+
+    @Autowired
+    private IOutboxDAO outboxDAO;
+
+    @Autowired
+    private PurchaseBuffer purchaseBuffer;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${customers.batch.chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    @Value("${customers.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    @Value("${customers.delete.chunk-size:500}")
+    private int deleteChunkSize = 500;
+
+    @Value("${customers.outbox.enabled:true}")
+    private boolean outboxEnabled = true;
+
+    @ReplicaRead
     public CustomerResponse getCustomerById(UUID id) {
-        logger.info("Fetching customer by ID: {}", id);
+        asyncLog.info(logger, "get-by-id", "Fetching customer by ID: {}", id);
         try {
             Customer customer = customerDAO.findById(id);
             if (customer != null) {
                 return mapToResponse(customer);
             } else {
-                logger.warn("Customer not found with ID: {}", id);
+                asyncLog.warn(logger, "get-by-id", "Customer not found with ID: {}", id);
                 return null;
             }
         } catch (Exception e) {
@@ -39,40 +145,266 @@ public class CustomerService {
         }
     }
 
-    public List<CustomerResponse> getCustomerByName(String name) {
-        logger.info("Fetching customers by name: {}", name);
+    public boolean isEncodedResponseCacheEnabled() {
+        return encodedResponseCache.isEnabled();
+    }
+
+    /**
+     * The customer's response as JSON bytes, with a gzip copy, reused from the encoded-response cache while the
+     * customer's version and tier are the ones it was encoded for.
+     *
+     * @return the encoded response, or null if the customer doesn't exist
+     */
+    @ReplicaRead
+    public EncodedResponseCache.Entry getEncodedCustomer(UUID id) {
+        logger.debug("Fetching encoded customer by ID: {}", id);
         try {
-            return customerDAO.findByName(name).stream()
-                    .map(this::mapToResponse)
-                    .collect(Collectors.toList());
+            Customer customer = customerDAO.findById(id);
+            if (customer == null) {
+                asyncLog.warn(logger, "get-by-id", "Customer not found with ID: {}", id);
+                return null;
+            }
+            return encodedResponseCache.get(id, eTagOf(customer), () -> encode(mapToResponse(customer)));
+        } catch (Exception e) {
+            logger.error("Error fetching encoded customer by ID: {}", id, e);
+            throw new CustomerServiceException("Error retrieving customer with ID: " + id, e);
+        }
+    }
+
+    /**
+     * Entity tag of the customer's current representation, without building a {@link CustomerResponse}; the lookup
+     * is normally served by the by-id cache.
+     *
+     * @return the tag, or null if the customer doesn't exist
+     */
+    @ReplicaRead
+    public String getCustomerETag(UUID id) {
+        logger.debug("Fetching ETag of customer with ID: {}", id);
+        try {
+            Customer customer = customerDAO.findById(id);
+            return customer != null ? eTagOf(customer) : null;
+        } catch (Exception e) {
+            logger.error("Error fetching ETag of customer with ID: {}", id, e);
+            throw new CustomerServiceException("Error retrieving customer with ID: " + id, e);
+        }
+    }
+
+    /**
+     * Resolves many ids at once with a handful of {@code IN (...)} queries instead of one lookup per id.
+     *
+     * @return one result per requested id, in request order, with ids that don't exist marked {@code NOT_FOUND}
+     */
+    public LookupResponse lookupCustomers(List<UUID> ids) {
+        asyncLog.info(logger, "lookup", "Looking up {} customers by ID", ids.size());
+        try {
+            Map<UUID, Customer> found = new HashMap<>();
+            for (Customer customer : customerDAO.findAllById(ids)) {
+                found.put(customer.getId(), customer);
+            }
+            List<LookupItemResult> results = new ArrayList<>(ids.size());
+            int notFound = 0;
+            for (UUID id : ids) {
+                Customer customer = found.get(id);
+                if (customer != null) {
+                    LookupItemResult result = new LookupItemResult(id, LookupItemResult.FOUND);
+                    result.setCustomer(mapToResponse(customer));
+                    results.add(result);
+                } else {
+                    results.add(new LookupItemResult(id, LookupItemResult.NOT_FOUND));
+                    notFound++;
+                }
+            }
+            LookupResponse response = new LookupResponse();
+            response.setResults(results);
+            response.setFound(results.size() - notFound);
+            response.setNotFound(notFound);
+            logger.debug("Lookup finished: {} found, {} not found", response.getFound(), notFound);
+            return response;
+        } catch (Exception e) {
+            logger.error("Error looking up {} customers by ID", ids.size(), e);
+            throw new CustomerServiceException("Error looking up " + ids.size() + " customers by ID", e);
+        }
+    }
+
+    @ReplicaRead
+    public CustomerPage getCustomerByName(String name, UUID after, int limit) {
+        asyncLog.info(logger, "get-by-name", "Fetching customers by name: {}", name);
+        try {
+            return toPage(findByName(name, after, limit + 1), limit);
         } catch (Exception e) {
             logger.error("Error fetching customers by name: {}", name, e);
             throw new CustomerServiceException("Error retrieving customers by name: " + name, e);
         }
     }
 
-    public List<CustomerResponse> getCustomerByEmail(String email) {
-        logger.info("Fetching customers by email: {}", email);
+    @ReplicaRead
+    public CustomerPage getCustomerByEmail(String email, UUID after, int limit) {
+        asyncLog.info(logger, "get-by-email", "Fetching customers by email: {}", email);
         try {
-            return customerDAO.findByEmail(email).stream()
-                    .map(this::mapToResponse)
-                    .collect(Collectors.toList());
+            List<Customer> cached = emailLookupCache.get(email, key -> {
+                List<Customer> matches = customerDAO.findByEmail(key, null, EMAIL_CACHE_MAX_ROWS + 1);
+                return matches.size() > EMAIL_CACHE_MAX_ROWS ? null : matches; // too many to cache, page from the db
+            });
+            List<Customer> customers = cached != null
+                    ? cached.stream()
+                            .filter(c -> after == null || UuidOrder.compare(c.getId(), after) > 0)
+                            .limit(limit + 1L)
+                            .collect(Collectors.toList())
+                    : customerDAO.findByEmail(email, after, limit + 1);
+            return toPage(customers, limit);
         } catch (Exception e) {
             logger.error("Error fetching customers by email: {}", email, e);
             throw new CustomerServiceException("Error retrieving customers by email: " + email, e);
         }
     }
 
+    /**
+     * Customers whose stored tier is {@code tier}, keyset-paged by id through the tier index.
+     *
+     * @param tier canonical tier name, see {@link Customer#normalizeTier(String)}
+     */
+    public CustomerPage getCustomersByTier(String tier, UUID after, int limit) {
+        asyncLog.info(logger, "get-by-tier", "Fetching customers by tier: {}", tier);
+        try {
+            return toPage(customerDAO.findByTier(tier, after, limit + 1), limit);
+        } catch (Exception e) {
+            logger.error("Error fetching customers by tier: {}", tier, e);
+            throw new CustomerServiceException("Error retrieving customers by tier: " + tier, e);
+        }
+    }
+
+    /**
+     * Customers within the given annual spend and last purchase bounds, keyset-paged through a range index. With a
+     * {@code minSpend} the page is ordered by (annual spend, id), otherwise by (last purchase date, id) and
+     * {@code purchasedFrom} is required. Customers without a value for the ordering column never match.
+     *
+     * @param purchasedFrom inclusive lower bound of the last purchase, or null for none
+     * @param purchasedBefore exclusive upper bound of the last purchase, or null for none
+     */
+    @ReplicaRead
+    public CustomerPage getCustomersInRange(Double minSpend, Double maxSpend, Date purchasedFrom, Date purchasedBefore,
+                                            RangeCursor after, int limit) {
+        boolean bySpend = minSpend != null;
+        if (after != null && after.isBySpend() != bySpend) {
+            throw new InvalidCursorException("Cursor belongs to a query ordered by "
+                    + (after.isBySpend() ? "annual spend" : "last purchase date"));
+        }
+        asyncLog.info(logger, "get-by-range", "Fetching customers by range: spend from {}, purchased from {}",
+                minSpend, purchasedFrom);
+        try {
+            List<Customer> customers = bySpend
+                    ? customerDAO.findBySpendRange(minSpend, maxSpend, purchasedFrom, purchasedBefore,
+                            after != null ? after.getAnnualSpend() : null, after != null ? after.getId() : null, limit + 1)
+                    : customerDAO.findByLastPurchaseRange(purchasedFrom, purchasedBefore, maxSpend,
+                            after != null ? after.getLastPurchaseDate() : null, after != null ? after.getId() : null, limit + 1);
+            boolean more = customers.size() > limit;
+            List<Customer> items = more ? customers.subList(0, limit) : customers;
+            String nextCursor = null;
+            if (more) {
+                Customer last = items.get(items.size() - 1);
+                nextCursor = (bySpend
+                        ? RangeCursor.bySpend(last.getAnnualSpend(), last.getId())
+                        : RangeCursor.byLastPurchase(last.getLastPurchaseDate(), last.getId())).encode();
+            }
+            return new CustomerPage(items.stream().map(this::mapToResponse).collect(Collectors.toList()), nextCursor);
+        } catch (Exception e) {
+            logger.error("Error fetching customers by range: spend from {}, purchased from {}", minSpend, purchasedFrom, e);
+            throw new CustomerServiceException("Error retrieving customers by range", e);
+        }
+    }
+
+    /**
+     * Spend quantiles, distinct email domains and last purchases by month over all customers, read from the
+     * {@link CustomerAnalytics} sketches without touching the database.
+     *
+     * @return the figures, or null while the sketches are still being built
+     */
+    public AnalyticsResponse getAnalytics() {
+        logger.debug("Reading customer analytics");
+        if (!customerAnalytics.isReady()) {
+            return null;
+        }
+        Map<String, Double> quantiles = new LinkedHashMap<>();
+        for (double quantile : SPEND_QUANTILES) {
+            quantiles.put(quantileLabel(quantile), customerAnalytics.spendQuantile(quantile));
+        }
+        Map<String, Long> months = new LinkedHashMap<>();
+        customerAnalytics.purchasesByMonth().forEach((month, count) -> months.put(month.toString(), count));
+
+        AnalyticsResponse response = new AnalyticsResponse();
+        response.setCustomers(customerAnalytics.size());
+        response.setSpendQuantiles(quantiles);
+        response.setSpendRelativeAccuracy(QuantileSketch.RELATIVE_ACCURACY);
+        response.setDistinctEmailDomains(customerAnalytics.distinctEmailDomains());
+        response.setDistinctEmailDomainsStandardError(CountingHyperLogLog.STANDARD_ERROR);
+        response.setLastPurchaseByMonth(months);
+        return response;
+    }
+
+    /**
+     * The {@code limit} customers with the highest annual spend, from the {@link CustomerColumns} snapshot.
+     *
+     * @return the ranking, or null while the snapshot is disabled or still being built
+     */
+    public SpendRankingResponse getTopSpenders(int limit) {
+        return getSpendRange(null, null, null, limit);
+    }
+
+    /**
+     * Customers whose annual spend is within {@code [minSpend, maxSpend]} and who last purchased after
+     * {@code lastPurchaseAfter} (a UTC day), from the {@link CustomerColumns} snapshot; any bound may be null.
+     *
+     * @return the ranking, or null while the snapshot is disabled or still being built
+     */
+    public SpendRankingResponse getSpendRange(Double minSpend, Double maxSpend, LocalDate lastPurchaseAfter, int limit) {
+        logger.debug("Ranking customers by spend in [{}, {}] after {}", minSpend, maxSpend, lastPurchaseAfter);
+        if (!customerColumns.isReady()) {
+            return null;
+        }
+        try {
+            CustomerColumns.Ranking ranking = customerColumns.rank(
+                    minSpend != null ? minSpend : Double.NEGATIVE_INFINITY,
+                    maxSpend != null ? maxSpend : Double.POSITIVE_INFINITY,
+                    lastPurchaseAfter != null ? (int) lastPurchaseAfter.toEpochDay() + 1 : CustomerColumns.NO_DAY,
+                    limit);
+            SpendRankingResponse response = new SpendRankingResponse();
+            response.setMatches(ranking.getMatches());
+            response.setTotalSpend(ranking.getTotalSpend());
+            response.setCustomers(ranking.getTop().stream()
+                    .map(ranked -> new RankedCustomer(ranked.getId(), ranked.getAnnualSpend(), ranked.getLastPurchaseDate()))
+                    .collect(Collectors.toList()));
+            return response;
+        } catch (Exception e) {
+            logger.error("Error ranking customers by spend", e);
+            throw new CustomerServiceException("Error ranking customers by spend", e);
+        }
+    }
+
+    /**
+     * Exact customer count and total annual spend per stored tier, read from the tier summary rows.
+     */
+    @ReplicaRead
+    public TierSummaryResponse getTierSummary() {
+        logger.debug("Reading tier summary");
+        try {
+            return tierSummaryService.getSummary();
+        } catch (Exception e) {
+            logger.error("Error reading tier summary", e);
+            throw new CustomerServiceException("Error reading tier summary", e);
+        }
+    }
+
     @Transactional
     public CustomerResponse createCustomer(CustomerRequest request) {
-        logger.info("Creating new customer with email: {}", request.getEmail());
+        asyncLog.info(logger, "create", "Creating new customer with email: {}", request.getEmail());
         try {
-            Customer customer = new Customer();
-            customer.setName(request.getName());
-            customer.setEmail(request.getEmail());
-            customer.setAnnualSpend(request.getAnnualSpend());
-            customer.setLastPurchaseDate(request.getLastPurchaseDate());
+            Customer customer = toCustomer(request);
+            applyTier(customer);
             customer = customerDAO.save(customer);
+            customerAnalytics.beforeWrite(customer.getId(), null);
+            tierSummaryService.apply(new TierSummaryService.Delta().added(customer));
+            recordChange(OutboxEvent.CREATED, customer.getId(), customer.getVersion(), customer);
+            afterSave(customer, null);
             logger.debug("Customer created with ID: {}", customer.getId());
             return mapToResponse(customer);
         } catch (Exception e) {
@@ -81,79 +413,626 @@ public class CustomerService {
         }
     }
 
+    /**
+     * Creates many customers at once. Every request is validated on its own and the valid ones are
+     * persisted in chunks of {@code customers.batch.chunk-size}, one transaction per chunk, so a bad
+     * row only affects its own result entry instead of rolling back the whole batch.
+     */
+    public BatchCreateResponse createCustomers(List<CustomerRequest> requests) {
+        asyncLog.info(logger, "create-batch", "Creating {} customers in batch", requests.size());
+        try {
+            List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+            List<Customer> pending = new ArrayList<>();
+            List<Integer> pendingIndexes = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                List<Map<String, String>> errors = validate(requests.get(i));
+                if (errors.isEmpty()) {
+                    pending.add(toCustomer(requests.get(i)));
+                    pendingIndexes.add(i);
+                } else {
+                    results.set(i, failedItem(i, errors));
+                }
+            }
+
+            Map<Integer, String> failures = saveBatch(pending);
+            for (int i = 0; i < pending.size(); i++) {
+                int index = pendingIndexes.get(i);
+                String failure = failures.get(i);
+                if (failure == null) {
+                    BatchItemResult result = new BatchItemResult(index, BatchItemResult.CREATED);
+                    result.setCustomer(mapToResponse(pending.get(i)));
+                    results.set(index, result);
+                } else {
+                    results.set(index, failedItem(index, List.of(Map.of("field", "", "defaultMessage", failure))));
+                }
+            }
+
+            BatchCreateResponse response = new BatchCreateResponse();
+            response.setResults(results);
+            response.setCreated((int) results.stream().filter(r -> BatchItemResult.CREATED.equals(r.getStatus())).count());
+            response.setFailed(results.size() - response.getCreated());
+            logger.debug("Batch create finished: {} created, {} failed", response.getCreated(), response.getFailed());
+            return response;
+        } catch (Exception e) {
+            logger.error("Error creating batch of {} customers", requests.size(), e);
+            throw new CustomerServiceException("Error creating batch of " + requests.size() + " customers", e);
+        }
+    }
+
+    /**
+     * Persists new customers in chunked transactions. When a chunk fails, its customers are retried one
+     * per transaction so that only the offending rows are reported.
+     *
+     * @return failure messages keyed by position in {@code customers}; empty when everything was saved
+     */
+    public Map<Integer, String> saveBatch(List<Customer> customers) {
+        Map<Integer, String> failures = new HashMap<>();
+        customers.forEach(this::applyTier);
+        int chunkSize = Math.max(1, batchChunkSize);
+        for (int from = 0; from < customers.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, customers.size());
+            List<Customer> chunk = customers.subList(from, to);
+            try {
+                transactionTemplate.execute(status -> saveAll(chunk));
+            } catch (Exception e) {
+                logger.warn("Batch chunk [{}, {}) failed, retrying its customers one by one", from, to, e);
+                for (int i = from; i < to; i++) {
+                    Customer customer = customers.get(i);
+                    customer.setId(null); // ids assigned by the rolled back chunk were never stored
+                    try {
+                        transactionTemplate.execute(status -> saveAll(List.of(customer)));
+                    } catch (Exception itemError) {
+                        customer.setId(null);
+                        failures.put(i, describe(itemError));
+                        continue;
+                    }
+                    afterBatchSave(customer);
+                }
+                continue;
+            }
+            chunk.forEach(this::afterBatchSave);
+        }
+        return failures;
+    }
+
+    // the rows are committed by now: a failure here must not send them back through the retry as duplicates
+    private void afterBatchSave(Customer customer) {
+        try {
+            afterSave(customer, null);
+        } catch (Exception e) {
+            logger.error("Saved customer {} but could not update the lookup caches and indexes", customer.getId(), e);
+        }
+    }
+
+    private List<Customer> saveAll(List<Customer> customers) {
+        List<Customer> saved = customerDAO.saveAll(customers);
+        customers.forEach(customer -> customerAnalytics.beforeWrite(customer.getId(), null));
+        TierSummaryService.Delta delta = new TierSummaryService.Delta();
+        customers.forEach(delta::added);
+        tierSummaryService.apply(delta);
+        customers.forEach(customer -> recordChange(OutboxEvent.CREATED, customer.getId(), customer.getVersion(), customer));
+        return saved;
+    }
+
+    /**
+     * Writes every customer to {@code out} as newline-delimited JSON, one {@link CustomerResponse} per line, reading
+     * through a database cursor so that heap use stays flat regardless of the number of rows.
+     *
+     * @return number of customers written
+     */
+    public long exportCustomers(OutputStream out) {
+        logger.info("Exporting all customers");
+        try {
+            ObjectWriter writer = objectMapper.writerFor(CustomerResponse.class);
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            Long count = transactionTemplate.execute(status -> customerDAO.streamAll(exportFetchSize, customer -> {
+                try {
+                    buffered.write(writer.writeValueAsBytes(mapToResponse(customer)));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            buffered.flush();
+            logger.debug("Exported {} customers", count);
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            logger.error("Error exporting customers", e);
+            throw new CustomerServiceException("Error exporting customers", e);
+        }
+    }
+
     @Transactional //ensure ACID property
     public CustomerResponse updateCustomer(UUID id, CustomerRequest request) {
-        logger.info("Updating customer with ID: {}", id);
+        return updateCustomer(id, request, null);
+    }
+
+    /**
+     * @param ifMatch {@code If-Match} value the current customer must match, or null to update unconditionally
+     * @throws PreconditionFailedException if {@code ifMatch} is set and the customer doesn't match it or is missing
+     */
+    @Transactional
+    public CustomerResponse updateCustomer(UUID id, CustomerRequest request, String ifMatch) {
+        asyncLog.info(logger, "update", "Updating customer with ID: {}", id);
         try {
+            // a tier recompute rewrites the tier without bumping the version, so only the row lock pins the values
+            // this update takes out of the tier summary
+            List<Object[]> stored = customerDAO.lockTiersAndSpend(List.of(id));
             Optional<Customer> optionalCustomer = Optional.ofNullable(customerDAO.findById(id));
+            checkIfMatch(id, ifMatch, optionalCustomer.orElse(null));
             if (optionalCustomer.isEmpty()) {
-                logger.warn("Customer not found for update with ID: {}", id);
+                asyncLog.warn(logger, "update", "Customer not found for update with ID: {}", id);
                 return null;
             }
             Customer customer = optionalCustomer.get();
+            TierSummaryService.Delta delta = new TierSummaryService.Delta().removed(stored);
+            customerAnalytics.beforeWrite(id, storedRow(stored));
+            emailLookupCache.invalidate(customer.getEmail());
             customer.setName(request.getName());
             customer.setEmail(request.getEmail());
             customer.setAnnualSpend(request.getAnnualSpend());
             customer.setLastPurchaseDate(request.getLastPurchaseDate());
+            applyTier(customer);
             customerDAO.save(customer);
+            customerDAO.flush(); // the version is bumped on flush, and the response and its ETag carry the new one
+            tierSummaryService.apply(delta.added(customer));
+            recordChange(OutboxEvent.UPDATED, id, customer.getVersion(), customer);
+            afterSave(customer, storedRow(stored));
             logger.debug("Customer updated with ID: {}", id);
             return mapToResponse(customer);
+        } catch (OptimisticLockingFailureException e) {
+            asyncLog.warn(logger, "update", "Version conflict updating customer with ID: {}", id);
+            throw e;
+        } catch (PreconditionFailedException e) {
+            asyncLog.warn(logger, "update", "Precondition failed updating customer with ID: {}: {}", id, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error updating customer with ID: {}", id, e);
             throw new CustomerServiceException("Error updating customer with ID: " + id, e);
         }
     }
 
+    /**
+     * Changes only the fields present in {@code patch}, with one UPDATE by primary key that also checks and bumps
+     * the version; the customer is read back afterwards for the response.
+     *
+     * @return the updated customer, or null if it doesn't exist
+     * @throws InvalidPatchException if a supplied field breaks the {@link CustomerRequest} constraints
+     * @throws OptimisticLockingFailureException if {@code patch.getVersion()} is set and no longer current
+     */
+    @Transactional
+    public CustomerResponse patchCustomer(UUID id, CustomerPatchRequest patch) {
+        List<Map<String, String>> errors = validate(patch);
+        if (!errors.isEmpty()) {
+            throw new InvalidPatchException(errors);
+        }
+        asyncLog.info(logger, "patch", "Patching customer with ID: {}, fields: {}", id, List.copyOf(patch.getFields().keySet()));
+        try {
+            if (patch.getFields().isEmpty()) {
+                Customer customer = customerDAO.findById(id);
+                if (customer != null && patch.getVersion() != null && !patch.getVersion().equals(customer.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+                }
+                return customer != null ? mapToResponse(customer) : null;
+            }
+            // any patch re-derives the tier, so the summary and the analytics need the row's values from before it
+            List<Object[]> before = customerDAO.lockTiersAndSpend(List.of(id));
+            long now = tierEvaluator.now();
+            int updated = customerDAO.patch(id, patch.getVersion(), patch.getFields(),
+                    new Date(tierEvaluator.sixMonthsBefore(now)), new Date(tierEvaluator.twelveMonthsBefore(now)));
+            if (updated == 0) {
+                if (customerDAO.findVersion(id) == null) {
+                    asyncLog.warn(logger, "patch", "Customer not found for patch with ID: {}", id);
+                    return null;
+                }
+                throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+            }
+            customerAnalytics.beforeWrite(id, storedRow(before));
+            emailLookupCache.invalidateCustomer(id); // the old email isn't known without reading it
+            Customer customer = customerDAO.findById(id);
+            tierSummaryService.apply(new TierSummaryService.Delta().removed(before).added(customer));
+            recordChange(OutboxEvent.UPDATED, id, customer.getVersion(), customer);
+            afterSave(customer, storedRow(before));
+            logger.debug("Customer patched with ID: {}, version: {}", id, customer.getVersion());
+            return mapToResponse(customer);
+        } catch (OptimisticLockingFailureException e) {
+            asyncLog.warn(logger, "patch", "Version conflict patching customer with ID: {}, expected version: {}", id, patch.getVersion());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error patching customer with ID: {}", id, e);
+            throw new CustomerServiceException("Error patching customer with ID: " + id, e);
+        }
+    }
+
+    /**
+     * Buffers a purchase for {@link #applyPurchases(List)}. The customer is not looked up: purchases of a customer
+     * that doesn't exist are dropped when flushed.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean recordPurchase(UUID id, PurchaseRequest request) {
+        asyncLog.info(logger, "purchase", "Recording purchase of {} for customer with ID: {}", request.getAmount(), id);
+        long purchasedAt = request.getPurchaseDate() != null ? request.getPurchaseDate().getTime() : tierEvaluator.now();
+        boolean accepted = purchaseBuffer.record(id, request.getAmount(), purchasedAt);
+        if (!accepted) {
+            asyncLog.warn(logger, "purchase", "Purchase buffer full, refused purchase for customer with ID: {}", id);
+        }
+        return accepted;
+    }
+
+    /**
+     * Adds buffered purchases to their customers in one transaction: the rows are locked and loaded with one query
+     * each, changed in memory and written back as one JDBC batch of versioned UPDATEs. Each customer's spend grows by
+     * the buffered amount, its last purchase date only moves forward, and its tier is derived again.
+     *
+     * @param purchases at most one per customer, in id order
+     * @return number of customers updated; purchases of customers that no longer exist are skipped
+     */
+    public int applyPurchases(List<PendingPurchase> purchases) {
+        try {
+            Integer applied = transactionTemplate.execute(status -> {
+                List<UUID> ids = purchases.stream().map(PendingPurchase::getCustomerId).toList();
+                List<Object[]> before = customerDAO.lockTiersAndSpend(ids);
+                Map<UUID, Object[]> stored = new HashMap<>();
+                before.forEach(row -> stored.put((UUID) row[0], row));
+                Map<UUID, Customer> customers = new HashMap<>();
+                customerDAO.findAllById(ids).forEach(customer -> customers.put(customer.getId(), customer));
+                List<Customer> changed = new ArrayList<>(customers.size());
+                for (PendingPurchase purchase : purchases) {
+                    Customer customer = customers.get(purchase.getCustomerId());
+                    if (customer == null) {
+                        continue;
+                    }
+                    double spend = customer.getAnnualSpend() != null ? customer.getAnnualSpend() : 0;
+                    customer.setAnnualSpend(spend + purchase.getAmount());
+                    if (customer.getLastPurchaseDate() == null || customer.getLastPurchaseDate().before(purchase.getLastPurchaseDate())) {
+                        customer.setLastPurchaseDate(purchase.getLastPurchaseDate());
+                    }
+                    applyTier(customer);
+                    customerDAO.save(customer);
+                    customerAnalytics.beforeWrite(customer.getId(), stored.get(customer.getId()));
+                    changed.add(customer);
+                }
+                customerDAO.flush(); // the batched UPDATEs; versions are bumped for the outbox events
+                TierSummaryService.Delta delta = new TierSummaryService.Delta().removed(before);
+                changed.forEach(delta::added);
+                tierSummaryService.apply(delta);
+                changed.forEach(customer -> {
+                    recordChange(OutboxEvent.UPDATED, customer.getId(), customer.getVersion(), customer);
+                    afterSave(customer, stored.get(customer.getId()));
+                });
+                return changed.size();
+            });
+            return applied != null ? applied : 0;
+        } catch (Exception e) {
+            logger.error("Error applying purchases of {} customers", purchases.size(), e);
+            throw new CustomerServiceException("Error applying purchases of " + purchases.size() + " customers", e);
+        }
+    }
+
     @Transactional
     public void deleteCustomer(UUID id) {
-        logger.info("Deleting customer with ID: {}", id);
+        deleteCustomer(id, null);
+    }
+
+    /**
+     * @param ifMatch {@code If-Match} value the current customer must match, or null to delete unconditionally
+     * @throws PreconditionFailedException if {@code ifMatch} is set and the customer doesn't match it or is missing
+     */
+    @Transactional
+    public void deleteCustomer(UUID id, String ifMatch) {
+        asyncLog.info(logger, "delete", "Deleting customer with ID: {}", id);
         try {
-            customerDAO.deleteById(id);
-            logger.debug("Customer deleted with ID: {}", id);
+            // the delete returns the row it removed, so the summary takes out exactly the stored tier and spend
+            List<Object[]> deleted;
+            Long version = null;
+            if (ifMatch == null) {
+                deleted = customerDAO.deleteById(id);
+            } else {
+                Customer customer = customerDAO.findById(id);
+                checkIfMatch(id, ifMatch, customer);
+                // the version guard catches a write that committed after the check
+                deleted = customerDAO.deleteById(id, customer.getVersion());
+                if (deleted.isEmpty()) {
+                    throw new PreconditionFailedException("Customer " + id + " was changed by another request");
+                }
+                version = customer.getVersion();
+            }
+            tierSummaryService.apply(new TierSummaryService.Delta().removed(deleted));
+            if (!deleted.isEmpty()) {
+                customerAnalytics.beforeWrite(id, deleted.get(0));
+                recordChange(OutboxEvent.DELETED, id, version, null);
+            }
+            afterDelete(id, storedRow(deleted));
+            logger.debug("Deleted {} customer with ID: {}", deleted.size(), id);
+        } catch (PreconditionFailedException e) {
+            asyncLog.warn(logger, "delete", "Precondition failed deleting customer with ID: {}: {}", id, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error deleting customer with ID: {}", id, e);
             throw new CustomerServiceException("Error deleting customer with ID: " + id, e);
         }
     }
 
-    private CustomerResponse mapToResponse(Customer customer) {
-        CustomerResponse response = new CustomerResponse();
-        response.setId(customer.getId());
-        response.setName(customer.getName());
-        response.setEmail(customer.getEmail());
-        response.setAnnualSpend(customer.getAnnualSpend());
-        response.setLastPurchaseDate(customer.getLastPurchaseDate());
-        response.setTier(calculateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate()));
-        return response;
+    /**
+     * Deletes many customers, one transaction per chunk of {@code customers.delete.chunk-size} ids, each chunk a
+     * single {@code DELETE ... IN (...)} statement that also returns the tiers and spends it takes out of the tier
+     * summary. Chunks committed before a failure stay deleted.
+     *
+     * @return the number of ids requested and of customers actually deleted
+     */
+    public BulkDeleteResponse deleteCustomers(List<UUID> ids) {
+        asyncLog.info(logger, "delete-bulk", "Deleting {} customers in bulk", ids.size());
+        int deleted = 0;
+        int chunkSize = Math.max(1, deleteChunkSize);
+        try {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                List<Object[]> rows = transactionTemplate.execute(status -> {
+                    List<Object[]> chunkRows = customerDAO.deleteAllById(chunk);
+                    tierSummaryService.apply(new TierSummaryService.Delta().removed(chunkRows));
+                    chunkRows.forEach(row -> {
+                        customerAnalytics.beforeWrite((UUID) row[0], row);
+                        recordChange(OutboxEvent.DELETED, (UUID) row[0], null, null);
+                    });
+                    return chunkRows;
+                });
+                Map<UUID, Object[]> removed = new HashMap<>();
+                if (rows != null) {
+                    rows.forEach(row -> removed.put((UUID) row[0], row));
+                }
+                deleted += removed.size();
+                chunk.forEach(id -> afterDelete(id, removed.get(id)));
+            }
+            logger.debug("Bulk delete finished: {} of {} customers deleted", deleted, ids.size());
+            return new BulkDeleteResponse(ids.size(), deleted);
+        } catch (Exception e) {
+            logger.error("Error deleting customers in bulk after {} were deleted", deleted, e);
+            throw new CustomerServiceException("Error deleting customers in bulk after " + deleted + " were deleted", e);
+        }
     }
 
-    private String calculateTier(Double spend, Date date) {
-        if (spend == null || spend < 1000) return "Silver";
-
-        Date now = new Date();
-        Calendar cal = Calendar.getInstance();
+    /**
+     * Brings the stored tier of every customer whose tier is missing or has lapsed up to date, one transaction
+     * per chunk of {@code chunkSize} customers. Writes keep the tier current otherwise; only the passage of time
+     * can move a customer out of Gold or Platinum.
+     *
+     * @return number of customers whose tier was recomputed
+     */
+    public int recomputeStaleTiers(int chunkSize) {
+        long now = tierEvaluator.now();
+        Date sixMonthsAgo = new Date(tierEvaluator.sixMonthsBefore(now));
+        Date twelveMonthsAgo = new Date(tierEvaluator.twelveMonthsBefore(now));
+        int recomputed = 0;
+        UUID after = null;
+        try {
+            while (true) {
+                List<UUID> ids = customerDAO.findIdsWithStaleTier(sixMonthsAgo, twelveMonthsAgo, after, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer updated = transactionTemplate.execute(status -> {
+                    List<Object[]> before = customerDAO.lockTiersAndSpend(ids);
+                    int chunkUpdated = customerDAO.recomputeTiers(ids, sixMonthsAgo, twelveMonthsAgo);
+                    tierSummaryService.apply(new TierSummaryService.Delta().removed(before).added(customerDAO.lockTiersAndSpend(ids)));
+                    return chunkUpdated;
+                });
+                recomputed += updated != null ? updated : 0;
+                ids.forEach(emailLookupCache::invalidateCustomer); // cached entities carry the old tier
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+            }
+            return recomputed;
+        } catch (Exception e) {
+            logger.error("Error recomputing tiers after {} customers", recomputed, e);
+            throw new CustomerServiceException("Error recomputing customer tiers", e);
+        }
+    }
 
-        if (spend < 10000 && date != null) {
-            cal.setTime(now);
-            cal.add(Calendar.MONTH, -12); // 12 months ago
-            Date twelveMonthsAgo = cal.getTime();
+    /**
+     * Next {@code fetch} name matches after {@code after} in id order. The trigram index narrows the candidates;
+     * they are loaded in id order and re-checked in case a name changed after the index was read.
+     */
+    private List<Customer> findByName(String name, UUID after, int fetch) {
+        List<UUID> ids = nameSearchIndex.search(name);
+        if (ids == null) {
+            return customerDAO.findByName(name, after, fetch);
+        }
+        String needle = name.toLowerCase(Locale.ROOT);
+        List<Customer> page = new ArrayList<>();
+        UUID cursor = after;
+        while (page.size() < fetch) {
+            List<UUID> window = smallestAfter(ids, cursor, fetch - page.size());
+            if (window.isEmpty()) {
+                break;
+            }
+            Map<UUID, Customer> loaded = customerDAO.findAllById(window).stream()
+                    .collect(Collectors.toMap(Customer::getId, c -> c));
+            for (UUID id : window) {
+                Customer customer = loaded.get(id);
+                if (customer != null && customer.getName() != null
+                        && customer.getName().toLowerCase(Locale.ROOT).contains(needle)) {
+                    page.add(customer);
+                }
+            }
+            cursor = window.get(window.size() - 1);
+        }
+        return page;
+    }
 
-            if (date.after(twelveMonthsAgo)) {
-                return "Gold";
+    // the n smallest ids greater than after, ascending; a bounded heap keeps deep pages as cheap as the first
+    private static List<UUID> smallestAfter(List<UUID> ids, UUID after, int n) {
+        PriorityQueue<UUID> largestFirst = new PriorityQueue<>(n + 1, UuidOrder.COMPARATOR.reversed());
+        for (UUID id : ids) {
+            if (after != null && UuidOrder.compare(id, after) <= 0) {
+                continue;
+            }
+            if (largestFirst.size() < n) {
+                largestFirst.add(id);
+            } else if (UuidOrder.compare(id, largestFirst.peek()) < 0) {
+                largestFirst.poll();
+                largestFirst.add(id);
             }
         }
+        List<UUID> window = new ArrayList<>(largestFirst);
+        window.sort(UuidOrder.COMPARATOR);
+        return window;
+    }
 
-        if (spend >= 10000 && date != null) {
-            cal.setTime(now);
-            cal.add(Calendar.MONTH, -6); // 6 months ago
-            Date sixMonthsAgo = cal.getTime();
+    // customers holds up to limit + 1 rows; the extra one only signals that another page exists
+    private CustomerPage toPage(List<Customer> customers, int limit) {
+        boolean more = customers.size() > limit;
+        List<Customer> items = more ? customers.subList(0, limit) : customers;
+        String nextCursor = more ? PageCursor.encode(items.get(items.size() - 1).getId()) : null;
+        return new CustomerPage(items.stream().map(this::mapToResponse).collect(Collectors.toList()), nextCursor);
+    }
 
-            if (date.after(sixMonthsAgo)) {
-                return "Platinum";
+    /**
+     * Keeps the derived lookup structures in line with a customer that was just written.
+     *
+     * @param stored the row before the write, as locked by {@code lockTiersAndSpend}, or null for a new customer
+     */
+    private void afterSave(Customer customer, Object[] stored) {
+        emailLookupCache.invalidate(customer.getEmail());
+        encodedResponseCache.invalidate(customer.getId());
+        UUID id = customer.getId();
+        String name = customer.getName();
+        Double annualSpend = customer.getAnnualSpend();
+        String email = customer.getEmail();
+        Date lastPurchaseDate = customer.getLastPurchaseDate();
+        AfterCommit.run(() -> {
+            nameSearchIndex.put(id, name);
+            customerAnalytics.written(stored, annualSpend, email, lastPurchaseDate);
+            customerColumns.put(id, annualSpend, lastPurchaseDate);
+        });
+    }
+
+    /**
+     * @param stored the deleted row as the delete returned it, or null if there was nothing to delete
+     */
+    private void afterDelete(UUID id, Object[] stored) {
+        emailLookupCache.invalidateCustomer(id);
+        encodedResponseCache.invalidate(id);
+        AfterCommit.run(() -> {
+            nameSearchIndex.remove(id);
+            if (stored != null) {
+                customerAnalytics.removed(stored);
             }
+            customerColumns.remove(id);
+        });
+    }
+
+    // the single row a lock or delete by id returned, or null if the customer wasn't there
+    private static Object[] storedRow(List<Object[]> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Queues a change for the outbox relay in the current transaction, so it is published if and only if the change
+     * commits. Tier recomputes are not published: they follow from time passing, not from a write.
+     */
+    private void recordChange(String type, UUID id, Long version, Customer customer) {
+        if (!outboxEnabled) {
+            return;
+        }
+        String payload = customer != null ? new String(encode(mapToResponse(customer)), StandardCharsets.UTF_8) : null;
+        outboxDAO.save(new OutboxEvent(type, id, version, payload, Instant.now()));
+    }
+
+    private void checkIfMatch(UUID id, String ifMatch, Customer customer) {
+        if (ifMatch == null) {
+            return;
+        }
+        if (customer == null) {
+            throw new PreconditionFailedException("Customer " + id + " does not exist");
+        }
+        if (ETags.matchingEncoding(ifMatch, eTagOf(customer), false) == null) {
+            throw new PreconditionFailedException("Customer " + id + " does not match " + ifMatch);
         }
+    }
+
+    private String eTagOf(Customer customer) {
+        return ETags.of(customer.getVersion(), calculateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate()));
+    }
+
+    private void applyTier(Customer customer) {
+        customer.setTier(calculateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate()));
+    }
+
+    /**
+     * Maps a validated request to a new, unsaved customer; shared with the bulk import.
+     */
+    public Customer toCustomer(CustomerRequest request) {
+        Customer customer = new Customer();
+        customer.setName(request.getName());
+        customer.setEmail(request.getEmail());
+        customer.setAnnualSpend(request.getAnnualSpend());
+        customer.setLastPurchaseDate(request.getLastPurchaseDate());
+        return customer;
+    }
+
+    private List<Map<String, String>> validate(CustomerRequest request) {
+        if (request == null) {
+            return List.of(Map.of("field", "", "defaultMessage", "Customer must not be null"));
+        }
+        return validator.validate(request).stream()
+                .map(violation -> Map.of(
+                        "field", violation.getPropertyPath().toString(),
+                        "defaultMessage", violation.getMessage()))
+                .collect(Collectors.toList());
+    }
+
+    // each supplied field is checked against the same constraints as a full CustomerRequest
+    private List<Map<String, String>> validate(CustomerPatchRequest patch) {
+        List<Map<String, String>> errors = new ArrayList<>();
+        patch.getFields().forEach((field, value) ->
+                validator.validateValue(CustomerRequest.class, field, value).forEach(violation -> errors.add(Map.of(
+                        "field", field,
+                        "defaultMessage", violation.getMessage()))));
+        return errors;
+    }
+
+    private byte[] encode(CustomerResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 0.5 -> p50, 0.999 -> p99.9
+    static String quantileLabel(double quantile) {
+        return "p" + BigDecimal.valueOf(quantile).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    private static String describe(Exception e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private BatchItemResult failedItem(int index, List<Map<String, String>> errors) {
+        BatchItemResult result = new BatchItemResult(index, BatchItemResult.FAILED);
+        result.setErrors(errors);
+        return result;
+    }
+
+    // package-private so the benchmarks in src/jmh can measure it
+    CustomerResponse mapToResponse(Customer customer) {
+        CustomerResponse response = new CustomerResponse();
+        response.setId(customer.getId());
+        response.setName(customer.getName());
+        response.setEmail(customer.getEmail());
+        response.setAnnualSpend(customer.getAnnualSpend());
+        response.setLastPurchaseDate(customer.getLastPurchaseDate());
+        response.setTier(calculateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate()));
+        response.setVersion(customer.getVersion());
+        return response;
+    }
 
-        return "Silver";
+    String calculateTier(Double spend, Date date) {
+        return tierEvaluator.tier(spend, date);
     }
 
 
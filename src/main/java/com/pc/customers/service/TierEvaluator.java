@@ -0,0 +1,124 @@
+package com.pc.customers.service;
+
+import com.pc.customers.model.Customer;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Tier rules evaluated on epoch millis, without allocating per call.
+ * <p>
+ * "Six months ago" moves in lock-step with the clock within a day: it is the cutoff at today's midnight plus the
+ * time elapsed since then. Those midnight cutoffs are computed with {@link Calendar} once per day, so results are
+ * identical to subtracting months from the current time. On the rare days where a DST transition falls on or next to
+ * today or a cutoff day, that shortcut doesn't hold and the evaluator falls back to {@link Calendar} arithmetic.
+ */
+@Component
+public class TierEvaluator {
+
+    private final Clock clock;
+    private volatile Cutoffs cutoffs;
+
+    public TierEvaluator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public TierEvaluator(Clock clock) {
+        this.clock = clock;
+    }
+
+    public String tier(Double spend, Date lastPurchaseDate) {
+        if (spend == null || spend < 1000 || lastPurchaseDate == null) {
+            return Customer.TIER_SILVER;
+        }
+        long now = clock.millis();
+        long purchase = lastPurchaseDate.getTime();
+        if (spend < 10000) {
+            return purchase > twelveMonthsBefore(now) ? Customer.TIER_GOLD : Customer.TIER_SILVER;
+        }
+        if (spend >= 10000) {
+            return purchase > sixMonthsBefore(now) ? Customer.TIER_PLATINUM : Customer.TIER_SILVER;
+        }
+        return Customer.TIER_SILVER; // NaN
+    }
+
+    public long now() {
+        return clock.millis();
+    }
+
+    public long sixMonthsBefore(long now) {
+        Cutoffs day = cutoffsFor(now);
+        return day.exact ? day.sixMonthsAgo + (now - day.start) : monthsBefore(now, 6);
+    }
+
+    public long twelveMonthsBefore(long now) {
+        Cutoffs day = cutoffsFor(now);
+        return day.exact ? day.twelveMonthsAgo + (now - day.start) : monthsBefore(now, 12);
+    }
+
+    private Cutoffs cutoffsFor(long now) {
+        Cutoffs day = cutoffs;
+        if (day == null || now < day.start || now >= day.end) {
+            day = new Cutoffs(now, clock.getZone());
+            cutoffs = day;
+        }
+        return day;
+    }
+
+    private long monthsBefore(long now, int months) {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(clock.getZone()));
+        cal.setTimeInMillis(now);
+        cal.add(Calendar.MONTH, -months);
+        return cal.getTimeInMillis();
+    }
+
+    private static final class Cutoffs {
+        private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+        private final long start;
+        private final long end;
+        private final long sixMonthsAgo;
+        private final long twelveMonthsAgo;
+        private final boolean exact;
+
+        private Cutoffs(long now, ZoneId zone) {
+            Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(zone));
+            cal.setTimeInMillis(now);
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+            cal.set(Calendar.MINUTE, 0);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            start = cal.getTimeInMillis();
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+            end = cal.getTimeInMillis();
+
+            cal.setTimeInMillis(start);
+            cal.add(Calendar.MONTH, -6);
+            sixMonthsAgo = cal.getTimeInMillis();
+            cal.setTimeInMillis(start);
+            cal.add(Calendar.MONTH, -12);
+            twelveMonthsAgo = cal.getTimeInMillis();
+
+            ZoneRules rules = zone.getRules();
+            long length = end - start;
+            exact = sameOffset(rules, start, length) && sameOffset(rules, sixMonthsAgo, length)
+                    && sameOffset(rules, twelveMonthsAgo, length);
+        }
+
+        // No offset change within a day either side of [from, from + length): wall-clock time and elapsed time
+        // advance together. The margin covers zones whose transitions skip midnight itself.
+        private static boolean sameOffset(ZoneRules rules, long from, long length) {
+            Instant first = Instant.ofEpochMilli(from - DAY_MILLIS);
+            Instant last = Instant.ofEpochMilli(from + length + DAY_MILLIS);
+            ZoneOffsetTransition next = rules.nextTransition(first);
+            return next == null || next.getInstant().isAfter(last);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pc.customers.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically demotes customers whose Gold or Platinum window has passed, and fills in tiers for rows
+ * written before the tier column existed. Runs shortly after startup and then every
+ * {@code customers.tier.recompute-interval}.
+ */
+@Component
+public class TierRecomputeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(TierRecomputeJob.class);
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Value("${customers.tier.recompute-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${customers.tier.recompute-chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Scheduled(initialDelayString = "${customers.tier.recompute-initial-delay:PT30S}",
+            fixedDelayString = "${customers.tier.recompute-interval:PT1H}")
+    public void recompute() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int recomputed = customerService.recomputeStaleTiers(Math.max(1, chunkSize));
+            if (recomputed > 0) {
+                logger.info("Recomputed tier of {} customers in {} ms", recomputed, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (Exception e) {
+            logger.error("Tier recompute failed", e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.pc.customers.service;
+
+import com.pc.customers.dao.ITierSummaryDAO;
+import com.pc.customers.dto.TierSummaryResponse;
+import com.pc.customers.model.Customer;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Exact count and total annual spend per stored tier, kept in the {@code tier_summary} table so reading it never
+ * touches {@code customers}. Writers describe what they changed in a {@link Delta} and {@link #apply(Delta)} it in
+ * the same transaction, so the summary commits or rolls back with the customers.
+ * <p>
+ * Each tier is spread over {@code customers.summary.slots} rows and a customer always lands in the slot picked by
+ * its id, so concurrent writes seldom wait on the same row lock. Rows are updated in (tier, slot) order to keep
+ * writers from deadlocking on each other. An empty table is filled from {@code customers} once, at startup, before
+ * the application takes requests.
+ */
+@Service
+public class TierSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TierSummaryService.class);
+
+    static final List<String> TIERS = List.of(Customer.TIER_PLATINUM, Customer.TIER_GOLD, Customer.TIER_SILVER);
+    static final int SPEND_SCALE = 6;
+
+    @Autowired
+    private ITierSummaryDAO tierSummaryDAO;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${customers.summary.slots:8}")
+    private int slots = 8;
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<String> existing = new HashSet<>();
+                tierSummaryDAO.findSlots().forEach(row -> existing.add(row[0] + "#" + row[1]));
+                Map<String, BigDecimal[]> totals = existing.isEmpty() ? summarizeCustomers() : Map.of();
+                for (String tier : TIERS) {
+                    for (int slot = 0; slot < slotCount(); slot++) {
+                        if (!existing.contains(tier + "#" + slot)) {
+                            // an empty table gets each tier's totals in slot 0; later slots start from zero
+                            BigDecimal[] total = slot == 0 ? totals.get(tier) : null;
+                            tierSummaryDAO.insert(tier, slot, total != null ? total[0].longValue() : 0,
+                                    total != null ? total[1] : BigDecimal.ZERO);
+                        }
+                    }
+                }
+                if (existing.isEmpty()) {
+                    logger.info("Tier summary built from customers: {}", totals.keySet());
+                }
+            });
+        } catch (Exception e) {
+            // another instance may have filled the table first; its rows are as good as ours
+            logger.error("Could not initialize the tier summary", e);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the summary. Must run in the transaction that made the changes it describes.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void apply(Delta delta) {
+        Map<String, Map<Integer, BigDecimal[]>> bySlot = new TreeMap<>();
+        for (Change change : delta.changes) {
+            BigDecimal[] total = bySlot.computeIfAbsent(change.tier, tier -> new TreeMap<>())
+                    .computeIfAbsent(slotOf(change.id), slot -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            total[0] = total[0].add(BigDecimal.valueOf(change.customers));
+            total[1] = total[1].add(change.spend);
+        }
+        bySlot.forEach((tier, slots) -> slots.forEach((slot, total) -> {
+            if (total[0].signum() != 0 || total[1].signum() != 0) {
+                if (tierSummaryDAO.add(tier, slot, total[0].longValue(), total[1]) == 0) {
+                    logger.warn("Tier summary has no row for {} slot {}; restart to rebuild it", tier, slot);
+                }
+            }
+        }));
+    }
+
+    public TierSummaryResponse getSummary() {
+        Map<String, TierSummaryResponse.TierTotals> tiers = new LinkedHashMap<>();
+        TIERS.forEach(tier -> tiers.put(tier, new TierSummaryResponse.TierTotals(0, BigDecimal.ZERO)));
+        long customers = 0;
+        BigDecimal totalSpend = BigDecimal.ZERO;
+        for (Object[] row : tierSummaryDAO.findTotals()) {
+            long count = ((Number) row[1]).longValue();
+            BigDecimal spend = row[2] != null ? (BigDecimal) row[2] : BigDecimal.ZERO;
+            tiers.put((String) row[0], new TierSummaryResponse.TierTotals(count, spend));
+            customers += count;
+            totalSpend = totalSpend.add(spend);
+        }
+        return new TierSummaryResponse(customers, totalSpend, tiers);
+    }
+
+    private Map<String, BigDecimal[]> summarizeCustomers() {
+        Map<String, BigDecimal[]> totals = new LinkedHashMap<>();
+        for (Object[] row : tierSummaryDAO.summarizeCustomers()) {
+            long count = ((Number) row[2]).longValue();
+            BigDecimal[] total = totals.computeIfAbsent((String) row[0], tier -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            total[0] = total[0].add(BigDecimal.valueOf(count));
+            total[1] = total[1].add(spendOf((Double) row[1]).multiply(BigDecimal.valueOf(count)));
+        }
+        return totals;
+    }
+
+    private int slotOf(UUID id) {
+        return id == null ? 0 : Math.floorMod(id.hashCode(), slotCount());
+    }
+
+    private int slotCount() {
+        return Math.max(1, slots);
+    }
+
+    // rounded the way the column stores it, so every write adds and later subtracts exactly the same amount
+    static BigDecimal spendOf(Double annualSpend) {
+        return annualSpend == null ? BigDecimal.ZERO : BigDecimal.valueOf(annualSpend).setScale(SPEND_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * What a write did to the tiers: customers that entered a tier with some spend, and customers that left one.
+     * Customers without a stored tier are not counted anywhere.
+     */
+    public static final class Delta {
+
+        private final List<Change> changes = new ArrayList<>();
+
+        public Delta added(UUID id, String tier, Double annualSpend) {
+            if (tier != null) {
+                changes.add(new Change(id, tier, 1, spendOf(annualSpend)));
+            }
+            return this;
+        }
+
+        public Delta added(Customer customer) {
+            return added(customer.getId(), customer.getTier(), customer.getAnnualSpend());
+        }
+
+        public Delta removed(UUID id, String tier, Double annualSpend) {
+            if (tier != null) {
+                changes.add(new Change(id, tier, -1, spendOf(annualSpend).negate()));
+            }
+            return this;
+        }
+
+        /**
+         * @param rows {@code [UUID id, String tier, Double annualSpend, ...]}, as read by
+         * {@link com.pc.customers.dao.ICustomerDAO#lockTiersAndSpend} or returned by the DAO's deletes
+         */
+        public Delta removed(List<Object[]> rows) {
+            rows.forEach(row -> removed((UUID) row[0], (String) row[1], (Double) row[2]));
+            return this;
+        }
+
+        public Delta added(List<Object[]> rows) {
+            rows.forEach(row -> added((UUID) row[0], (String) row[1], (Double) row[2]));
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+    }
+
+    private static final class Change {
+        private final UUID id;
+        private final String tier;
+        private final int customers;
+        private final BigDecimal spend;
+
+        private Change(UUID id, String tier, int customers, BigDecimal spend) {
+            this.id = id;
+            this.tier = tier;
+            this.customers = customers;
+            this.spend = spend;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.pc.customers.util;
+
+/**
+ * Strong entity tags for a customer's representation, built from its row version and its current tier. The version
+ * alone isn't enough: the tier in a response is derived from the clock, so an untouched customer can still drop out
+ * of Gold or Platinum.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @return the quoted tag, or null for a customer that has no version yet
+     */
+    public static String of(Long version, String tier) {
+        return version == null ? null : "\"" + version + "-" + tier + "\"";
+    }
+
+    /**
+     * @return the tag of the gzip-encoded body whose identity body has {@code eTag}: as a strong tag promises
+     * byte-identical bodies, the encoded one gets its own, e.g. {@code "7-Gold-gzip"}
+     */
+    public static String gzip(String eTag) {
+        return eTag == null ? null : eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Like {@link #matches}, but also accepts the {@link #gzip} tag of the same customer state, which a client that
+     * received the gzip-encoded body sends back.
+     *
+     * @return the tag of the matching representation, or null if neither matches
+     */
+    public static String matchingEncoding(String header, String eTag, boolean weak) {
+        if (matches(header, eTag, weak)) {
+            return eTag;
+        }
+        String gzip = gzip(eTag);
+        return matches(header, gzip, weak) ? gzip : null;
+    }
+
+    /**
+     * Checks {@code eTag} against an {@code If-Match} or {@code If-None-Match} value: {@code *} or a comma-separated
+     * list of tags. {@code If-Match} uses the strong comparison, where weak {@code W/} tags never match;
+     * {@code If-None-Match} uses the weak one, which ignores the prefix.
+     */
+    public static boolean matches(String header, String eTag, boolean weak) {
+        if (header == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pc.customers.util;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Orders UUIDs the way the database does: as unsigned 128-bit values, which is also the lexicographic order of
+ * their lower-case string form. {@link UUID#compareTo} compares signed longs and disagrees for half the id space.
+ */
+public final class UuidOrder {
+
+    public static final Comparator<UUID> COMPARATOR = UuidOrder::compare;
+
+    private UuidOrder() {
+    }
+
+    public static int compare(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
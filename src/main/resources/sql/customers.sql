@@ -7,16 +7,52 @@ CREATE TABLE customers (
   id CHAR(36) PRIMARY KEY,  -- UUID stored as a 36-character string
   name VARCHAR(100),
   email VARCHAR(100),
+  email_normalized VARCHAR(100), -- LOWER(TRIM(email)), used for case-insensitive lookups
   annual_spend DOUBLE,
-  last_purchase_date DATE
+  last_purchase_date DATE,
+  tier VARCHAR(16), -- Silver/Gold/Platinum as of the last write or recompute; NULL until first computed
+  version BIGINT DEFAULT 0 NOT NULL -- optimistic lock, bumped by every update
+);
+
+CREATE INDEX idx_customers_email_normalized ON customers (email_normalized);
+CREATE INDEX idx_customers_tier ON customers (tier, id);
+CREATE INDEX idx_customers_tier_last_purchase ON customers (tier, last_purchase_date);
+-- Range filters on GET /customers: the range column leads, id follows for keyset paging
+CREATE INDEX idx_customers_spend ON customers (annual_spend, id, last_purchase_date);
+CREATE INDEX idx_customers_last_purchase ON customers (last_purchase_date, id, annual_spend);
+
+-- Per-tier totals for GET /customers/summary; left empty here and filled from customers at the next startup
+DROP TABLE IF EXISTS tier_summary;
+
+CREATE TABLE tier_summary (
+  tier VARCHAR(16) NOT NULL,
+  slot INT NOT NULL, -- each tier is striped over customers.summary.slots rows
+  customers BIGINT NOT NULL,
+  total_spend DECIMAL(38, 6) NOT NULL,
+  PRIMARY KEY (tier, slot)
+);
+
+-- Customer changes waiting for the outbox relay; rows are deleted once they are in the change log
+DROP TABLE IF EXISTS customer_outbox;
+DROP SEQUENCE IF EXISTS customer_outbox_seq;
+
+CREATE SEQUENCE customer_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE customer_outbox (
+  id BIGINT PRIMARY KEY,
+  customer_id UUID NOT NULL,
+  type VARCHAR(16) NOT NULL,
+  version BIGINT,
+  payload CLOB,
+  occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
 );
 
 -- Inserting data
 
 -- Insert sample data
-INSERT INTO customers (id, name, email, annual_spend, last_purchase_date)
+INSERT INTO customers (id, name, email, email_normalized, annual_spend, last_purchase_date)
 VALUES
-('550e8400-e29b-41d4-a716-446655440000', 'Priya Sharma', 'priya@example.com', 950.50, '2023-04-12'),
-('123e4567-e89b-12d3-a456-426614174000', 'Raj Patel', 'raj@example.com', 1500.00, '2024-11-10'),
-('f47ac10b-58cc-4372-a567-0e02b2c3d479', 'Anjali Mehta', 'anjali@example.com', 10500.75, '2025-03-01'),
-('e0a953fc-d83d-4fc0-a55e-d4d40dd7fc4e', 'Vikram Rao', 'vikram@example.com', 8000.00, '2024-07-15');
+('550e8400-e29b-41d4-a716-446655440000', 'Priya Sharma', 'priya@example.com', 'priya@example.com', 950.50, '2023-04-12'),
+('123e4567-e89b-12d3-a456-426614174000', 'Raj Patel', 'raj@example.com', 'raj@example.com', 1500.00, '2024-11-10'),
+('f47ac10b-58cc-4372-a567-0e02b2c3d479', 'Anjali Mehta', 'anjali@example.com', 'anjali@example.com', 10500.75, '2025-03-01'),
+('e0a953fc-d83d-4fc0-a55e-d4d40dd7fc4e', 'Vikram Rao', 'vikram@example.com', 'vikram@example.com', 8000.00, '2024-07-15');
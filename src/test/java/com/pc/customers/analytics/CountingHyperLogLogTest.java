@@ -0,0 +1,58 @@
+package com.pc.customers.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingHyperLogLogTest {
+
+    @Test
+    void estimate_shouldBeExactForSmallCounts_andIgnoreDuplicates() {
+        CountingHyperLogLog sketch = new CountingHyperLogLog();
+        for (int i = 0; i < 3; i++) {
+            sketch.add(CountingHyperLogLog.cellOf("example.com"));
+            sketch.add(CountingHyperLogLog.cellOf("example.org"));
+        }
+
+        assertEquals(2, sketch.estimate());
+    }
+
+    @Test
+    void estimate_shouldBeWithinThreeStandardErrors() {
+        CountingHyperLogLog sketch = new CountingHyperLogLog();
+        int distinct = 200_000;
+        for (int i = 0; i < distinct; i++) {
+            sketch.add(CountingHyperLogLog.cellOf("domain-" + i + ".com"));
+        }
+
+        assertEquals(distinct, sketch.estimate(), distinct * 3 * CountingHyperLogLog.STANDARD_ERROR);
+    }
+
+    @Test
+    void remove_shouldDropKeyOnlyWhenItsLastValueGoes() {
+        CountingHyperLogLog sketch = new CountingHyperLogLog();
+        int cell = CountingHyperLogLog.cellOf("example.com");
+        sketch.add(cell);
+        sketch.add(cell);
+        sketch.add(CountingHyperLogLog.cellOf("example.org"));
+
+        sketch.remove(cell);
+        assertEquals(2, sketch.estimate());
+        sketch.remove(cell);
+        assertEquals(1, sketch.estimate());
+    }
+
+    @Test
+    void merge_shouldCountTheUnion() {
+        CountingHyperLogLog left = new CountingHyperLogLog();
+        CountingHyperLogLog right = new CountingHyperLogLog();
+        left.add(CountingHyperLogLog.cellOf("a.com"));
+        left.add(CountingHyperLogLog.cellOf("b.com"));
+        right.add(CountingHyperLogLog.cellOf("b.com"));
+        right.add(CountingHyperLogLog.cellOf("c.com"));
+
+        left.merge(right);
+
+        assertEquals(3, left.estimate());
+    }
+}
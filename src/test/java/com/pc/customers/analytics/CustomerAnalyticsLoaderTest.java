@@ -0,0 +1,65 @@
+package com.pc.customers.analytics;
+
+import com.pc.customers.dao.ICustomerDAO;
+import com.pc.customers.util.UuidOrder;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerAnalyticsLoaderTest {
+
+    @Test
+    void boundary_shouldSplitIdSpaceEvenly() {
+        assertEquals(new UUID(0, 0), CustomerAnalyticsLoader.boundary(0, 4));
+        assertEquals(UUID.fromString("7fffffff-ffff-ffff-0000-000000000000"), CustomerAnalyticsLoader.boundary(1, 2));
+        assertTrue(UuidOrder.compare(CustomerAnalyticsLoader.boundary(2, 4), CustomerAnalyticsLoader.boundary(3, 4)) < 0);
+    }
+
+    @Test
+    void load_shouldScanEachRangeAndMergeThem() {
+        ICustomerDAO dao = mock(ICustomerDAO.class);
+        UUID middle = CustomerAnalyticsLoader.boundary(1, 2);
+        when(dao.findAnalyticsRows(isNull(), eq(middle), anyInt())).thenReturn(List.<Object[]>of(
+                new Object[]{UUID.randomUUID(), 100.0, "a@one.com", null}));
+        when(dao.findAnalyticsRows(eq(middle), isNull(), anyInt())).thenReturn(List.<Object[]>of(
+                new Object[]{UUID.randomUUID(), 300.0, "b@two.com", null}));
+        CustomerAnalytics analytics = new CustomerAnalytics(true);
+        CustomerColumns columns = new CustomerColumns(true, "");
+        CustomerAnalyticsLoader loader = new CustomerAnalyticsLoader(dao, analytics, columns);
+        ReflectionTestUtils.setField(loader, "threads", 2);
+
+        loader.load();
+
+        assertTrue(analytics.isReady());
+        assertEquals(2, analytics.size());
+        assertEquals(2, analytics.distinctEmailDomains());
+        assertEquals(300.0, analytics.spendQuantile(1.0), 3.0);
+        assertTrue(columns.isReady());
+        assertEquals(2, columns.size());
+        assertEquals(400.0, columns.rank(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, CustomerColumns.NO_DAY, 10)
+                .getTotalSpend());
+    }
+
+    @Test
+    void load_shouldBuildSnapshotWithAnalyticsDisabled() {
+        ICustomerDAO dao = mock(ICustomerDAO.class);
+        when(dao.findAnalyticsRows(any(), any(), anyInt())).thenReturn(List.<Object[]>of(
+                new Object[]{UUID.randomUUID(), 100.0, "a@one.com", null}));
+        CustomerAnalytics analytics = new CustomerAnalytics(false);
+        CustomerColumns columns = new CustomerColumns(true, "");
+        CustomerAnalyticsLoader loader = new CustomerAnalyticsLoader(dao, analytics, columns);
+        ReflectionTestUtils.setField(loader, "threads", 1);
+
+        loader.load();
+
+        assertFalse(analytics.isReady());
+        assertTrue(columns.isReady());
+        assertEquals(1, columns.size());
+    }
+}
@@ -0,0 +1,132 @@
+package com.pc.customers.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerAnalyticsTest {
+
+    private static final Date MARCH_2024 = new Date(1709856000000L); // 2024-03-08T00:00Z
+
+    private CustomerAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        analytics = new CustomerAnalytics(true);
+        analytics.markReady();
+    }
+
+    @Test
+    void written_shouldReplaceStoredValues() {
+        UUID id = UUID.randomUUID();
+        analytics.written(null, 100.0, "a@one.com", MARCH_2024);
+
+        analytics.written(stored(id, 100.0, "a@one.com", MARCH_2024), 900.0, "a@two.com", null);
+
+        assertEquals(1, analytics.size());
+        assertEquals(900.0, analytics.spendQuantile(0.5), 9.0);
+        assertEquals(1, analytics.distinctEmailDomains());
+        assertTrue(analytics.purchasesByMonth().isEmpty());
+    }
+
+    @Test
+    void removed_shouldTakeCustomerOutOfEverySketch() {
+        UUID id = UUID.randomUUID();
+        analytics.written(null, 100.0, "a@one.com", MARCH_2024);
+        analytics.written(null, 200.0, "b@ONE.com ", MARCH_2024);
+
+        analytics.removed(stored(id, 100.0, "a@one.com", MARCH_2024));
+
+        assertEquals(1, analytics.size());
+        assertEquals(200.0, analytics.spendQuantile(0.0), 2.0);
+        assertEquals(1, analytics.distinctEmailDomains());
+        assertEquals(Map.of(YearMonth.of(2024, 3), 1L), analytics.purchasesByMonth());
+    }
+
+    @Test
+    void addLoaded_shouldCountWritesDuringTheScanOnce() {
+        analytics = new CustomerAnalytics(true);
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        UUID created = new UUID(0, 4);
+        CustomerAnalytics.ScanRange range = analytics.scanRange(null, null);
+        CustomerAnalytics.Sketches partial = new CustomerAnalytics.Sketches();
+        analytics.addLoaded(partial, range, List.<Object[]>of(new Object[]{first, 1.0, "a@one.com", null}));
+
+        // first was already scanned, second and third are written before the scan reaches them
+        Object[] firstRow = stored(first, 1.0, "a@one.com", null);
+        analytics.beforeWrite(first, firstRow);
+        analytics.written(firstRow, 500.0, "a@one.com", null);
+        Object[] secondRow = stored(second, 1.0, "b@two.com", null);
+        analytics.beforeWrite(second, secondRow);
+        analytics.written(secondRow, 700.0, "b@two.com", null);
+        Object[] thirdRow = stored(third, 1.0, "c@three.com", MARCH_2024);
+        analytics.beforeWrite(third, thirdRow);
+        analytics.removed(thirdRow);
+        analytics.beforeWrite(created, null);
+        analytics.written(null, 900.0, "d@four.com", null);
+
+        // the scan's snapshot still has second and third as they were
+        analytics.addLoaded(partial, range, List.<Object[]>of(
+                new Object[]{second, 1.0, "b@two.com", null},
+                new Object[]{third, 1.0, "c@three.com", MARCH_2024}));
+        analytics.merge(partial);
+        analytics.markReady();
+
+        assertTrue(analytics.isReady());
+        assertEquals(3, analytics.size());
+        assertEquals(500.0, analytics.spendQuantile(0.0), 5.0);
+        assertEquals(3, analytics.distinctEmailDomains());
+        assertTrue(analytics.purchasesByMonth().isEmpty());
+    }
+
+    @Test
+    void abandon_shouldStopHoldingBackWrites() {
+        analytics = new CustomerAnalytics(true);
+        analytics.scanRange(null, null);
+
+        analytics.abandon();
+        analytics.beforeWrite(UUID.randomUUID(), null);
+        analytics.markReady();
+
+        assertEquals(0, analytics.size());
+    }
+
+    @Test
+    void written_shouldBeIgnoredWhenDisabled() {
+        analytics = new CustomerAnalytics(false);
+
+        analytics.written(null, 100.0, "a@one.com", MARCH_2024);
+
+        assertEquals(0, analytics.size());
+        assertNull(analytics.spendQuantile(0.5));
+    }
+
+    @Test
+    void domainOf_shouldNormalizeAndRejectMalformedEmails() {
+        assertEquals("example.com", CustomerAnalytics.domainOf(" Someone@Example.COM"));
+        assertNull(CustomerAnalytics.domainOf("no-at-sign"));
+        assertNull(CustomerAnalytics.domainOf("trailing@"));
+        assertNull(CustomerAnalytics.domainOf(null));
+    }
+
+    @Test
+    void purchasesByMonth_shouldClampDatesOutsideTheRange() {
+        analytics.written(null, null, null, new Date(-86_400_000L)); // 1969-12-31
+
+        assertEquals(Map.of(CustomerAnalytics.FIRST_MONTH, 1L), analytics.purchasesByMonth());
+    }
+
+    // a row as lockTiersAndSpend or a delete returns it
+    private static Object[] stored(UUID id, Double annualSpend, String email, Date lastPurchaseDate) {
+        return new Object[]{id, null, annualSpend, email, lastPurchaseDate};
+    }
+}
@@ -0,0 +1,144 @@
+package com.pc.customers.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerColumnsTest {
+
+    private static final Date MARCH_2024 = new Date(1709856000000L); // 2024-03-08T00:00Z
+    private static final int ANY_DAY = CustomerColumns.NO_DAY;
+
+    private CustomerColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new CustomerColumns(true, "");
+        columns.markReady();
+    }
+
+    @Test
+    void put_shouldReplacePreviousValues() {
+        UUID id = UUID.randomUUID();
+        columns.put(id, 100.0, null);
+
+        columns.put(id, 900.0, MARCH_2024);
+
+        CustomerColumns.Ranking ranking = rankAll(10);
+        assertEquals(1, columns.size());
+        assertEquals(1, ranking.getMatches());
+        assertEquals(900.0, ranking.getTop().get(0).getAnnualSpend());
+        assertEquals(LocalDate.of(2024, 3, 8), ranking.getTop().get(0).getLastPurchaseDate());
+    }
+
+    @Test
+    void remove_shouldFreeRowForReuse() {
+        UUID removed = UUID.randomUUID();
+        columns.put(removed, 100.0, null);
+        columns.remove(removed);
+        UUID added = UUID.randomUUID();
+
+        columns.put(added, 200.0, null);
+
+        CustomerColumns.Ranking ranking = rankAll(10);
+        assertEquals(1, columns.size());
+        assertEquals(1, ranking.getMatches());
+        assertEquals(added, ranking.getTop().get(0).getId());
+    }
+
+    @Test
+    void rank_shouldFilterAndKeepHighestSpends() {
+        for (int i = 1; i <= 100; i++) {
+            columns.put(UUID.randomUUID(), i * 10.0, i % 2 == 0 ? MARCH_2024 : null);
+        }
+        columns.put(UUID.randomUUID(), null, MARCH_2024);
+
+        CustomerColumns.Ranking all = rankAll(3);
+        assertEquals(100, all.getMatches());
+        assertEquals(50_500.0, all.getTotalSpend());
+        assertEquals(List.of(1000.0, 990.0, 980.0), all.getTop().stream().map(CustomerColumns.Ranked::getAnnualSpend).toList());
+
+        CustomerColumns.Ranking range = columns.rank(100.0, 200.0, CustomerColumns.epochDayOf(MARCH_2024), 100);
+        assertEquals(6, range.getMatches());
+        assertEquals(900.0, range.getTotalSpend());
+        assertEquals(200.0, range.getTop().get(0).getAnnualSpend());
+    }
+
+    @Test
+    void rank_shouldScanEverySegment() {
+        List<Object[]> page = new ArrayList<>();
+        for (int i = 0; i < CustomerColumns.SEGMENT_ROWS + 10; i++) {
+            page.add(new Object[]{UUID.randomUUID(), (double) i, null, null});
+        }
+        CustomerColumns loading = new CustomerColumns(true, "");
+
+        loading.addLoaded(page);
+        loading.markReady();
+
+        CustomerColumns.Ranking ranking = loading.rank(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, ANY_DAY, 2);
+        assertEquals(page.size(), ranking.getMatches());
+        assertEquals(page.get(page.size() - 1)[0], ranking.getTop().get(0).getId());
+        assertEquals(CustomerColumns.SEGMENT_ROWS + 8.0, ranking.getTop().get(1).getAnnualSpend());
+    }
+
+    @Test
+    void addLoaded_shouldNotOverwriteLiveWrites() {
+        CustomerColumns loading = new CustomerColumns(true, "");
+        UUID updated = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        loading.put(updated, 500.0, null);
+        loading.remove(deleted);
+
+        loading.addLoaded(List.<Object[]>of(new Object[]{updated, 100.0, null, null}, new Object[]{deleted, 100.0, null, null}));
+        loading.markReady();
+
+        assertEquals(1, loading.size());
+        assertEquals(500.0, loading.rank(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, ANY_DAY, 10).getTotalSpend());
+    }
+
+    @Test
+    void mappedDirectory_shouldHoldColumnsInFiles(@TempDir Path directory) {
+        CustomerColumns mapped = new CustomerColumns(true, directory.toString());
+        mapped.markReady();
+        UUID id = UUID.randomUUID();
+
+        mapped.put(id, 250.0, MARCH_2024);
+
+        assertTrue(mapped.isReady());
+        assertEquals(id, mapped.rank(0.0, 1000.0, ANY_DAY, 1).getTop().get(0).getId());
+    }
+
+    @Test
+    void disabled_shouldIgnoreWrites() {
+        CustomerColumns disabled = new CustomerColumns(false, "");
+
+        disabled.put(UUID.randomUUID(), 100.0, null);
+
+        assertFalse(disabled.isReady());
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void topN_shouldKeepLargestValues() {
+        CustomerColumns.TopN top = new CustomerColumns.TopN(3);
+        for (int i = 0; i < 10; i++) {
+            top.offer((i * 7) % 10, i);
+        }
+
+        assertEquals(3, top.size());
+        assertEquals(7.0, top.cutoff());
+    }
+
+    private CustomerColumns.Ranking rankAll(int limit) {
+        return columns.rank(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, ANY_DAY, limit);
+    }
+}
@@ -0,0 +1,76 @@
+package com.pc.customers.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantile_shouldBeWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2 + 8); // log-normal, like spend
+            sketch.add(QuantileSketch.slotOf(values[i]));
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.99, 1.0}) {
+            double exact = values[(int) Math.ceil(q * values.length) - 1];
+            assertEquals(exact, sketch.quantile(q), exact * QuantileSketch.RELATIVE_ACCURACY, "q=" + q);
+        }
+    }
+
+    @Test
+    void quantile_shouldUseNearestRank() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(QuantileSketch.slotOf(100));
+        sketch.add(QuantileSketch.slotOf(1000));
+
+        assertEquals(100, sketch.quantile(0.5), 1);
+        assertEquals(1000, sketch.quantile(0.51), 10);
+        assertEquals(1000, sketch.quantile(0.99), 10);
+    }
+
+    @Test
+    void remove_shouldUndoAdd() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(QuantileSketch.slotOf(10));
+        sketch.add(QuantileSketch.slotOf(5000));
+
+        sketch.remove(QuantileSketch.slotOf(5000));
+
+        assertEquals(1, sketch.count());
+        assertEquals(10, sketch.quantile(0.99), 0.1);
+    }
+
+    @Test
+    void merge_shouldAddCounts() {
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        low.add(QuantileSketch.slotOf(1));
+        high.add(QuantileSketch.slotOf(1000));
+        high.add(QuantileSketch.slotOf(1000));
+
+        low.merge(high);
+
+        assertEquals(3, low.count());
+        assertEquals(1000, low.quantile(0.5), 10);
+    }
+
+    @Test
+    void shouldKeepZeroAndClampOutOfRangeValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(QuantileSketch.slotOf(0));
+        sketch.add(QuantileSketch.slotOf(1e15));
+
+        assertEquals(0.0, sketch.quantile(0));
+        assertEquals(QuantileSketch.MAX_VALUE, sketch.quantile(1), QuantileSketch.MAX_VALUE * QuantileSketch.RELATIVE_ACCURACY);
+        assertNull(new QuantileSketch().quantile(0.5));
+    }
+}
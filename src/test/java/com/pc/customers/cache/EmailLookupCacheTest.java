@@ -0,0 +1,111 @@
+package com.pc.customers.cache;
+
+import com.pc.customers.datasource.ReplicaReads;
+import com.pc.customers.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailLookupCacheTest {
+
+    private EmailLookupCache cache;
+    private Customer customer;
+    private AtomicInteger loads;
+    private Function<String, List<Customer>> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EmailLookupCache(100, Duration.ofMinutes(1));
+        customer = new Customer("Test Name", "test@example.com");
+        customer.setId(UUID.randomUUID());
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            return "test@example.com".equals(email) ? List.of(customer) : List.of();
+        };
+    }
+
+    @Test
+    void get_shouldLoadOncePerNormalizedEmail() {
+        assertEquals(List.of(customer), cache.get("test@example.com", loader));
+        assertEquals(List.of(customer), cache.get(" TEST@example.COM", loader));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldCacheEmptyResults() {
+        assertTrue(cache.get("nobody@example.com", loader).isEmpty());
+        assertTrue(cache.get("nobody@example.com", loader).isEmpty());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldBypassCache_whenEmailIsNull() {
+        cache.get(null, loader);
+        cache.get(null, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_shouldForceReload() {
+        cache.get("test@example.com", loader);
+
+        cache.invalidate("Test@Example.com");
+        cache.get("test@example.com", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateCustomer_shouldDropEntryContainingCustomer() {
+        cache.get("test@example.com", loader);
+
+        cache.invalidateCustomer(customer.getId());
+        cache.get("test@example.com", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateCustomer_shouldIgnoreUnknownIds() {
+        cache.get("test@example.com", loader);
+
+        cache.invalidateCustomer(UUID.randomUUID());
+        cache.get("test@example.com", loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldNotKeepResult_whenInvalidatedDuringLoad() {
+        List<Customer> loaded = cache.get("test@example.com", email -> {
+            loads.incrementAndGet();
+            cache.invalidate(email); // a write committing while the query runs
+            return List.of(customer);
+        });
+
+        assertEquals(List.of(customer), loaded);
+        assertNull(cache.getCache().getIfPresent("test@example.com"));
+        cache.get("test@example.com", loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_shouldNotCacheReplicaReads() {
+        assertEquals(List.of(customer), ReplicaReads.onReplica(() -> cache.get("test@example.com", loader)));
+        cache.get("test@example.com", loader);
+        cache.get("test@example.com", loader);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,81 @@
+package com.pc.customers.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncodedResponseCacheTest {
+
+    private EncodedResponseCache cache;
+    private UUID id;
+    private AtomicInteger encodes;
+    private Supplier<byte[]> json;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EncodedResponseCache(true, DataSize.ofMegabytes(1));
+        id = UUID.randomUUID();
+        encodes = new AtomicInteger();
+        json = () -> {
+            encodes.incrementAndGet();
+            return "{\"name\":\"Test Name\"}".getBytes(StandardCharsets.UTF_8);
+        };
+    }
+
+    @Test
+    void get_shouldEncodeOncePerETag() {
+        EncodedResponseCache.Entry first = cache.get(id, "\"0-Gold\"", json);
+        EncodedResponseCache.Entry second = cache.get(id, "\"0-Gold\"", json);
+
+        assertSame(first, second);
+        assertEquals(1, encodes.get());
+    }
+
+    @Test
+    void get_shouldReencode_whenVersionOrTierChanged() {
+        cache.get(id, "\"0-Gold\"", json);
+        cache.get(id, "\"0-Silver\"", json); // the purchase window lapsed
+        EncodedResponseCache.Entry entry = cache.get(id, "\"1-Silver\"", json);
+
+        assertEquals(3, encodes.get());
+        assertEquals("\"1-Silver\"", entry.getETag());
+    }
+
+    @Test
+    void invalidate_shouldDropEntry() {
+        cache.get(id, "\"0-Gold\"", json);
+        cache.invalidate(id);
+        cache.get(id, "\"0-Gold\"", json);
+
+        assertEquals(2, encodes.get());
+    }
+
+    @Test
+    void get_shouldNotKeepEntries_whenDisabled() {
+        EncodedResponseCache disabled = new EncodedResponseCache(false, DataSize.ofMegabytes(1));
+        disabled.get(id, "\"0-Gold\"", json);
+        disabled.get(id, "\"0-Gold\"", json);
+
+        assertEquals(2, encodes.get());
+        assertEquals(0, disabled.getCache().estimatedSize());
+    }
+
+    @Test
+    void entry_shouldHoldGzipOfJson() throws IOException {
+        EncodedResponseCache.Entry entry = cache.get(id, "\"0-Gold\"", json);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.getGzip()))) {
+            assertArrayEquals(entry.getJson(), in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pc.customers.controller;
+
+import com.pc.customers.dto.ConsumerOffset;
+import com.pc.customers.exception.InvalidChangeRequestException;
+import com.pc.customers.outbox.ChangeLog;
+import com.pc.customers.outbox.ChangeStream;
+import com.pc.customers.outbox.ConsumerOffsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerChangeControllerTest {
+
+    @InjectMocks
+    private CustomerChangeController controller;
+
+    @Mock
+    private ChangeStream changeStream;
+
+    @Mock
+    private ChangeLog changeLog;
+
+    @Mock
+    private ConsumerOffsets consumerOffsets;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(changeLog.endOffset()).thenReturn(100L);
+    }
+
+    @Test
+    void stream_shouldResumeAfterLastEventId_beforeAnythingElse() throws Exception {
+        when(consumerOffsets.get("billing")).thenReturn(40L);
+
+        controller.stream(10L, "billing", "41");
+        controller.stream(10L, "billing", null);
+        controller.stream(null, "billing", null);
+        controller.stream(null, null, null);
+
+        InOrder order = inOrder(changeStream);
+        order.verify(changeStream).subscribe(42);
+        order.verify(changeStream).subscribe(10);
+        order.verify(changeStream).subscribe(40);
+        order.verify(changeStream).subscribe(100);
+    }
+
+    @Test
+    void stream_shouldRejectBadLastEventId_andReport503WhenFull() throws Exception {
+        assertThrows(InvalidChangeRequestException.class, () -> controller.stream(null, null, "abc"));
+
+        when(changeStream.subscribe(100)).thenReturn(null);
+        assertEquals(503, controller.stream(null, null, null).getStatusCode().value());
+
+        SseEmitter emitter = new SseEmitter();
+        when(changeStream.subscribe(100)).thenReturn(emitter);
+        assertSame(emitter, controller.stream(null, null, null).getBody());
+    }
+
+    @Test
+    void commit_shouldStoreOffset_upToTheEndOfTheLog() throws Exception {
+        ResponseEntity<ConsumerOffset> response = controller.commit("billing", new ConsumerOffset(null, 100L));
+
+        assertEquals(100L, response.getBody().getOffset());
+        verify(consumerOffsets).commit("billing", 100L);
+        assertThrows(InvalidChangeRequestException.class, () -> controller.commit("billing", new ConsumerOffset(null, 101L)));
+        assertThrows(InvalidChangeRequestException.class, () -> controller.commit("billing", new ConsumerOffset()));
+    }
+
+    @Test
+    void offset_shouldReturn404_forUnknownConsumer() {
+        when(consumerOffsets.get("billing")).thenReturn(7L);
+        // Mockito answers 0L for an unstubbed Long, which would look like a known consumer
+        when(consumerOffsets.get("other")).thenReturn(null);
+
+        assertEquals(7L, controller.offset("billing").getBody().getOffset());
+        assertEquals(404, controller.offset("other").getStatusCode().value());
+    }
+}
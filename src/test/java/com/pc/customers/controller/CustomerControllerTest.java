@@ -1,16 +1,37 @@
 package com.pc.customers.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pc.customers.cache.EncodedResponseCache;
+import com.pc.customers.dto.AnalyticsResponse;
+import com.pc.customers.dto.BatchCreateResponse;
+import com.pc.customers.dto.BulkDeleteResponse;
+import com.pc.customers.dto.CustomerPage;
+import com.pc.customers.dto.CustomerPatchRequest;
 import com.pc.customers.dto.CustomerRequest;
 import com.pc.customers.dto.CustomerResponse;
+import com.pc.customers.dto.LookupResponse;
+import com.pc.customers.dto.PageCursor;
+import com.pc.customers.dto.PurchaseRequest;
+import com.pc.customers.dto.SpendRankingResponse;
+import com.pc.customers.dto.TierSummaryResponse;
+import com.pc.customers.exception.InvalidCursorException;
+import com.pc.customers.exception.InvalidIdListException;
+import com.pc.customers.exception.InvalidRangeException;
+import com.pc.customers.exception.InvalidTierException;
 import com.pc.customers.service.CustomerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,13 +70,112 @@ class CustomerControllerTest {
         assertEquals(response, result.getBody());
     }
 
+    @Test
+    void testAnalytics() {
+        AnalyticsResponse analytics = new AnalyticsResponse();
+        when(customerService.getAnalytics()).thenReturn(analytics);
+
+        ResponseEntity<AnalyticsResponse> result = customerController.analytics();
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertSame(analytics, result.getBody());
+    }
+
+    @Test
+    void testAnalytics_NotReady() {
+        when(customerService.getAnalytics()).thenReturn(null);
+
+        assertEquals(503, customerController.analytics().getStatusCodeValue());
+    }
+
+    @Test
+    void testTopSpenders() {
+        SpendRankingResponse ranking = new SpendRankingResponse();
+        when(customerService.getTopSpenders(1000)).thenReturn(ranking);
+
+        ResponseEntity<SpendRankingResponse> result = customerController.topSpenders(5000);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertSame(ranking, result.getBody());
+        assertEquals(503, customerController.topSpenders(10).getStatusCodeValue());
+    }
+
+    @Test
+    void testSpendRange() {
+        SpendRankingResponse ranking = new SpendRankingResponse();
+        when(customerService.getSpendRange(100.0, 200.0, LocalDate.of(2024, 1, 31), 100)).thenReturn(ranking);
+
+        assertSame(ranking, customerController.spendRange(100.0, 200.0, "2024-01-31", null).getBody());
+        assertThrows(InvalidRangeException.class, () -> customerController.spendRange(200.0, 100.0, null, null));
+        assertThrows(InvalidRangeException.class, () -> customerController.spendRange(null, null, "31/01/2024", null));
+    }
+
+    @Test
+    void testSummary() {
+        TierSummaryResponse summary = new TierSummaryResponse();
+        when(customerService.getTierSummary()).thenReturn(summary);
+
+        ResponseEntity<TierSummaryResponse> result = customerController.summary();
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertSame(summary, result.getBody());
+    }
+
+    @Test
+    void testCreateBatch_AllCreated() {
+        List<CustomerRequest> requests = List.of(new CustomerRequest());
+        BatchCreateResponse response = new BatchCreateResponse();
+        response.setCreated(1);
+
+        when(customerService.createCustomers(requests)).thenReturn(response);
+
+        ResponseEntity<BatchCreateResponse> result = customerController.createBatch(requests);
+
+        assertEquals(201, result.getStatusCodeValue());
+        assertEquals(response, result.getBody());
+    }
+
+    @Test
+    void testCreateBatch_PartialFailure() {
+        List<CustomerRequest> requests = List.of(new CustomerRequest(), new CustomerRequest());
+        BatchCreateResponse response = new BatchCreateResponse();
+        response.setCreated(1);
+        response.setFailed(1);
+
+        when(customerService.createCustomers(requests)).thenReturn(response);
+
+        ResponseEntity<BatchCreateResponse> result = customerController.createBatch(requests);
+
+        assertEquals(207, result.getStatusCodeValue());
+    }
+
+    @Test
+    void testCreateBatch_TooManyItems() {
+        List<CustomerRequest> requests = Collections.nCopies(CustomerController.MAX_BATCH_CREATE + 1, new CustomerRequest());
+
+        assertThrows(InvalidIdListException.class, () -> customerController.createBatch(requests));
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    void testExport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> result = customerController.export();
+        result.getBody().writeTo(out);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals(CustomerController.NDJSON, result.getHeaders().getContentType());
+        verify(customerService).exportCustomers(out);
+    }
+
     @Test
     void testGetById_Found() {
         UUID id = UUID.randomUUID();
         CustomerResponse response = new CustomerResponse();
         when(customerService.getCustomerById(id)).thenReturn(response);
 
-        ResponseEntity<CustomerResponse> result = customerController.getById(id);
+        ResponseEntity<?> result = customerController.getById(id, null, null);
 
         assertEquals(200, result.getStatusCodeValue());
         assertEquals(response, result.getBody());
@@ -66,7 +186,7 @@ class CustomerControllerTest {
         UUID id = UUID.randomUUID();
         when(customerService.getCustomerById(id)).thenReturn(null);
 
-        ResponseEntity<CustomerResponse> result = customerController.getById(id);
+        ResponseEntity<?> result = customerController.getById(id, null, null);
 
         assertEquals(404, result.getStatusCodeValue());
         assertNull(result.getBody());
@@ -75,20 +195,124 @@ class CustomerControllerTest {
     @Test
     void testGetByName() {
         List<CustomerResponse> list = Collections.singletonList(new CustomerResponse());
-        when(customerService.getCustomerByName("John")).thenReturn(list);
+        when(customerService.getCustomerByName("John", null, CustomerController.DEFAULT_PAGE_SIZE)).thenReturn(new CustomerPage(list, null));
+
+        ResponseEntity<List<CustomerResponse>> result = customerController.getByName("John", null, null);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals(list, result.getBody());
+        assertFalse(result.getHeaders().containsKey(CustomerController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetByName_WithCursor() {
+        UUID after = UUID.randomUUID();
+        List<CustomerResponse> list = Collections.singletonList(new CustomerResponse());
+        when(customerService.getCustomerByName("John", after, CustomerController.MAX_PAGE_SIZE)).thenReturn(new CustomerPage(list, "next"));
+
+        ResponseEntity<List<CustomerResponse>> result = customerController.getByName("John", 50_000, PageCursor.encode(after));
+
+        assertEquals(list, result.getBody());
+        assertEquals("next", result.getHeaders().getFirst(CustomerController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetByName_InvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> customerController.getByName("John", 10, "not a cursor"));
+    }
+
+    @Test
+    void testGetByTier_NormalizesTierName() {
+        List<CustomerResponse> list = Collections.singletonList(new CustomerResponse());
+        when(customerService.getCustomersByTier("Platinum", null, 100)).thenReturn(new CustomerPage(list, null));
+
+        ResponseEntity<List<CustomerResponse>> result = customerController.getByTier(" platinum", null, null);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals(list, result.getBody());
+    }
+
+    @Test
+    void testGetByTier_UnknownTier() {
+        assertThrows(InvalidTierException.class, () -> customerController.getByTier("Bronze", null, null));
+        verifyNoInteractions(customerService);
+    }
 
-        ResponseEntity<List<CustomerResponse>> result = customerController.getByName("John");
+    @Test
+    void testGetBySpend() {
+        List<CustomerResponse> list = List.of(new CustomerResponse());
+        Date from = new Date(1709856000000L); // 2024-03-08T00:00Z
+        when(customerService.getCustomersInRange(10000.0, null, from, null, null, 100))
+                .thenReturn(new CustomerPage(list, "next"));
+
+        ResponseEntity<List<CustomerResponse>> result = customerController.getBySpend(10000.0, null, "2024-03-07", null, null, null);
 
         assertEquals(200, result.getStatusCodeValue());
         assertEquals(list, result.getBody());
+        assertEquals("next", result.getHeaders().getFirst(CustomerController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetByLastPurchase_InvalidBounds() {
+        assertThrows(InvalidRangeException.class, () -> customerController.getBySpend(200.0, 100.0, null, null, null, null));
+        assertThrows(InvalidRangeException.class, () -> customerController.getByLastPurchase("last week", null, null, null, null));
+        assertThrows(InvalidCursorException.class, () -> customerController.getByLastPurchase("2024-03-07", null, null, null, "AAAA"));
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    void testLookup() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        LookupResponse response = new LookupResponse();
+        when(customerService.lookupCustomers(ids)).thenReturn(response);
+
+        ResponseEntity<LookupResponse> result = customerController.lookup(ids);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertSame(response, result.getBody());
+    }
+
+    @Test
+    void testLookup_TooManyIds() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i <= CustomerController.MAX_LOOKUP_IDS; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        assertThrows(InvalidIdListException.class, () -> customerController.lookup(ids));
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    void testLookup_NullId() {
+        assertThrows(InvalidIdListException.class, () -> customerController.lookup(Arrays.asList(UUID.randomUUID(), null)));
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    void testDeleteAll() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        BulkDeleteResponse response = new BulkDeleteResponse(2, 1);
+        when(customerService.deleteCustomers(ids)).thenReturn(response);
+
+        ResponseEntity<BulkDeleteResponse> result = customerController.deleteAll(ids);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertSame(response, result.getBody());
+    }
+
+    @Test
+    void testDeleteAll_NullId() {
+        assertThrows(InvalidIdListException.class, () -> customerController.deleteAll(Arrays.asList(UUID.randomUUID(), null)));
+        verifyNoInteractions(customerService);
     }
 
     @Test
     void testGetByEmail() {
         List<CustomerResponse> list = Collections.singletonList(new CustomerResponse());
-        when(customerService.getCustomerByEmail("test@example.com")).thenReturn(list);
+        when(customerService.getCustomerByEmail("test@example.com", null, 5)).thenReturn(new CustomerPage(list, null));
 
-        ResponseEntity<List<CustomerResponse>> result = customerController.getByEmail("test@example.com");
+        ResponseEntity<List<CustomerResponse>> result = customerController.getByEmail("test@example.com", 5, null);
 
         assertEquals(200, result.getStatusCodeValue());
         assertEquals(list, result.getBody());
@@ -100,9 +324,9 @@ class CustomerControllerTest {
         CustomerRequest request = new CustomerRequest();
         CustomerResponse updated = new CustomerResponse();
 
-        when(customerService.updateCustomer(id, request)).thenReturn(updated);
+        when(customerService.updateCustomer(id, request, null)).thenReturn(updated);
 
-        ResponseEntity<CustomerResponse> result = customerController.update(id, request);
+        ResponseEntity<CustomerResponse> result = customerController.update(id, request, null);
 
         assertEquals(200, result.getStatusCodeValue());
         assertEquals(updated, result.getBody());
@@ -113,24 +337,135 @@ class CustomerControllerTest {
         UUID id = UUID.randomUUID();
         CustomerRequest request = new CustomerRequest();
 
-        when(customerService.updateCustomer(id, request)).thenReturn(null);
+        when(customerService.updateCustomer(id, request, null)).thenReturn(null);
 
-        ResponseEntity<CustomerResponse> result = customerController.update(id, request);
+        ResponseEntity<CustomerResponse> result = customerController.update(id, request, null);
 
         assertEquals(404, result.getStatusCodeValue());
     }
 
+    @Test
+    void testPatch_Found() {
+        UUID id = UUID.randomUUID();
+        CustomerPatchRequest request = new CustomerPatchRequest();
+        CustomerResponse patched = new CustomerResponse();
+        when(customerService.patchCustomer(id, request)).thenReturn(patched);
+
+        ResponseEntity<CustomerResponse> result = customerController.patch(id, request);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals(patched, result.getBody());
+    }
+
+    @Test
+    void testPatch_NotFound() {
+        UUID id = UUID.randomUUID();
+        CustomerPatchRequest request = new CustomerPatchRequest();
+        when(customerService.patchCustomer(id, request)).thenReturn(null);
+
+        assertEquals(404, customerController.patch(id, request).getStatusCodeValue());
+    }
+
+    @Test
+    void testRecordPurchase() {
+        UUID id = UUID.randomUUID();
+        PurchaseRequest request = new PurchaseRequest();
+        when(customerService.recordPurchase(id, request)).thenReturn(true, false);
+
+        assertEquals(202, customerController.recordPurchase(id, request).getStatusCodeValue());
+        ResponseEntity<Void> full = customerController.recordPurchase(id, request);
+        assertEquals(503, full.getStatusCodeValue());
+        assertEquals("1", full.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     void testDelete() {
         UUID id = UUID.randomUUID();
 
-        doNothing().when(customerService).deleteCustomer(id);
+        doNothing().when(customerService).deleteCustomer(id, null);
 
-        ResponseEntity<Void> result = customerController.delete(id);
+        ResponseEntity<Void> result = customerController.delete(id, null);
 
         assertEquals(204, result.getStatusCodeValue());
     }
 
+    @Test
+    void testGetById_NotModified() {
+        UUID id = UUID.randomUUID();
+        when(customerService.getCustomerETag(id)).thenReturn("\"3-Gold\"");
+
+        ResponseEntity<?> result = customerController.getById(id, "W/\"3-Gold\"", null);
+
+        assertEquals(304, result.getStatusCodeValue());
+        assertEquals("\"3-Gold\"", result.getHeaders().getETag());
+        assertNull(result.getBody());
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void testGetById_ChangedReturnsBodyWithETag() {
+        UUID id = UUID.randomUUID();
+        CustomerResponse response = new CustomerResponse();
+        response.setVersion(4L);
+        response.setTier("Gold");
+        when(customerService.getCustomerETag(id)).thenReturn("\"4-Gold\"");
+        when(customerService.getCustomerById(id)).thenReturn(response);
+
+        ResponseEntity<?> result = customerController.getById(id, "\"3-Gold\"", null);
+
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("\"4-Gold\"", result.getHeaders().getETag());
+        assertEquals(response, result.getBody());
+    }
+
+    @Test
+    void testDelete_PassesIfMatch() {
+        UUID id = UUID.randomUUID();
+
+        assertEquals(204, customerController.delete(id, "\"3-Gold\"").getStatusCodeValue());
 
+        verify(customerService).deleteCustomer(id, "\"3-Gold\"");
+    }
 
+    @Test
+    void testGetById_EncodedResponse() {
+        UUID id = UUID.randomUUID();
+        EncodedResponseCache.Entry encoded = new EncodedResponseCache(true, DataSize.ofMegabytes(1))
+                .get(id, "\"0-Gold\"", () -> "{}".getBytes(StandardCharsets.UTF_8));
+        when(customerService.isEncodedResponseCacheEnabled()).thenReturn(true);
+        when(customerService.getEncodedCustomer(id)).thenReturn(encoded);
+
+        ResponseEntity<?> plain = customerController.getById(id, null, null);
+        ResponseEntity<?> gzipped = customerController.getById(id, null, "gzip, deflate, br");
+
+        assertArrayEquals(encoded.getJson(), (byte[]) plain.getBody());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(encoded.getGzip(), (byte[]) gzipped.getBody());
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"0-Gold\"", plain.getHeaders().getETag());
+        assertEquals("\"0-Gold-gzip\"", gzipped.getHeaders().getETag());
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void testGetById_NotModified_forGzipETag() {
+        UUID id = UUID.randomUUID();
+        when(customerService.getCustomerETag(id)).thenReturn("\"3-Gold\"");
+
+        ResponseEntity<?> result = customerController.getById(id, "\"3-Gold-gzip\"", "gzip");
+
+        assertEquals(304, result.getStatusCodeValue());
+        assertEquals("\"3-Gold-gzip\"", result.getHeaders().getETag());
+        verify(customerService, never()).getEncodedCustomer(any());
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(CustomerController.acceptsGzip("gzip"));
+        assertTrue(CustomerController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CustomerController.acceptsGzip("*"));
+        assertFalse(CustomerController.acceptsGzip(null));
+        assertFalse(CustomerController.acceptsGzip("deflate, br"));
+        assertFalse(CustomerController.acceptsGzip("*, gzip;q=0"));
+    }
 }
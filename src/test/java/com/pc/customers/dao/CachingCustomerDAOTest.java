@@ -0,0 +1,220 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.datasource.ReplicaReads;
+import com.pc.customers.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingCustomerDAOTest {
+
+    @Mock
+    private ICustomerDAO delegate;
+
+    private CachingCustomerDAO customerDAO;
+    private UUID customerId;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        customerDAO = new CachingCustomerDAO(delegate, 100, Duration.ofMinutes(1));
+
+        customerId = UUID.randomUUID();
+        customer = new Customer("Test Name", "test@example.com");
+        customer.setId(customerId);
+        customer.setAnnualSpend(5000.0);
+        customer.setLastPurchaseDate(new Date());
+        customer.setTier(Customer.TIER_GOLD);
+        when(delegate.findById(customerId)).thenReturn(customer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void findById_shouldServeRepeatReadsFromCache() {
+        Customer first = customerDAO.findById(customerId);
+        Customer second = customerDAO.findById(customerId);
+
+        verify(delegate, times(1)).findById(customerId);
+        assertEquals("Test Name", second.getName());
+        assertEquals("test@example.com", second.getEmailNormalized());
+        assertEquals(Customer.TIER_GOLD, second.getTier());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void findById_shouldReturnCopies_soCallersCannotChangeTheCache() {
+        customerDAO.findById(customerId).setName("Changed");
+
+        assertEquals("Test Name", customerDAO.findById(customerId).getName());
+    }
+
+    @Test
+    void findById_shouldNotCacheMissingCustomers() {
+        UUID missing = UUID.randomUUID();
+
+        assertNull(customerDAO.findById(missing));
+        assertNull(customerDAO.findById(missing));
+
+        verify(delegate, times(2)).findById(missing);
+    }
+
+    @Test
+    void findById_shouldBypassCache_insideTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertSame(customer, customerDAO.findById(customerId));
+        assertSame(customer, customerDAO.findById(customerId));
+
+        verify(delegate, times(2)).findById(customerId);
+        assertEquals(0, customerDAO.getCache().estimatedSize());
+    }
+
+    @Test
+    void findAllById_shouldQueryOnlyIdsMissingFromCache() {
+        customerDAO.findById(customerId);
+        UUID other = UUID.randomUUID();
+        Customer otherCustomer = new Customer(other);
+        otherCustomer.setName("Other");
+        when(delegate.findAllById(Set.of(other))).thenReturn(List.of(otherCustomer));
+
+        List<Customer> result = customerDAO.findAllById(List.of(customerId, other));
+
+        assertEquals(Set.of(customerId, other), result.stream().map(Customer::getId).collect(Collectors.toSet()));
+        verify(delegate).findAllById(Set.of(other));
+        assertEquals("Other", customerDAO.findById(other).getName()); // cached by the bulk load
+        verify(delegate, never()).findById(other);
+    }
+
+    @Test
+    void findAllById_shouldBypassCache_insideTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(delegate.findAllById(List.of(customerId))).thenReturn(List.of(customer));
+
+        assertEquals(List.of(customer), customerDAO.findAllById(List.of(customerId)));
+
+        assertEquals(0, customerDAO.getCache().estimatedSize());
+    }
+
+    @Test
+    void save_shouldInvalidateCachedCustomer() {
+        customerDAO.findById(customerId);
+        when(delegate.save(customer)).thenReturn(customer);
+
+        customerDAO.save(customer);
+        customerDAO.findById(customerId);
+
+        verify(delegate, times(2)).findById(customerId);
+    }
+
+    @Test
+    void deleteById_shouldInvalidateCachedCustomer() {
+        customerDAO.findById(customerId);
+        when(delegate.findById(customerId)).thenReturn(null);
+
+        customerDAO.deleteById(customerId);
+
+        assertNull(customerDAO.findById(customerId));
+        verify(delegate).deleteById(customerId);
+    }
+
+    @Test
+    void deleteAllById_shouldInvalidateDeletedCustomers() {
+        customerDAO.findById(customerId);
+        List<Object[]> rows = List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0});
+        when(delegate.deleteAllById(List.of(customerId))).thenReturn(rows);
+
+        assertEquals(rows, customerDAO.deleteAllById(List.of(customerId)));
+        customerDAO.findById(customerId);
+
+        verify(delegate, times(2)).findById(customerId);
+    }
+
+    @Test
+    void recomputeTiers_shouldInvalidateRecomputedCustomers() {
+        customerDAO.findById(customerId);
+        Date cutoff = new Date();
+
+        customerDAO.recomputeTiers(List.of(customerId), cutoff, cutoff);
+        customerDAO.findById(customerId);
+
+        verify(delegate).recomputeTiers(List.of(customerId), cutoff, cutoff);
+        verify(delegate, times(2)).findById(customerId);
+    }
+
+    @Test
+    void findById_shouldNotCacheLoad_thatRacedAnInvalidation() {
+        when(delegate.save(customer)).thenReturn(customer);
+        when(delegate.findById(customerId)).thenAnswer(invocation -> {
+            customerDAO.save(customer); // a write committing while the query runs
+            return customer;
+        });
+
+        assertEquals("Test Name", customerDAO.findById(customerId).getName());
+
+        assertNull(customerDAO.getCache().getIfPresent(customerId));
+    }
+
+    @Test
+    void patch_shouldInvalidateCachedCustomer() {
+        customerDAO.findById(customerId);
+        Date cutoff = new Date();
+        when(delegate.patch(customerId, 1L, Map.of("name", "New"), cutoff, cutoff)).thenReturn(1);
+
+        assertEquals(1, customerDAO.patch(customerId, 1L, Map.of("name", "New"), cutoff, cutoff));
+        customerDAO.findById(customerId);
+
+        verify(delegate, times(2)).findById(customerId);
+    }
+
+    @Test
+    void findById_shouldCacheVersion() {
+        customer.setVersion(7L);
+
+        customerDAO.findById(customerId);
+
+        assertEquals(7L, customerDAO.findById(customerId).getVersion());
+    }
+
+    @Test
+    void bindTo_shouldPublishHitAndMissCounts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        customerDAO.bindTo(registry);
+
+        customerDAO.findById(customerId);
+        customerDAO.findById(customerId);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", CachingCustomerDAO.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", CachingCustomerDAO.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void findById_shouldNotCacheReplicaReads() {
+        ReplicaReads.onReplica(() -> customerDAO.findById(customerId));
+        ReplicaReads.onReplica(() -> customerDAO.findAllById(List.of(customerId)));
+        customerDAO.findById(customerId);
+        customerDAO.findById(customerId);
+
+        verify(delegate, times(2)).findById(customerId);
+        verify(delegate).findAllById(Set.of(customerId));
+    }
+}
@@ -0,0 +1,204 @@
+package com.pc.customers.dao;
+
+import com.pc.customers.model.Customer;
+import com.pc.customers.util.UuidOrder;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the JPQL that {@link CustomerDAOJpaImpl} assembles at runtime against an in-memory H2 database, which the
+ * mocked {@link CustomerDAOJpaImplTest} can't parse or execute.
+ */
+@DataJpaTest
+@Import(CustomerDAOJpaImpl.class)
+class CustomerDAOJpaImplH2Test {
+
+    private static final long DAY = 86_400_000L;
+    private static final long NOW = 1_735_689_600_000L; // 2025-01-01T00:00Z
+    private static final Date SIX_MONTHS_AGO = new Date(NOW - 183 * DAY);
+    private static final Date TWELVE_MONTHS_AGO = new Date(NOW - 366 * DAY);
+
+    @Autowired
+    private CustomerDAOJpaImpl customerDAO;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = persist("Patched", 500.0, new Date(NOW - 10 * DAY), Customer.TIER_SILVER);
+    }
+
+    @Test
+    void patch_shouldWriteSuppliedColumnsAndDeriveTier() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("annualSpend", 5000.0);
+        values.put("email", " New@Example.COM");
+
+        assertEquals(1, customerDAO.patch(customer.getId(), null, values, SIX_MONTHS_AGO, TWELVE_MONTHS_AGO));
+
+        Customer patched = reload(customer.getId());
+        assertEquals(5000.0, patched.getAnnualSpend());
+        assertEquals("new@example.com", patched.getEmailNormalized());
+        assertEquals("Patched", patched.getName());
+        assertEquals(Customer.TIER_GOLD, patched.getTier());
+        assertEquals(customer.getVersion() + 1, patched.getVersion());
+    }
+
+    @Test
+    void patch_shouldOnlyUpdateExpectedVersion() {
+        Map<String, Object> values = Map.of("name", "Renamed");
+
+        assertEquals(0, customerDAO.patch(customer.getId(), customer.getVersion() + 1, values, SIX_MONTHS_AGO, TWELVE_MONTHS_AGO));
+        assertEquals("Patched", reload(customer.getId()).getName());
+
+        assertEquals(1, customerDAO.patch(customer.getId(), customer.getVersion(), values, SIX_MONTHS_AGO, TWELVE_MONTHS_AGO));
+        assertEquals("Renamed", reload(customer.getId()).getName());
+    }
+
+    @Test
+    void patch_shouldDeriveSilver_whenSpendIsSetToNull() {
+        customer = persist("Big spender", 20000.0, new Date(NOW - DAY), Customer.TIER_PLATINUM);
+        Map<String, Object> values = new HashMap<>();
+        values.put("annualSpend", null);
+
+        assertEquals(1, customerDAO.patch(customer.getId(), customer.getVersion(), values, SIX_MONTHS_AGO, TWELVE_MONTHS_AGO));
+
+        Customer patched = reload(customer.getId());
+        assertNull(patched.getAnnualSpend());
+        assertEquals(Customer.TIER_SILVER, patched.getTier());
+    }
+
+    @Test
+    void recomputeTiers_shouldDemoteLapsedCustomers() {
+        Customer lapsed = persist("Lapsed", 20000.0, new Date(NOW - 200 * DAY), Customer.TIER_PLATINUM);
+        Customer current = persist("Current", 20000.0, new Date(NOW - 100 * DAY), null);
+
+        assertEquals(2, customerDAO.recomputeTiers(List.of(lapsed.getId(), current.getId()), SIX_MONTHS_AGO, TWELVE_MONTHS_AGO));
+
+        assertEquals(Customer.TIER_SILVER, reload(lapsed.getId()).getTier());
+        assertEquals(Customer.TIER_PLATINUM, reload(current.getId()).getTier());
+        assertEquals(lapsed.getVersion(), reload(lapsed.getId()).getVersion());
+    }
+
+    @Test
+    void findBySpendRange_shouldPageInSpendThenIdOrder() {
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.add(persist("Tied " + i, 2000.0, new Date(NOW - DAY), null).getId());
+        }
+        expected.sort(UuidOrder.COMPARATOR);
+        expected.add(persist("Higher", 3000.0, new Date(NOW - DAY), null).getId());
+        persist("Too high", 9000.0, new Date(NOW - DAY), null);
+        persist("Too old", 2500.0, new Date(NOW - 400 * DAY), null);
+        Date from = new Date(NOW - 30 * DAY);
+
+        List<UUID> paged = new ArrayList<>();
+        Double afterSpend = null;
+        UUID afterId = null;
+        List<Customer> page;
+        do {
+            page = customerDAO.findBySpendRange(1000.0, 5000.0, from, null, afterSpend, afterId, 2);
+            for (Customer c : page) {
+                paged.add(c.getId());
+                afterSpend = c.getAnnualSpend();
+                afterId = c.getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void findByLastPurchaseRange_shouldPageInDateThenIdOrder() {
+        Date tied = new Date(NOW - 5 * DAY);
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.add(persist("Tied " + i, 100.0, tied, null).getId());
+        }
+        expected.sort(UuidOrder.COMPARATOR);
+        expected.add(0, customer.getId()); // NOW - 10 days
+        persist("Before", 100.0, new Date(NOW - 40 * DAY), null);
+        persist("Too much", 8000.0, tied, null);
+        persist("Never", 100.0, null, null);
+
+        List<UUID> paged = new ArrayList<>();
+        Date afterDate = null;
+        UUID afterId = null;
+        List<Customer> page;
+        do {
+            page = customerDAO.findByLastPurchaseRange(new Date(NOW - 30 * DAY), new Date(NOW), 1000.0, afterDate, afterId, 2);
+            for (Customer c : page) {
+                paged.add(c.getId());
+                afterDate = c.getLastPurchaseDate();
+                afterId = c.getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void deleteById_shouldReturnTheDeletedRow() {
+        List<Object[]> deleted = customerDAO.deleteById(customer.getId());
+
+        assertEquals(1, deleted.size());
+        Object[] row = deleted.get(0);
+        assertArrayEquals(new Object[]{customer.getId(), Customer.TIER_SILVER, 500.0, "patched@example.com"},
+                Arrays.copyOf(row, 4));
+        assertEquals(NOW - 10 * DAY, ((Date) row[4]).getTime());
+        assertNull(reload(customer.getId()));
+        assertTrue(customerDAO.deleteById(customer.getId()).isEmpty());
+    }
+
+    @Test
+    void deleteById_shouldOnlyDeleteExpectedVersion() {
+        assertTrue(customerDAO.deleteById(customer.getId(), customer.getVersion() + 1).isEmpty());
+        assertNotNull(reload(customer.getId()));
+
+        assertEquals(1, customerDAO.deleteById(customer.getId(), customer.getVersion()).size());
+        assertNull(reload(customer.getId()));
+    }
+
+    @Test
+    void deleteAllById_shouldReturnTheDeletedRows() {
+        Customer other = persist("Other", null, null, null);
+
+        List<Object[]> deleted = customerDAO.deleteAllById(List.of(customer.getId(), other.getId(), UUID.randomUUID()));
+
+        assertEquals(2, deleted.size());
+        Object[] otherRow = deleted.stream().filter(row -> other.getId().equals(row[0])).findFirst().orElseThrow();
+        assertArrayEquals(new Object[]{other.getId(), null, null, "other@example.com", null}, otherRow);
+    }
+
+    private Customer persist(String name, Double annualSpend, Date lastPurchaseDate, String tier) {
+        Customer c = new Customer(name, name.replace(' ', '.').toLowerCase() + "@example.com");
+        c.setAnnualSpend(annualSpend);
+        c.setLastPurchaseDate(lastPurchaseDate);
+        c.setTier(tier);
+        entityManager.persist(c);
+        entityManager.flush();
+        return c;
+    }
+
+    private Customer reload(UUID id) {
+        entityManager.clear(); // bulk updates bypass the persistence context
+        return entityManager.find(Customer.class, id);
+    }
+}
@@ -3,11 +3,19 @@ package com.pc.customers.dao;
 import com.pc.customers.model.Customer;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -56,36 +64,89 @@ class CustomerDAOJpaImplTest {
 
         when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
         when(typedQuery.setParameter(eq("name"), anyString())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(21)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(expectedList);
 
-        List<Customer> result = customerDAO.findByName(name);
+        List<Customer> result = customerDAO.findByName(name, null, 21);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(customer, result.get(0));
 
-        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE LOWER(c.name) LIKE LOWER(:name)", Customer.class);
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE LOWER(c.name) LIKE LOWER(:name) ORDER BY c.id", Customer.class);
         verify(typedQuery).setParameter("name", "%" + name + "%");
+        verify(typedQuery).setMaxResults(21);
         verify(typedQuery).getResultList();
     }
 
+    @Test
+    void findByName_shouldSeekPastCursor() {
+        when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(customer));
+
+        customerDAO.findByName("test", customerId, 10);
+
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE LOWER(c.name) LIKE LOWER(:name) AND c.id > :after ORDER BY c.id", Customer.class);
+        verify(typedQuery).setParameter("after", customerId);
+    }
+
+    @Test
+    void findBySpendRange_shouldSeekPastValueAndId() {
+        when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(customer));
+        Date since = new Date(1709856000000L);
+
+        customerDAO.findBySpendRange(10000.0, null, since, null, 12000.0, customerId, 10);
+
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE c.annualSpend >= :minSpend"
+                + " AND c.lastPurchaseDate >= :purchasedFrom"
+                + " AND c.annualSpend >= :afterValue AND (c.annualSpend > :afterValue OR c.id > :afterId)"
+                + " ORDER BY c.annualSpend, c.id", Customer.class);
+        verify(typedQuery).setParameter("minSpend", 10000.0);
+        verify(typedQuery).setParameter("purchasedFrom", since);
+        verify(typedQuery).setParameter("afterValue", 12000.0);
+        verify(typedQuery).setParameter("afterId", customerId);
+        verify(typedQuery).setMaxResults(10);
+    }
+
+    @Test
+    void findByLastPurchaseRange_shouldOrderByDate() {
+        when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(customer));
+        Date since = new Date(1709856000000L);
+
+        customerDAO.findByLastPurchaseRange(since, null, 500.0, null, null, 10);
+
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE c.lastPurchaseDate IS NOT NULL"
+                + " AND c.lastPurchaseDate >= :purchasedFrom AND c.annualSpend <= :maxSpend"
+                + " ORDER BY c.lastPurchaseDate, c.id", Customer.class);
+        verify(typedQuery, never()).setParameter(eq("afterId"), any());
+    }
+
     @Test
     void findByEmail_shouldReturnListOfCustomers() {
-        String email = "test@example.com";
+        String email = "Test@Example.com ";
         List<Customer> expectedList = List.of(customer);
 
         when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
-        when(typedQuery.setParameter(eq("email"), eq(email))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(eq("email"), eq("test@example.com"))).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(5)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(expectedList);
 
-        List<Customer> result = customerDAO.findByEmail(email);
+        List<Customer> result = customerDAO.findByEmail(email, null, 5);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(customer, result.get(0));
 
-        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE c.email = :email", Customer.class);
-        verify(typedQuery).setParameter("email", email);
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE c.emailNormalized = :email ORDER BY c.id", Customer.class);
+        verify(typedQuery).setParameter("email", "test@example.com");
         verify(typedQuery).getResultList();
     }
 
@@ -102,22 +163,242 @@ class CustomerDAOJpaImplTest {
     }
 
     @Test
-    void deleteById_shouldRemoveCustomerIfExists() {
-        when(entityManager.find(Customer.class, customerId)).thenReturn(customer);
+    void deleteById_shouldIssueOneDeleteStatementReturningTheRow() {
+        jakarta.persistence.Query delete = mock(jakarta.persistence.Query.class);
+        Object[] row = {customerId, Customer.TIER_GOLD, 5000.0};
+        when(entityManager.createNativeQuery(
+                "SELECT id, tier, annual_spend, email, last_purchase_date FROM OLD TABLE (DELETE FROM customers WHERE id = :id)",
+                Customer.STORED_VALUES))
+                .thenReturn(delete);
+        when(delete.setParameter("id", customerId)).thenReturn(delete);
+        when(delete.getResultList()).thenReturn(List.<Object[]>of(row));
+
+        assertEquals(List.<Object[]>of(row), customerDAO.deleteById(customerId));
+
+        verify(delete).getResultList();
+        verify(entityManager, never()).find(any(), any());
+        verify(entityManager, never()).remove(any());
+    }
 
-        customerDAO.deleteById(customerId);
+    @Test
+    void deleteById_shouldOnlyDeleteExpectedVersion() {
+        jakarta.persistence.Query delete = mock(jakarta.persistence.Query.class);
+        when(entityManager.createNativeQuery(
+                "SELECT id, tier, annual_spend, email, last_purchase_date FROM OLD TABLE (DELETE FROM customers"
+                        + " WHERE id = :id AND version = :version)", Customer.STORED_VALUES)).thenReturn(delete);
+        when(delete.setParameter(anyString(), any())).thenReturn(delete);
+        when(delete.getResultList()).thenReturn(List.of());
 
-        verify(entityManager).find(Customer.class, customerId);
-        verify(entityManager).remove(customer);
+        assertTrue(customerDAO.deleteById(customerId, 2L).isEmpty());
+
+        verify(delete).setParameter("version", 2L);
     }
 
     @Test
-    void deleteById_shouldNotRemoveIfCustomerNotFound() {
-        when(entityManager.find(Customer.class, customerId)).thenReturn(null);
+    void deleteAllById_shouldDeleteInChunks() {
+        jakarta.persistence.Query delete = mock(jakarta.persistence.Query.class);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < CustomerDAOJpaImpl.IN_CHUNK_SIZE + 1; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        ids.add(ids.get(0)); // duplicates are deleted once
+        when(entityManager.createNativeQuery(
+                "SELECT id, tier, annual_spend, email, last_purchase_date FROM OLD TABLE (DELETE FROM customers WHERE id IN (:ids))",
+                Customer.STORED_VALUES))
+                .thenReturn(delete);
+        when(delete.setParameter(anyString(), any())).thenReturn(delete);
+        Object[] first = {ids.get(0), Customer.TIER_SILVER, 10.0};
+        Object[] last = {ids.get(CustomerDAOJpaImpl.IN_CHUNK_SIZE), Customer.TIER_SILVER, 20.0};
+        when(delete.getResultList()).thenReturn(List.<Object[]>of(first), List.<Object[]>of(last));
+
+        assertEquals(List.of(first, last), customerDAO.deleteAllById(ids));
+
+        verify(delete).setParameter("ids", ids.subList(0, CustomerDAOJpaImpl.IN_CHUNK_SIZE));
+        verify(delete).setParameter("ids", ids.subList(CustomerDAOJpaImpl.IN_CHUNK_SIZE, CustomerDAOJpaImpl.IN_CHUNK_SIZE + 1));
+        verify(delete, times(2)).getResultList();
+    }
 
-        customerDAO.deleteById(customerId);
+    @Test
+    void saveAll_shouldPersistEachCustomerAndFlushOnce() {
+        Customer other = new Customer("Other", "other@example.com");
+
+        List<Customer> result = customerDAO.saveAll(List.of(customer, other));
+
+        assertEquals(2, result.size());
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).persist(customer);
+        inOrder.verify(entityManager).persist(other);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        verify(entityManager, never()).merge(any());
+    }
 
-        verify(entityManager).find(Customer.class, customerId);
-        verify(entityManager, never()).remove(any());
+    @Test
+    void findAllById_shouldQueryInChunks() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < CustomerDAOJpaImpl.IN_CHUNK_SIZE + 1; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        when(entityManager.createQuery("SELECT c FROM Customer c WHERE c.id IN :ids", Customer.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter(eq("ids"), any())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(customer));
+
+        List<Customer> result = customerDAO.findAllById(ids);
+
+        assertEquals(2, result.size());
+        verify(typedQuery).setParameter("ids", ids.subList(0, CustomerDAOJpaImpl.IN_CHUNK_SIZE));
+        verify(typedQuery).setParameter("ids", ids.subList(CustomerDAOJpaImpl.IN_CHUNK_SIZE, ids.size()));
+    }
+
+    @Test
+    void findIdsAndNames_shouldPageByIdAfterCursor() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object[]> rowQuery = mock(TypedQuery.class);
+        List<Object[]> rows = List.<Object[]>of(new Object[]{customerId, "Test Name"});
+        when(entityManager.createQuery("SELECT c.id, c.name FROM Customer c WHERE c.id > :after ORDER BY c.id", Object[].class)).thenReturn(rowQuery);
+        when(rowQuery.setParameter("after", customerId)).thenReturn(rowQuery);
+        when(rowQuery.setMaxResults(10)).thenReturn(rowQuery);
+        when(rowQuery.getResultList()).thenReturn(rows);
+
+        assertEquals(rows, customerDAO.findIdsAndNames(customerId, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamAll_shouldScrollAndClearEveryFetchSizeRows() {
+        Session session = mock(Session.class);
+        Query<Customer> query = mock(Query.class);
+        ScrollableResults<Customer> results = mock(ScrollableResults.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.createQuery("SELECT c FROM Customer c ORDER BY c.id", Customer.class)).thenReturn(query);
+        when(query.setFetchSize(2)).thenReturn(query);
+        when(query.setReadOnly(true)).thenReturn(query);
+        when(query.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(results);
+        when(results.next()).thenReturn(true, true, true, false);
+        when(results.get()).thenReturn(customer);
+        List<Customer> seen = new ArrayList<>();
+
+        long count = customerDAO.streamAll(2, seen::add);
+
+        assertEquals(3, count);
+        assertEquals(3, seen.size());
+        verify(entityManager, times(1)).clear();
+        verify(results).close();
+    }
+
+    @Test
+    void findByTier_shouldPageThroughTierIndex() {
+        when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(customer));
+
+        assertEquals(List.of(customer), customerDAO.findByTier(Customer.TIER_GOLD, customerId, 10));
+
+        verify(entityManager).createQuery("SELECT c FROM Customer c WHERE c.tier = :tier AND c.id > :after ORDER BY c.id", Customer.class);
+        verify(typedQuery).setParameter("tier", "Gold");
+        verify(typedQuery).setParameter("after", customerId);
+        verify(typedQuery).setMaxResults(10);
+    }
+
+    @Test
+    void findIdsWithStaleTier_shouldSelectMissingAndLapsedTiers() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<UUID> idQuery = mock(TypedQuery.class);
+        Date sixMonthsAgo = new Date(1_000);
+        Date twelveMonthsAgo = new Date(500);
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        when(entityManager.createQuery(jpql.capture(), eq(UUID.class))).thenReturn(idQuery);
+        when(idQuery.setParameter(anyString(), any())).thenReturn(idQuery);
+        when(idQuery.setMaxResults(100)).thenReturn(idQuery);
+        when(idQuery.getResultList()).thenReturn(List.of(customerId));
+
+        assertEquals(List.of(customerId), customerDAO.findIdsWithStaleTier(sixMonthsAgo, twelveMonthsAgo, null, 100));
+
+        assertEquals("SELECT c.id FROM Customer c WHERE (c.tier IS NULL"
+                + " OR (c.tier = 'Gold' AND c.lastPurchaseDate <= :twelveMonthsAgo)"
+                + " OR (c.tier = 'Platinum' AND c.lastPurchaseDate <= :sixMonthsAgo)) ORDER BY c.id", jpql.getValue());
+        verify(idQuery).setParameter("sixMonthsAgo", sixMonthsAgo);
+        verify(idQuery).setParameter("twelveMonthsAgo", twelveMonthsAgo);
+        verify(idQuery, never()).setParameter(eq("after"), any());
+    }
+
+    @Test
+    void recomputeTiers_shouldBulkUpdateInChunks() {
+        jakarta.persistence.Query update = mock(jakarta.persistence.Query.class);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < CustomerDAOJpaImpl.IN_CHUNK_SIZE + 1; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        when(entityManager.createQuery(startsWith("UPDATE Customer c SET c.tier = CASE"))).thenReturn(update);
+        when(update.setParameter(anyString(), any())).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(CustomerDAOJpaImpl.IN_CHUNK_SIZE, 1);
+
+        int updated = customerDAO.recomputeTiers(ids, new Date(), new Date());
+
+        assertEquals(ids.size(), updated);
+        verify(update).setParameter("ids", ids.subList(0, CustomerDAOJpaImpl.IN_CHUNK_SIZE));
+        verify(update).setParameter("ids", ids.subList(CustomerDAOJpaImpl.IN_CHUNK_SIZE, ids.size()));
+        verify(update, times(2)).executeUpdate();
+    }
+
+    @Test
+    void patch_shouldUpdateOnlySuppliedColumns_byIdAndVersion() {
+        jakarta.persistence.Query update = mock(jakarta.persistence.Query.class);
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        when(entityManager.createQuery(jpql.capture())).thenReturn(update);
+        when(update.setParameter(anyString(), any())).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("email", " New@Example.com");
+        values.put("annualSpend", 2000.0);
+
+        assertEquals(1, customerDAO.patch(customerId, 3L, values, new Date(), new Date()));
+
+        assertEquals("UPDATE Customer c SET c.version = c.version + 1, c.email = :email, c.annualSpend = :annualSpend,"
+                + " c.emailNormalized = :emailNormalized, c.tier = CASE"
+                + " WHEN :annualSpend IS NULL OR :annualSpend < 1000 THEN 'Silver'"
+                + " WHEN :annualSpend < 10000 AND c.lastPurchaseDate > :twelveMonthsAgo THEN 'Gold'"
+                + " WHEN :annualSpend >= 10000 AND c.lastPurchaseDate > :sixMonthsAgo THEN 'Platinum'"
+                + " ELSE 'Silver' END WHERE c.id = :id AND c.version = :version", jpql.getValue());
+        verify(update).setParameter("email", " New@Example.com");
+        verify(update).setParameter("emailNormalized", "new@example.com");
+        verify(update).setParameter("annualSpend", 2000.0);
+        verify(update).setParameter("id", customerId);
+        verify(update).setParameter("version", 3L);
+        verify(entityManager, never()).find(any(), any());
+    }
+
+    @Test
+    void patch_shouldSkipVersionCheck_whenNoVersionGiven() {
+        jakarta.persistence.Query update = mock(jakarta.persistence.Query.class);
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        when(entityManager.createQuery(jpql.capture())).thenReturn(update);
+        when(update.setParameter(anyString(), any())).thenReturn(update);
+
+        customerDAO.patch(customerId, null, Map.of("name", "New Name"), new Date(), new Date());
+
+        assertTrue(jpql.getValue().endsWith(" WHERE c.id = :id"));
+        assertTrue(jpql.getValue().contains("c.annualSpend IS NULL"));
+        verify(update, never()).setParameter(eq("version"), any());
+    }
+
+    @Test
+    void patch_shouldRejectUnknownFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> customerDAO.patch(customerId, null, Map.of("tier = 'Platinum', c.name", "x"), new Date(), new Date()));
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void findVersion_shouldReturnNull_whenCustomerDoesNotExist() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<Long> versionQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery("SELECT c.version FROM Customer c WHERE c.id = :id", Long.class)).thenReturn(versionQuery);
+        when(versionQuery.setParameter("id", customerId)).thenReturn(versionQuery);
+        when(versionQuery.getResultList()).thenReturn(List.of(), List.of(4L));
+
+        assertNull(customerDAO.findVersion(customerId));
+        assertEquals(4L, customerDAO.findVersion(customerId));
     }
 }
@@ -0,0 +1,77 @@
+package com.pc.customers.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesFilterTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private ReadYourWritesFilter filter;
+    private Boolean pinned;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ReadYourWritesFilter(Duration.ofSeconds(5), Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+        chain = (request, response) -> pinned = ReadRouting.isPinnedToPrimary();
+    }
+
+    @Test
+    void write_shouldSetCookie_andStayOnPrimary() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", "/customers/1"), response, chain);
+
+        assertTrue(pinned);
+        assertEquals(Long.toString(NOW), response.getCookie(ReadYourWritesFilter.COOKIE).getValue());
+        assertEquals(5, response.getCookie(ReadYourWritesFilter.COOKIE).getMaxAge());
+        assertFalse(ReadRouting.isPinnedToPrimary());
+    }
+
+    @Test
+    void read_shouldStayOnPrimary_rightAfterWrite() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(NOW - 2000)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertTrue(pinned);
+    }
+
+    @Test
+    void read_shouldBeFreeToUseReplicas_onceWindowPassed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(NOW - 6000)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertFalse(pinned);
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE));
+        filter.doFilter(new MockHttpServletRequest("GET", "/customers/1"), new MockHttpServletResponse(), chain);
+        assertFalse(pinned);
+    }
+
+    @Test
+    void pinnedThread_shouldNotEnterReplicaReads() {
+        ReadRouting.pinToPrimary();
+        try {
+            assertFalse(ReplicaReads.onReplica(ReadRouting::isReplicaRead));
+        } finally {
+            ReadRouting.unpin();
+        }
+        assertTrue(ReplicaReads.onReplica(ReadRouting::isReplicaRead));
+    }
+}
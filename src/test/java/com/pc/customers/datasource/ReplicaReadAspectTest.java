@@ -0,0 +1,52 @@
+package com.pc.customers.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaReadAspectTest {
+
+    private Reads reads;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reads());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ReplicaReadAspect());
+        reads = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void shouldRouteAnnotatedMethodsToReplica_onlyWhileTheyRun() {
+        assertTrue(reads.annotated());
+        assertFalse(reads.plain());
+        assertFalse(ReadRouting.isReplicaRead());
+    }
+
+    @Test
+    void shouldStayOnPrimary_insideTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertFalse(reads.annotated());
+    }
+
+    static class Reads {
+        @ReplicaRead
+        public boolean annotated() {
+            return ReadRouting.isReplicaRead();
+        }
+
+        public boolean plain() {
+            return ReadRouting.isReplicaRead();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.pc.customers.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Test helper: runs code the way a {@link ReplicaRead} method runs, for tests outside this package.
+ */
+public final class ReplicaReads {
+
+    private ReplicaReads() {
+    }
+
+    public static <T> T onReplica(Supplier<T> read) {
+        boolean entered = ReadRouting.enterReplica();
+        try {
+            return read.get();
+        } finally {
+            if (entered) {
+                ReadRouting.exitReplica();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.pc.customers.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource first;
+
+    @Mock
+    private HikariDataSource second;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(first, second));
+    }
+
+    @Test
+    void getConnection_shouldUsePrimary_outsideReplicaReads() throws SQLException {
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        verifyNoInteractions(first, second);
+    }
+
+    @Test
+    void getConnection_shouldAlternateReplicas_inReplicaReads() {
+        List<Connection> connections = ReplicaReads.onReplica(() -> List.of(
+                connection(), connection(), connection()));
+
+        assertEquals(List.of(firstConnection, secondConnection, firstConnection), connections);
+    }
+
+    @Test
+    void getConnection_shouldSkipFailingReplica_andFallBackToPrimary() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLException("Connection is not available"));
+
+        assertSame(secondConnection, ReplicaReads.onReplica(this::connection));
+
+        when(second.getConnection()).thenThrow(new SQLException("Connection is not available"));
+        assertSame(primaryConnection, ReplicaReads.onReplica(this::connection));
+    }
+
+    @Test
+    void getConnection_withCredentials_shouldUsePrimary() throws SQLException {
+        when(primary.getConnection("reporting", "secret")).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, ReplicaReads.onReplica(() -> {
+            try {
+                return dataSource.getConnection("reporting", "secret");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        verifyNoInteractions(first, second);
+    }
+
+    @Test
+    void close_shouldCloseReplicaPools() {
+        dataSource.close();
+
+        verify(first).close();
+        verify(second).close();
+    }
+
+    private Connection connection() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.pc.customers.dto;
+
+import com.pc.customers.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encode_shouldRoundTrip() {
+        UUID id = UUID.randomUUID();
+
+        String cursor = PageCursor.encode(id);
+
+        assertEquals(id, PageCursor.decode(cursor));
+        assertFalse(cursor.contains(id.toString()));
+    }
+
+    @Test
+    void decode_shouldReturnNull_forMissingCursor() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    void decode_shouldRejectGarbage() {
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("AAAA"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.pc.customers.dto;
+
+import com.pc.customers.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeCursorTest {
+
+    @Test
+    void encode_shouldRoundTripSpend() {
+        UUID id = UUID.randomUUID();
+
+        RangeCursor cursor = RangeCursor.decode(RangeCursor.bySpend(10500.75, id).encode());
+
+        assertTrue(cursor.isBySpend());
+        assertEquals(10500.75, cursor.getAnnualSpend());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void encode_shouldRoundTripLastPurchaseDate() {
+        UUID id = UUID.randomUUID();
+        Date date = new Date(1709856000000L);
+
+        RangeCursor cursor = RangeCursor.decode(RangeCursor.byLastPurchase(date, id).encode());
+
+        assertFalse(cursor.isBySpend());
+        assertEquals(date, cursor.getLastPurchaseDate());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void decode_shouldRejectGarbage() {
+        assertNull(RangeCursor.decode(null));
+        assertThrows(InvalidCursorException.class, () -> RangeCursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> RangeCursor.decode(PageCursor.encode(UUID.randomUUID())));
+    }
+}
@@ -0,0 +1,60 @@
+package com.pc.customers.importer;
+
+import com.pc.customers.dto.CustomerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvCustomerParserTest {
+
+    @Test
+    void parse_shouldMapColumnsByHeaderName() {
+        CsvCustomerParser parser = new CsvCustomerParser("email, last_purchase_date ,Name,annualSpend");
+
+        CustomerRequest request = parser.parse("raj@example.com,2024-05-01,Raj Patel,1500.5");
+
+        assertEquals("Raj Patel", request.getName());
+        assertEquals("raj@example.com", request.getEmail());
+        assertEquals(1500.5, request.getAnnualSpend());
+        assertEquals(Date.from(Instant.parse("2024-05-01T00:00:00Z")), request.getLastPurchaseDate());
+    }
+
+    @Test
+    void parse_shouldTreatEmptyAndMissingFieldsAsNull() {
+        CsvCustomerParser parser = new CsvCustomerParser("name,email,annual_spend,last_purchase_date");
+
+        CustomerRequest request = parser.parse("Raj Patel,");
+
+        assertEquals("Raj Patel", request.getName());
+        assertNull(request.getEmail());
+        assertNull(request.getAnnualSpend());
+        assertNull(request.getLastPurchaseDate());
+    }
+
+    @Test
+    void split_shouldHandleQuotedFields() {
+        assertEquals(List.of("Patel, Raj", "say \"hi\"", ""), CsvCustomerParser.split("\"Patel, Raj\",\"say \"\"hi\"\"\","));
+    }
+
+    @Test
+    void parse_shouldReportTheOffendingField() {
+        CsvCustomerParser parser = new CsvCustomerParser("name,annual_spend,last_purchase_date");
+
+        CsvCustomerParser.FieldException spend = assertThrows(CsvCustomerParser.FieldException.class,
+                () -> parser.parse("Raj,lots,2024-05-01"));
+        CsvCustomerParser.FieldException date = assertThrows(CsvCustomerParser.FieldException.class,
+                () -> parser.parse("Raj,10,yesterday"));
+
+        assertEquals("annualSpend", spend.getField());
+        assertEquals("lastPurchaseDate", date.getField());
+    }
+
+    @Test
+    void constructor_shouldRequireNameColumn() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvCustomerParser("email,annual_spend"));
+    }
+}
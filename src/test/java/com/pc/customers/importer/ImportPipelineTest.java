@@ -0,0 +1,139 @@
+package com.pc.customers.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pc.customers.dto.ImportJobStatus;
+import com.pc.customers.dto.ImportRowError;
+import com.pc.customers.model.Customer;
+import com.pc.customers.service.CustomerService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPipelineTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Customer> saved = Collections.synchronizedList(new ArrayList<>());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void run_shouldImportValidCsvRows_andReportFailedLines() throws Exception {
+        Path file = Files.writeString(dir.resolve("customers.csv"), String.join("\n",
+                "name,email,annual_spend,last_purchase_date",
+                "Priya Sharma,priya@example.com,1500,2024-05-01",
+                ",blank@example.com,10,",
+                "Raj Patel,not-an-email,,",
+                "",
+                "Anjali Mehta,anjali@example.com,abc,",
+                "Vikram Rao,vikram@example.com,,"));
+        ImportJob job = new ImportJob(ImportFormat.CSV, 100);
+
+        pipeline(job, 2, this::saveAll).run(file);
+
+        ImportJobStatus status = job.toStatus();
+        assertEquals(5, status.getRowsRead());
+        assertEquals(2, status.getRowsImported());
+        assertEquals(3, status.getRowsFailed());
+        assertEquals(List.of(3L, 4L, 6L), lines(status));
+        assertEquals(Set.of("Priya Sharma", "Vikram Rao"), saved.stream().map(Customer::getName).collect(Collectors.toSet()));
+        assertEquals(1500.0, saved.stream().filter(c -> "Priya Sharma".equals(c.getName())).findFirst().get().getAnnualSpend());
+    }
+
+    @Test
+    void run_shouldImportNdjson_acrossManyBatches() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("{\"name\":\"Customer ").append(i).append("\",\"email\":\"c").append(i).append("@example.com\"}\n");
+        }
+        content.append("{not json}\n");
+        content.append("null\n");
+        Path file = Files.writeString(dir.resolve("customers.ndjson"), content);
+        ImportJob job = new ImportJob(ImportFormat.NDJSON, 100);
+
+        pipeline(job, 7, this::saveAll).run(file);
+
+        ImportJobStatus status = job.toStatus();
+        assertEquals(1002, status.getRowsRead());
+        assertEquals(1000, status.getRowsImported());
+        assertEquals(List.of(1001L, 1002L), lines(status));
+        assertFalse(job.isAborted());
+        assertEquals(1000, saved.size());
+    }
+
+    @Test
+    void run_shouldReportRowsTheWriterRejects() throws Exception {
+        Path file = Files.writeString(dir.resolve("customers.ndjson"),
+                "{\"name\":\"Priya\"}\n{\"name\":\"Raj\"}\n{\"name\":\"Anjali\"}\n");
+        ImportJob job = new ImportJob(ImportFormat.NDJSON, 100);
+
+        pipeline(job, 10, customers -> {
+            Map<Integer, String> failures = new HashMap<>();
+            for (int i = 0; i < customers.size(); i++) {
+                if ("Raj".equals(customers.get(i).getName())) {
+                    failures.put(i, "duplicate");
+                }
+            }
+            return failures;
+        }).run(file);
+
+        ImportJobStatus status = job.toStatus();
+        assertEquals(2, status.getRowsImported());
+        assertEquals(List.of(2L), lines(status));
+        assertEquals("duplicate", status.getErrors().get(0).getErrors().get(0).get("defaultMessage"));
+    }
+
+    @Test
+    void run_shouldAbort_whenTheWriterFails() throws Exception {
+        Path file = Files.writeString(dir.resolve("customers.ndjson"), "{\"name\":\"Priya\"}\n".repeat(100));
+        ImportJob job = new ImportJob(ImportFormat.NDJSON, 100);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline(job, 10, customers -> {
+            throw new IllegalStateException("database down");
+        }).run(file));
+
+        assertEquals("database down", thrown.getMessage());
+        assertTrue(job.isAborted());
+    }
+
+    @Test
+    void run_shouldCapReportedErrors() throws Exception {
+        Path file = Files.writeString(dir.resolve("customers.ndjson"), "{\"name\":\"\"}\n".repeat(10));
+        ImportJob job = new ImportJob(ImportFormat.NDJSON, 3);
+
+        pipeline(job, 10, this::saveAll).run(file);
+
+        assertEquals(10, job.toStatus().getRowsFailed());
+        assertEquals(3, job.toStatus().getErrors().size());
+    }
+
+    private ImportPipeline pipeline(ImportJob job, int batchSize,
+                                    java.util.function.Function<List<Customer>, Map<Integer, String>> writer) {
+        return new ImportPipeline(job, validator, objectMapper, new CustomerService()::toCustomer, writer,
+                2, 2, 4, batchSize);
+    }
+
+    private Map<Integer, String> saveAll(List<Customer> customers) {
+        saved.addAll(customers);
+        return Map.of();
+    }
+
+    private static List<Long> lines(ImportJobStatus status) {
+        return status.getErrors().stream().map(ImportRowError::getLine).sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+    }
+}
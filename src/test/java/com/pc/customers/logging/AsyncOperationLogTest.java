@@ -0,0 +1,80 @@
+package com.pc.customers.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncOperationLogTest {
+
+    @Mock
+    private Logger target;
+
+    @Mock
+    private LoggingEventBuilder event;
+
+    private AsyncOperationLog log;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(target.isInfoEnabled()).thenReturn(true);
+        when(target.isWarnEnabled()).thenReturn(true);
+        when(target.atLevel(any())).thenReturn(event);
+        when(event.addKeyValue(anyString(), ArgumentMatchers.<Object>any())).thenReturn(event);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("customers.logging.sample-rate.get-by-id", "0")
+                .withProperty("customers.logging.sample-rate.lookup", "0.5");
+        log = new AsyncOperationLog(environment, 1.0, 4, false);
+        registry = new SimpleMeterRegistry();
+        log.bindTo(registry);
+    }
+
+    @Test
+    void info_shouldBeWrittenByWriter_notByCaller() {
+        log.info(target, "update", "Updating customer with ID: {}", "42");
+
+        verify(target, never()).atLevel(any());
+        assertEquals(1, log.flush());
+        verify(target).atLevel(Level.INFO);
+        verify(event).addKeyValue("op", "update");
+        verify(event).log("Updating customer with ID: {}", new Object[]{"42"});
+    }
+
+    @Test
+    void info_shouldUsePerOperationSampleRate() {
+        for (int i = 0; i < 100; i++) {
+            log.info(target, "get-by-id", "Fetching customer by ID: {}", i);
+        }
+
+        assertEquals(0, log.flush());
+        assertEquals(0.5, log.rateOf("lookup"));
+        assertEquals(1.0, log.rateOf("delete"));
+        assertEquals(100, count("sampled_out"));
+    }
+
+    @Test
+    void shouldDropAndCount_whenBufferIsFull() {
+        for (int i = 0; i < 6; i++) {
+            log.warn(target, "update", "Version conflict updating customer with ID: {}", i);
+        }
+
+        assertEquals(4, log.flush());
+        assertEquals(2, count("dropped"));
+        assertEquals(4, count("written"));
+    }
+
+    private double count(String outcome) {
+        return registry.get("customers.log.events").tag("outcome", outcome).functionCounter().count();
+    }
+}
@@ -0,0 +1,73 @@
+package com.pc.customers.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRingBufferTest {
+
+    @Test
+    void shouldRoundCapacityUpToPowerOfTwo() {
+        assertEquals(8, new LogRingBuffer<String>(5).capacity());
+        assertEquals(8, new LogRingBuffer<String>(8).capacity());
+    }
+
+    @Test
+    void shouldRefuseWhenFull_andAcceptAgainAfterPoll() {
+        LogRingBuffer<Integer> ring = new LogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+
+        assertFalse(ring.offer(4));
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        assertEquals(4, ring.size());
+    }
+
+    @Test
+    void shouldKeepOrder_acrossLaps() {
+        LogRingBuffer<Integer> ring = new LogRingBuffer<>(4);
+        List<Integer> polled = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ring.offer(i);
+            if (i % 2 == 1) {
+                polled.add(ring.poll());
+                polled.add(ring.poll());
+            }
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), polled);
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void shouldAccountForEveryOffer_underConcurrentProducers() throws InterruptedException {
+        LogRingBuffer<Integer> ring = new LogRingBuffer<>(1024);
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (!ring.offer(i)) {
+                        refused.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        int polled = 0;
+        while (done.getCount() > 0 || ring.size() > 0) {
+            if (ring.poll() != null) {
+                polled++;
+            }
+        }
+
+        assertEquals(40_000, polled + refused.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.pc.customers.metrics;
+
+import com.pc.customers.dao.ICustomerDAO;
+import com.pc.customers.model.Customer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OperationMetricsAspectTest {
+
+    @Mock
+    private ICustomerDAO customerDAO;
+
+    private SimpleMeterRegistry registry;
+    private ICustomerDAO timed;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(customerDAO);
+        factory.addAspect(new OperationMetricsAspect(registry));
+        timed = factory.getProxy();
+    }
+
+    @Test
+    void shouldTagLookupsAsHitOrNotFound() {
+        UUID found = UUID.randomUUID();
+        when(customerDAO.findById(found)).thenReturn(new Customer(found));
+        when(customerDAO.findByName("nobody", null, 10)).thenReturn(List.of());
+
+        timed.findById(found);
+        timed.findById(found);
+        timed.findById(UUID.randomUUID());
+        timed.findByName("nobody", null, 10);
+
+        assertEquals(2, timer("findById", OperationMetricsAspect.HIT).count());
+        assertEquals(1, timer("findById", OperationMetricsAspect.NOT_FOUND).count());
+        assertEquals(1, timer("findByName", OperationMetricsAspect.NOT_FOUND).count());
+    }
+
+    @Test
+    void shouldTagFailuresAsError_andRethrow() {
+        UUID id = UUID.randomUUID();
+        doThrow(new IllegalStateException("DB error")).when(customerDAO).deleteById(id);
+
+        assertThrows(IllegalStateException.class, () -> timed.deleteById(id));
+
+        assertEquals(1, timer("deleteById", OperationMetricsAspect.ERROR).count());
+        assertEquals(0, timer("deleteById", OperationMetricsAspect.SUCCESS).count());
+    }
+
+    @Test
+    void shouldTagWritesAsSuccess() {
+        Customer customer = new Customer(UUID.randomUUID());
+        when(customerDAO.save(customer)).thenReturn(customer);
+
+        timed.save(customer);
+        timed.deleteById(customer.getId());
+
+        assertEquals(1, timer("save", OperationMetricsAspect.SUCCESS).count());
+        assertEquals(1, timer("deleteById", OperationMetricsAspect.SUCCESS).count());
+        assertTrue(timer("save", OperationMetricsAspect.SUCCESS).totalTime(java.util.concurrent.TimeUnit.NANOSECONDS) > 0);
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return registry.get(OperationMetricsAspect.DAO_METRIC)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
@@ -0,0 +1,110 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.exception.InvalidChangeRequestException;
+import com.pc.customers.model.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_shouldAssignConsecutiveOffsets_andReadBackInOrder() throws IOException {
+        ChangeLog log = new ChangeLog(directory.toString(), DataSize.ofMegabytes(1), 4);
+
+        assertEquals(2, log.append(events(2)));
+        assertEquals(3, log.append(events(1)));
+
+        try (ChangeLog.Reader reader = log.reader(1)) {
+            List<ChangeLog.Entry> entries = reader.next(10);
+            assertEquals(List.of(1L, 2L), entries.stream().map(ChangeLog.Entry::offset).toList());
+            assertTrue(entries.get(0).line().startsWith("{\"offset\":1,\"type\":\"UPDATED\""));
+            assertTrue(reader.next(10).isEmpty());
+
+            log.append(events(1));
+            assertEquals(3L, reader.next(10).get(0).offset());
+        }
+    }
+
+    @Test
+    void line_shouldEmbedPayload_andWriteNullForDeletes() {
+        UUID id = UUID.randomUUID();
+        OutboxEvent deleted = new OutboxEvent(OutboxEvent.DELETED, id, null, null, Instant.EPOCH);
+
+        assertEquals("{\"offset\":7,\"type\":\"DELETED\",\"customerId\":\"" + id + "\",\"version\":null,"
+                + "\"occurredAt\":\"1970-01-01T00:00:00Z\",\"customer\":null}", ChangeLog.line(7, deleted));
+    }
+
+    @Test
+    void append_shouldRollSegments_andDropTheOldestBeyondRetention() throws IOException {
+        ChangeLog log = new ChangeLog(directory.toString(), DataSize.ofBytes(1), 2);
+
+        for (int i = 0; i < 3; i++) {
+            log.append(events(2));
+        }
+
+        assertEquals(2, log.firstOffset());
+        assertEquals(6, log.endOffset());
+        assertEquals(2, segmentCount());
+        assertThrows(InvalidChangeRequestException.class, () -> log.reader(0));
+        try (ChangeLog.Reader reader = log.reader(3)) {
+            assertEquals(List.of(3L, 4L, 5L), reader.next(10).stream().map(ChangeLog.Entry::offset).toList());
+        }
+    }
+
+    @Test
+    void constructor_shouldResumeAfterLastCompleteLine() throws IOException {
+        ChangeLog log = new ChangeLog(directory.toString(), DataSize.ofMegabytes(1), 4);
+        log.append(events(3));
+        log.close();
+        Path segment = directory.resolve("00000000000000000000.ndjson");
+        Files.write(segment, "{\"offset\":3,\"ty".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+        ChangeLog reopened = new ChangeLog(directory.toString(), DataSize.ofMegabytes(1), 4);
+
+        assertEquals(3, reopened.endOffset());
+        assertEquals(4, reopened.append(events(1)));
+        try (ChangeLog.Reader reader = reopened.reader(3)) {
+            assertTrue(reader.next(1).get(0).line().startsWith("{\"offset\":3,\"type\""));
+        }
+    }
+
+    @Test
+    void awaitAppend_shouldTimeOut_whenNothingIsAppended() throws Exception {
+        ChangeLog log = new ChangeLog(directory.toString(), DataSize.ofMegabytes(1), 4);
+
+        assertFalse(log.awaitAppend(0, 10));
+        log.append(events(1));
+        assertTrue(log.awaitAppend(0, 10));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".ndjson")).count();
+        }
+    }
+
+    private static List<OutboxEvent> events(int count) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new OutboxEvent(OutboxEvent.UPDATED, UUID.randomUUID(), 1L, "{\"name\":\"n\"}", Instant.now()));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,37 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.exception.InvalidChangeRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerOffsetsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void commit_shouldSurviveRestart() throws IOException {
+        ConsumerOffsets offsets = new ConsumerOffsets(directory.toString());
+        assertNull(offsets.get("billing"));
+
+        offsets.commit("billing", 42);
+        offsets.commit("search-indexer", 7);
+
+        ConsumerOffsets reloaded = new ConsumerOffsets(directory.toString());
+        assertEquals(42L, reloaded.get("billing"));
+        assertEquals(7L, reloaded.get("search-indexer"));
+    }
+
+    @Test
+    void shouldRejectBadNamesAndNegativeOffsets() {
+        assertThrows(InvalidChangeRequestException.class, () -> ConsumerOffsets.validName("a/b"));
+        assertThrows(InvalidChangeRequestException.class, () -> ConsumerOffsets.validName(""));
+        assertThrows(InvalidChangeRequestException.class,
+                () -> new ConsumerOffsets(directory.toString()).commit("billing", -1));
+    }
+}
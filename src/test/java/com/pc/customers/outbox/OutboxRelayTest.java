@@ -0,0 +1,68 @@
+package com.pc.customers.outbox;
+
+import com.pc.customers.dao.IOutboxDAO;
+import com.pc.customers.model.OutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private IOutboxDAO outboxDAO;
+    private ChangeLog changeLog;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxDAO = mock(IOutboxDAO.class);
+        changeLog = mock(ChangeLog.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        relay = new OutboxRelay(outboxDAO, changeLog, transactionTemplate);
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+    }
+
+    @Test
+    void relay_shouldAppendThenDelete_untilABatchComesBackShort() throws IOException {
+        List<OutboxEvent> full = List.of(event(1L), event(2L));
+        List<OutboxEvent> rest = List.of(event(3L));
+        when(outboxDAO.findOldest(2)).thenReturn(full, rest);
+
+        relay.relay();
+
+        InOrder order = inOrder(changeLog, outboxDAO);
+        order.verify(changeLog).append(full);
+        order.verify(outboxDAO).deleteAllById(List.of(1L, 2L));
+        order.verify(changeLog).append(rest);
+        order.verify(outboxDAO).deleteAllById(List.of(3L));
+        verify(outboxDAO, times(2)).findOldest(2);
+    }
+
+    @Test
+    void relay_shouldKeepEvents_whenAppendFails() throws IOException {
+        when(outboxDAO.findOldest(2)).thenReturn(List.of(event(1L)));
+        when(changeLog.append(any())).thenThrow(new IOException("disk full"));
+
+        assertDoesNotThrow(() -> relay.relay());
+
+        verify(outboxDAO, never()).deleteAllById(any());
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent(OutboxEvent.CREATED, UUID.randomUUID(), 0L, "{}", Instant.now());
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+}
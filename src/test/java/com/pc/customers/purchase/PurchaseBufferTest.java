@@ -0,0 +1,100 @@
+package com.pc.customers.purchase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PurchaseBufferTest {
+
+    @Test
+    void record_shouldSumAmountsAndKeepLatestDate_perCustomer() {
+        PurchaseBuffer buffer = new PurchaseBuffer(4, 100);
+        UUID id = UUID.randomUUID();
+
+        buffer.record(id, 10.5, 2000);
+        buffer.record(id, 4.5, 1000);
+        buffer.record(UUID.randomUUID(), 1, 3000);
+
+        assertEquals(2, buffer.size());
+        PendingPurchase purchase = buffer.drain().stream().filter(p -> p.getCustomerId().equals(id)).findFirst().orElseThrow();
+        assertEquals(15.0, purchase.getAmount(), 1e-9);
+        assertEquals(2000, purchase.getLastPurchaseDate().getTime());
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    void record_shouldRefuseNewCustomers_whenFull_butKeepAddingToBufferedOnes() {
+        PurchaseBuffer buffer = new PurchaseBuffer(2, 1);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(buffer.record(id, 1, 0));
+        assertFalse(buffer.record(UUID.randomUUID(), 1, 0));
+        assertTrue(buffer.record(id, 1, 0));
+
+        buffer.drain();
+        assertTrue(buffer.record(UUID.randomUUID(), 1, 0));
+    }
+
+    @Test
+    void drain_shouldReturnCustomersInIdOrder() {
+        PurchaseBuffer buffer = new PurchaseBuffer(8, 100);
+        UUID high = UUID.fromString("ffffffff-0000-0000-0000-000000000000");
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        buffer.record(high, 1, 0);
+        buffer.record(low, 1, 0);
+
+        assertEquals(List.of(low, high), buffer.drain().stream().map(PendingPurchase::getCustomerId).toList());
+    }
+
+    @Test
+    void restore_shouldMergeWithPurchasesRecordedSince() {
+        PurchaseBuffer buffer = new PurchaseBuffer(4, 1);
+        UUID id = UUID.randomUUID();
+        buffer.record(id, 5, 1000);
+        List<PendingPurchase> failed = buffer.drain();
+        buffer.record(id, 2, 500);
+
+        buffer.restore(failed);
+
+        PendingPurchase purchase = buffer.drain().get(0);
+        assertEquals(7.0, purchase.getAmount(), 1e-9);
+        assertEquals(1000, purchase.getLastPurchaseDate().getTime());
+    }
+
+    @Test
+    void record_shouldNotLosePurchases_underConcurrentDrains() throws Exception {
+        PurchaseBuffer buffer = new PurchaseBuffer(4, 1000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            writers.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    buffer.record(ids.get(i % ids.size()), 1, i);
+                }
+                done.countDown();
+            });
+        }
+        double total = 0;
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            total += buffer.drain().stream().mapToDouble(PendingPurchase::getAmount).sum();
+        }
+        total += buffer.drain().stream().mapToDouble(PendingPurchase::getAmount).sum();
+        writers.shutdown();
+
+        assertEquals(40_000, total, 1e-6);
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.pc.customers.purchase;
+
+import com.pc.customers.exception.CustomerServiceException;
+import com.pc.customers.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PurchaseFlusherTest {
+
+    private PurchaseBuffer buffer;
+    private CustomerService customerService;
+    private PurchaseFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new PurchaseBuffer(4, 100);
+        customerService = mock(CustomerService.class);
+        flusher = new PurchaseFlusher(buffer, customerService);
+        ReflectionTestUtils.setField(flusher, "chunkSize", 2);
+    }
+
+    @Test
+    void flush_shouldApplyBufferInChunks() {
+        for (int i = 0; i < 3; i++) {
+            buffer.record(UUID.randomUUID(), 1, 0);
+        }
+        when(customerService.applyPurchases(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        flusher.flush();
+
+        verify(customerService, times(2)).applyPurchases(anyList());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void flush_shouldKeepFailedChunkBuffered() {
+        buffer.record(UUID.randomUUID(), 1, 0);
+        when(customerService.applyPurchases(anyList())).thenThrow(new CustomerServiceException("db down"));
+
+        flusher.flush();
+
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void shutdown_shouldFlushOnlyWhenEnabled() {
+        buffer.record(UUID.randomUUID(), 1, 0);
+        ReflectionTestUtils.setField(flusher, "flushOnShutdown", false);
+        flusher.shutdown();
+        verify(customerService, never()).applyPurchases(anyList());
+
+        when(customerService.applyPurchases(anyList())).thenReturn(1);
+        ReflectionTestUtils.setField(flusher, "flushOnShutdown", true);
+        flusher.shutdown();
+        verify(customerService).applyPurchases(anyList());
+        assertEquals(0, buffer.size());
+    }
+}
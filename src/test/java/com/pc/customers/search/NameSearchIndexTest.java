@@ -0,0 +1,105 @@
+package com.pc.customers.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameSearchIndexTest {
+
+    private NameSearchIndex index;
+    private UUID priya;
+    private UUID raj;
+    private UUID anjali;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameSearchIndex();
+        priya = UUID.randomUUID();
+        raj = UUID.randomUUID();
+        anjali = UUID.randomUUID();
+        index.rebuild(List.of(
+                new Object[]{priya, "Priya Sharma"},
+                new Object[]{raj, "Raj Patel"},
+                new Object[]{anjali, "Anjali Mehta"},
+                new Object[]{UUID.randomUUID(), null}));
+    }
+
+    @Test
+    void search_shouldReturnNull_untilRebuilt() {
+        assertNull(new NameSearchIndex().search("raj"));
+    }
+
+    @Test
+    void search_shouldMatchSubstringsCaseInsensitively() {
+        assertEquals(Set.of(priya), Set.copyOf(index.search("SHARM")));
+        assertEquals(Set.of(raj), Set.copyOf(index.search("j pat")));
+        assertEquals(Set.of(anjali), Set.copyOf(index.search("ali meh")));
+    }
+
+    @Test
+    void search_shouldVerifyWholeNeedle_notJustTrigrams() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "abc bcd");
+
+        // both trigrams of "abcd" are indexed for the name, but the name doesn't contain it
+        assertTrue(index.search("abcd").isEmpty());
+        assertTrue(index.search("xyz").isEmpty());
+        assertEquals(List.of(id), index.search("c bc"));
+    }
+
+    @Test
+    void search_shouldScanNames_forShortQueries() {
+        assertEquals(Set.of(priya, raj, anjali), Set.copyOf(index.search("a")));
+        assertEquals(Set.of(priya, raj, anjali), Set.copyOf(index.search("")));
+    }
+
+    @Test
+    void search_shouldDeferLikeWildcardsToDatabase() {
+        assertNull(index.search("pr_ya"));
+        assertNull(index.search("100%"));
+    }
+
+    @Test
+    void put_shouldReplacePreviousName() {
+        index.put(raj, "Rajesh Kumar");
+
+        assertTrue(index.search("patel").isEmpty());
+        assertEquals(List.of(raj), index.search("kumar"));
+    }
+
+    @Test
+    void remove_shouldDropCustomer() {
+        index.remove(anjali);
+
+        assertTrue(index.search("mehta").isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void rebuild_shouldKeepNewerLiveUpdates() {
+        NameSearchIndex fresh = new NameSearchIndex();
+        fresh.put(raj, "Raj Malhotra");
+
+        fresh.rebuild(List.<Object[]>of(new Object[]{raj, "Raj Patel"}));
+
+        assertEquals(List.of(raj), fresh.search("malhotra"));
+        assertTrue(fresh.search("patel").isEmpty());
+    }
+
+    @Test
+    void rebuild_shouldNotRestoreCustomersDeletedWhileLoading() {
+        NameSearchIndex fresh = new NameSearchIndex();
+        fresh.remove(raj);
+
+        fresh.rebuild(List.<Object[]>of(new Object[]{raj, "Raj Patel"}, new Object[]{UUID.randomUUID(), "Priya Patel"}));
+
+        assertEquals(1, fresh.size());
+        assertTrue(fresh.search("raj").isEmpty());
+        assertEquals(1, fresh.search("patel").size());
+    }
+}
@@ -1,10 +1,41 @@
 package com.pc.customers.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pc.customers.analytics.CustomerAnalytics;
+import com.pc.customers.analytics.CustomerColumns;
+import com.pc.customers.cache.EmailLookupCache;
+import com.pc.customers.cache.EncodedResponseCache;
 import com.pc.customers.dao.ICustomerDAO;
+import com.pc.customers.dao.IOutboxDAO;
+import com.pc.customers.dao.ITierSummaryDAO;
+import com.pc.customers.dto.AnalyticsResponse;
+import com.pc.customers.dto.BatchCreateResponse;
+import com.pc.customers.dto.BatchItemResult;
+import com.pc.customers.dto.BulkDeleteResponse;
+import com.pc.customers.dto.CustomerPage;
+import com.pc.customers.dto.CustomerPatchRequest;
 import com.pc.customers.dto.CustomerRequest;
 import com.pc.customers.dto.CustomerResponse;
+import com.pc.customers.dto.LookupItemResult;
+import com.pc.customers.dto.LookupResponse;
+import com.pc.customers.dto.PageCursor;
+import com.pc.customers.dto.PurchaseRequest;
+import com.pc.customers.dto.RangeCursor;
+import com.pc.customers.dto.SpendRankingResponse;
 import com.pc.customers.exception.CustomerServiceException;
+import com.pc.customers.exception.InvalidCursorException;
+import com.pc.customers.exception.InvalidPatchException;
+import com.pc.customers.exception.PreconditionFailedException;
+import com.pc.customers.logging.AsyncOperationLog;
 import com.pc.customers.model.Customer;
+import com.pc.customers.model.OutboxEvent;
+import com.pc.customers.purchase.PendingPurchase;
+import com.pc.customers.purchase.PurchaseBuffer;
+import com.pc.customers.search.NameSearchIndex;
+import com.pc.customers.util.ETags;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,9 +44,21 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.*;
-
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
@@ -24,12 +67,56 @@ import static org.mockito.Mockito.*;
 
 class CustomerServiceTest {
 
+    private static final int EMAIL_FETCH = CustomerService.EMAIL_CACHE_MAX_ROWS + 1;
+
     @InjectMocks
     private CustomerService customerService;
 
     @Mock
     private ICustomerDAO customerDAO;
 
+    @Spy
+    private EmailLookupCache emailLookupCache = new EmailLookupCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private NameSearchIndex nameSearchIndex = new NameSearchIndex();
+
+    @Spy
+    private CustomerAnalytics customerAnalytics = new CustomerAnalytics(true);
+
+    @Spy
+    private CustomerColumns customerColumns = new CustomerColumns(true, "");
+
+    @Mock
+    private AsyncOperationLog asyncLog;
+
+    @Spy
+    private EncodedResponseCache encodedResponseCache = new EncodedResponseCache(true, DataSize.ofMegabytes(1));
+
+    @Spy
+    private TierEvaluator tierEvaluator = new TierEvaluator();
+
+    @Spy
+    private TierSummaryService tierSummaryService = new TierSummaryService();
+
+    @Mock
+    private ITierSummaryDAO tierSummaryDAO;
+
+    @Mock
+    private IOutboxDAO outboxDAO;
+
+    @Spy
+    private PurchaseBuffer purchaseBuffer = new PurchaseBuffer(4, 100);
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private UUID customerId;
     private Customer customer;
 
@@ -44,6 +131,11 @@ class CustomerServiceTest {
         customer.setEmail("test@example.com");
         customer.setAnnualSpend(5000.0);
         customer.setLastPurchaseDate(new Date());
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        ReflectionTestUtils.setField(tierSummaryService, "tierSummaryDAO", tierSummaryDAO);
+        when(tierSummaryDAO.add(anyString(), anyInt(), anyLong(), any())).thenReturn(1);
     }
 
     @Test
@@ -66,11 +158,38 @@ class CustomerServiceTest {
         assertNull(response);
     }
 
+    @Test
+    void lookupCustomers_shouldReturnResultsInRequestOrder_andMarkMissingIds() {
+        UUID missing = UUID.randomUUID();
+        List<UUID> ids = List.of(missing, customerId, customerId);
+        when(customerDAO.findAllById(ids)).thenReturn(List.of(customer));
+
+        LookupResponse response = customerService.lookupCustomers(ids);
+
+        assertEquals(2, response.getFound());
+        assertEquals(1, response.getNotFound());
+        List<LookupItemResult> results = response.getResults();
+        assertEquals(ids, results.stream().map(LookupItemResult::getId).toList());
+        assertEquals(LookupItemResult.NOT_FOUND, results.get(0).getStatus());
+        assertNull(results.get(0).getCustomer());
+        assertEquals(LookupItemResult.FOUND, results.get(1).getStatus());
+        assertEquals("Test User", results.get(1).getCustomer().getName());
+        verify(customerDAO, times(1)).findAllById(ids);
+        verify(customerDAO, never()).findById(any());
+    }
+
+    @Test
+    void lookupCustomers_shouldWrapDaoErrors() {
+        when(customerDAO.findAllById(anyCollection())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(CustomerServiceException.class, () -> customerService.lookupCustomers(List.of(customerId)));
+    }
+
     @Test
     void getCustomerByName_shouldReturnListOfCustomerResponses() {
-        when(customerDAO.findByName("Test")).thenReturn(List.of(customer));
+        when(customerDAO.findByName("Test", null, 21)).thenReturn(List.of(customer));
 
-        List<CustomerResponse> responses = customerService.getCustomerByName("Test");
+        List<CustomerResponse> responses = customerService.getCustomerByName("Test", null, 20).getItems();
 
         assertEquals(1, responses.size());
         assertEquals("Test User", responses.get(0).getName());
@@ -78,9 +197,9 @@ class CustomerServiceTest {
 
     @Test
     void getCustomerByEmail_shouldReturnListOfCustomerResponses() {
-        when(customerDAO.findByEmail("test@example.com")).thenReturn(List.of(customer));
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(List.of(customer));
 
-        List<CustomerResponse> responses = customerService.getCustomerByEmail("test@example.com");
+        List<CustomerResponse> responses = customerService.getCustomerByEmail("test@example.com", null, 20).getItems();
 
         assertEquals(1, responses.size());
         assertEquals("test@example.com", responses.get(0).getEmail());
@@ -124,6 +243,97 @@ class CustomerServiceTest {
         assertEquals("updated@example.com", response.getEmail());
     }
 
+    @Test
+    void deleteCustomers_shouldCommitEachChunkAndCountDeletedRows() {
+        ReflectionTestUtils.setField(customerService, "deleteChunkSize", 2);
+        UUID missing = UUID.randomUUID();
+        List<UUID> ids = List.of(customerId, UUID.randomUUID(), missing);
+        when(customerDAO.deleteAllById(ids.subList(0, 2))).thenReturn(List.of(
+                new Object[]{customerId, "Gold", 5000.0, null, null}, new Object[]{ids.get(1), "Silver", 10.0, null, null}));
+        when(customerDAO.deleteAllById(ids.subList(2, 3))).thenReturn(List.of());
+
+        BulkDeleteResponse response = customerService.deleteCustomers(ids);
+
+        assertEquals(3, response.getRequested());
+        assertEquals(2, response.getDeleted());
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(emailLookupCache).invalidateCustomer(customerId);
+    }
+
+    @Test
+    void deleteCustomers_shouldWrapFailures() {
+        when(customerDAO.deleteAllById(anyCollection())).thenThrow(new RuntimeException("DB error"));
+
+        assertThrows(CustomerServiceException.class, () -> customerService.deleteCustomers(List.of(customerId)));
+    }
+
+    @Test
+    void patchCustomer_shouldUpdateSuppliedFieldsByIdAndReadBack() {
+        CustomerPatchRequest patch = new CustomerPatchRequest();
+        patch.setName("Patched Name");
+        patch.setVersion(2L);
+        customer.setName("Patched Name");
+        customer.setVersion(3L);
+        when(customerDAO.patch(eq(customerId), eq(2L), eq(Map.of("name", "Patched Name")), any(Date.class), any(Date.class)))
+                .thenReturn(1);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+
+        CustomerResponse response = customerService.patchCustomer(customerId, patch);
+
+        assertEquals("Patched Name", response.getName());
+        assertEquals(3L, response.getVersion());
+        verify(customerDAO, never()).save(any());
+        verify(emailLookupCache).invalidateCustomer(customerId);
+    }
+
+    @Test
+    void patchCustomer_shouldReturnNull_whenCustomerNotFound() {
+        CustomerPatchRequest patch = new CustomerPatchRequest();
+        patch.setAnnualSpend(100.0);
+        when(customerDAO.patch(eq(customerId), isNull(), anyMap(), any(), any())).thenReturn(0);
+        when(customerDAO.findVersion(customerId)).thenReturn(null);
+
+        assertNull(customerService.patchCustomer(customerId, patch));
+    }
+
+    @Test
+    void patchCustomer_shouldThrowConflict_whenVersionIsStale() {
+        CustomerPatchRequest patch = new CustomerPatchRequest();
+        patch.setEmail("new@example.com");
+        patch.setVersion(1L);
+        when(customerDAO.patch(eq(customerId), eq(1L), anyMap(), any(), any())).thenReturn(0);
+        when(customerDAO.findVersion(customerId)).thenReturn(2L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> customerService.patchCustomer(customerId, patch));
+        verify(customerDAO, never()).findById(customerId);
+    }
+
+    @Test
+    void patchCustomer_shouldRejectInvalidFields_beforeWriting() {
+        CustomerPatchRequest patch = new CustomerPatchRequest();
+        patch.setName(" ");
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<CustomerRequest> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Customer name cannot be blank");
+        when(validator.validateValue(CustomerRequest.class, "name", " ")).thenReturn(Set.of(violation));
+
+        InvalidPatchException e = assertThrows(InvalidPatchException.class, () -> customerService.patchCustomer(customerId, patch));
+
+        assertEquals(List.of(Map.of("field", "name", "defaultMessage", "Customer name cannot be blank")), e.getErrors());
+        verify(customerDAO, never()).patch(any(), any(), anyMap(), any(), any());
+    }
+
+    @Test
+    void patchCustomer_withoutFields_shouldOnlyCheckVersion() {
+        customer.setVersion(5L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        CustomerPatchRequest patch = new CustomerPatchRequest();
+        patch.setVersion(4L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> customerService.patchCustomer(customerId, patch));
+        verify(customerDAO, never()).patch(any(), any(), anyMap(), any(), any());
+    }
+
     @Test
     void updateCustomer_shouldReturnNull_whenCustomerNotFound() {
         when(customerDAO.findById(customerId)).thenReturn(null);
@@ -136,7 +346,7 @@ class CustomerServiceTest {
 
     @Test
     void deleteCustomer_shouldCallDaoDeleteById() {
-        doNothing().when(customerDAO).deleteById(customerId);
+        when(customerDAO.deleteById(customerId)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
 
         customerService.deleteCustomer(customerId);
 
@@ -145,9 +355,9 @@ class CustomerServiceTest {
 
     @Test
     void getCustomerByName_shouldReturnEmptyList_whenNameNotFound() {
-        when(customerDAO.findByName("Unknown")).thenReturn(Collections.emptyList());
+        when(customerDAO.findByName("Unknown", null, 21)).thenReturn(Collections.emptyList());
 
-        List<CustomerResponse> result = customerService.getCustomerByName("Unknown");
+        List<CustomerResponse> result = customerService.getCustomerByName("Unknown", null, 20).getItems();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -155,9 +365,9 @@ class CustomerServiceTest {
 
     @Test
     void getCustomerByEmail_shouldReturnEmptyList_whenEmailIsNull() {
-        when(customerDAO.findByEmail(null)).thenReturn(Collections.emptyList());
+        when(customerDAO.findByEmail(null, null, EMAIL_FETCH)).thenReturn(Collections.emptyList());
 
-        List<CustomerResponse> result = customerService.getCustomerByEmail(null);
+        List<CustomerResponse> result = customerService.getCustomerByEmail(null, null, 20).getItems();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -370,7 +580,7 @@ class CustomerServiceTest {
     @Test
     @DisplayName("DELETE: Should call the delete method on the DAO")
     void deleteCustomer_shouldCallDaoDelete() {
-        doNothing().when(customerDAO).deleteById(customerId);
+        when(customerDAO.deleteById(customerId)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
         customerService.deleteCustomer(customerId);
         verify(customerDAO, times(1)).deleteById(customerId);
     }
@@ -444,17 +654,17 @@ class CustomerServiceTest {
 
     @Test
     void getCustomerByName_shouldThrowException_whenDaoFails() {
-        when(customerDAO.findByName("fail")).thenThrow(new RuntimeException("DB error"));
+        when(customerDAO.findByName("fail", null, 21)).thenThrow(new RuntimeException("DB error"));
 
-        CustomerServiceException ex = assertThrows(CustomerServiceException.class, () -> customerService.getCustomerByName("fail"));
+        CustomerServiceException ex = assertThrows(CustomerServiceException.class, () -> customerService.getCustomerByName("fail", null, 20));
         assertTrue(ex.getMessage().contains("Error retrieving customers by name"));
     }
 
     @Test
     void getCustomerByEmail_shouldThrowException_whenDaoFails() {
-        when(customerDAO.findByEmail("fail@example.com")).thenThrow(new RuntimeException("DB error"));
+        when(customerDAO.findByEmail("fail@example.com", null, EMAIL_FETCH)).thenThrow(new RuntimeException("DB error"));
 
-        CustomerServiceException ex = assertThrows(CustomerServiceException.class, () -> customerService.getCustomerByEmail("fail@example.com"));
+        CustomerServiceException ex = assertThrows(CustomerServiceException.class, () -> customerService.getCustomerByEmail("fail@example.com", null, 20));
         assertTrue(ex.getMessage().contains("Error retrieving customers by email"));
     }
 
@@ -482,4 +692,726 @@ class CustomerServiceTest {
         assertTrue(exception.getMessage().contains("Error creating customer with email: exception@example.com"));
     }
 
+    @Test
+    void createCustomers_shouldCreateValidItemsAndReportInvalidOnes() {
+        CustomerRequest valid = new CustomerRequest();
+        valid.setName("Batch User");
+        valid.setEmail("batch@example.com");
+        CustomerRequest invalid = new CustomerRequest();
+        invalid.setName("");
+
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<CustomerRequest> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("name");
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("Customer name cannot be blank");
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        when(customerDAO.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Customer> saved = invocation.getArgument(0);
+            saved.forEach(c -> c.setId(UUID.randomUUID()));
+            return saved;
+        });
+
+        BatchCreateResponse response = customerService.createCustomers(List.of(valid, invalid));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(BatchItemResult.CREATED, response.getResults().get(0).getStatus());
+        assertEquals("Batch User", response.getResults().get(0).getCustomer().getName());
+        assertEquals(BatchItemResult.FAILED, response.getResults().get(1).getStatus());
+        assertEquals("name", response.getResults().get(1).getErrors().get(0).get("field"));
+        verify(customerDAO, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void saveBatch_shouldRetryFailedChunkOneByOne() {
+        Customer good = new Customer("Good", "good@example.com");
+        Customer bad = new Customer("Bad", "bad@example.com");
+
+        when(customerDAO.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Customer> chunk = invocation.getArgument(0);
+            if (chunk.contains(bad)) {
+                throw new RuntimeException("constraint violated");
+            }
+            chunk.forEach(c -> c.setId(UUID.randomUUID()));
+            return chunk;
+        });
+
+        Map<Integer, String> failures = customerService.saveBatch(List.of(good, bad));
+
+        assertEquals(Map.of(1, "constraint violated"), failures);
+        verify(customerDAO, times(3)).saveAll(anyList());
+    }
+
+    @Test
+    void saveBatch_shouldNotRetrySavedChunk_whenIndexUpdateFails() {
+        Customer first = new Customer("First", "first@example.com");
+        Customer second = new Customer("Second", "second@example.com");
+        when(customerDAO.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Customer> chunk = invocation.getArgument(0);
+            chunk.forEach(c -> c.setId(UUID.randomUUID()));
+            return chunk;
+        });
+        doThrow(new IllegalStateException("index broken")).when(nameSearchIndex).put(any(), eq("First"));
+
+        Map<Integer, String> failures = customerService.saveBatch(List.of(first, second));
+
+        assertTrue(failures.isEmpty());
+        verify(customerDAO, times(1)).saveAll(anyList());
+        verify(nameSearchIndex).put(second.getId(), "Second");
+    }
+
+    @Test
+    void getCustomerByEmail_shouldServeRepeatLookupsFromCache_caseInsensitively() {
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(List.of(customer));
+
+        customerService.getCustomerByEmail("test@example.com", null, 20);
+        List<CustomerResponse> responses = customerService.getCustomerByEmail("TEST@Example.com", null, 20).getItems();
+
+        assertEquals(1, responses.size());
+        verify(customerDAO, times(1)).findByEmail(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void updateCustomer_shouldInvalidateOldAndNewEmail() {
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(List.of(customer));
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        customerService.getCustomerByEmail("test@example.com", null, 20);
+
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Renamed");
+        request.setEmail("renamed@example.com");
+        customerService.updateCustomer(customerId, request);
+        customerService.getCustomerByEmail("test@example.com", null, 20);
+
+        verify(emailLookupCache).invalidate("test@example.com");
+        verify(emailLookupCache).invalidate("renamed@example.com");
+        verify(customerDAO, times(2)).findByEmail("test@example.com", null, EMAIL_FETCH);
+    }
+
+    @Test
+    void deleteCustomer_shouldInvalidateCachedEmailLookup() {
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(List.of(customer));
+        customerService.getCustomerByEmail("test@example.com", null, 20);
+
+        customerService.deleteCustomer(customerId);
+        customerService.getCustomerByEmail("test@example.com", null, 20);
+
+        verify(customerDAO, times(2)).findByEmail("test@example.com", null, EMAIL_FETCH);
+    }
+
+    @Test
+    void getCustomerByName_shouldUseNameIndex_whenReady() {
+        nameSearchIndex.rebuild(List.<Object[]>of(new Object[]{customerId, "Test User"}));
+        when(customerDAO.findAllById(List.of(customerId))).thenReturn(List.of(customer));
+
+        List<CustomerResponse> responses = customerService.getCustomerByName("user", null, 20).getItems();
+
+        assertEquals(1, responses.size());
+        verify(customerDAO, never()).findByName(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void getCustomerByName_shouldDropRowsWhoseNameNoLongerMatches() {
+        nameSearchIndex.rebuild(List.<Object[]>of(new Object[]{customerId, "Old Name"}));
+        when(customerDAO.findAllById(List.of(customerId))).thenReturn(List.of(customer));
+
+        assertTrue(customerService.getCustomerByName("old", null, 20).getItems().isEmpty());
+    }
+
+    @Test
+    void createAndDelete_shouldMaintainNameIndex() {
+        nameSearchIndex.rebuild(List.of());
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer c = invocation.getArgument(0);
+            c.setId(customerId);
+            return c;
+        });
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Indexed Person");
+
+        customerService.createCustomer(request);
+        assertEquals(List.of(customerId), nameSearchIndex.search("indexed"));
+
+        customerService.deleteCustomer(customerId);
+        assertTrue(nameSearchIndex.search("indexed").isEmpty());
+    }
+
+    @Test
+    void writes_shouldMaintainAnalytics() {
+        CustomerRequest request = new CustomerRequest();
+        request.setEmail("moved@example.org");
+        request.setAnnualSpend(8000.0);
+        Object[] before = {customerId, "Gold", 5000.0, "test@example.com", null};
+        Object[] after = {customerId, "Gold", 8000.0, "moved@example.org", null};
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(customerDAO.lockTiersAndSpend(List.of(customerId))).thenReturn(List.<Object[]>of(before));
+        when(customerDAO.deleteById(customerId)).thenReturn(List.<Object[]>of(after));
+        ReflectionTestUtils.invokeMethod(customerAnalytics, "markReady");
+        customerAnalytics.written(null, 5000.0, "test@example.com", null);
+
+        customerService.updateCustomer(customerId, request);
+
+        verify(customerAnalytics).written(before, 8000.0, "moved@example.org", null);
+        assertEquals(1, customerAnalytics.size());
+        assertEquals(1, customerAnalytics.distinctEmailDomains());
+        assertEquals(8000.0, customerAnalytics.spendQuantile(0.5), 80.0);
+
+        customerService.deleteCustomer(customerId);
+
+        verify(customerAnalytics).removed(after);
+        assertEquals(0, customerAnalytics.size());
+        assertEquals(0, customerAnalytics.distinctEmailDomains());
+        assertNull(customerAnalytics.spendQuantile(0.5));
+    }
+
+    @Test
+    void getSpendRange_shouldReturnNullUntilSnapshotIsBuilt() {
+        assertNull(customerService.getTopSpenders(10));
+        verify(customerColumns, never()).rank(anyDouble(), anyDouble(), anyInt(), anyInt());
+    }
+
+    @Test
+    void writes_shouldMaintainSnapshot() {
+        ReflectionTestUtils.setField(customerColumns, "ready", true);
+        CustomerRequest request = new CustomerRequest();
+        request.setAnnualSpend(8000.0);
+        LocalDate today = LocalDate.of(2024, 3, 15);
+        request.setLastPurchaseDate(Date.from(today.atTime(12, 0).toInstant(ZoneOffset.UTC)));
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        customerService.updateCustomer(customerId, request);
+
+        SpendRankingResponse top = customerService.getTopSpenders(10);
+        assertEquals(1, top.getMatches());
+        assertEquals(customerId, top.getCustomers().get(0).getId());
+        assertEquals(8000.0, top.getCustomers().get(0).getAnnualSpend());
+        assertEquals(today, top.getCustomers().get(0).getLastPurchaseDate());
+        assertEquals(0, customerService.getSpendRange(null, 7999.0, null, 10).getMatches());
+        assertEquals(0, customerService.getSpendRange(null, null, today, 10).getMatches());
+        assertEquals(1, customerService.getSpendRange(8000.0, 8000.0, today.minusDays(1), 10).getMatches());
+
+        customerService.deleteCustomer(customerId);
+
+        verify(customerColumns).remove(customerId);
+        assertEquals(0, customerService.getTopSpenders(10).getMatches());
+    }
+
+    @Test
+    void writes_shouldKeepCustomersWithoutPurchaseDateInSnapshot() {
+        ReflectionTestUtils.setField(customerColumns, "ready", true);
+        CustomerRequest request = new CustomerRequest();
+        request.setAnnualSpend(8000.0);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        customerService.updateCustomer(customerId, request);
+
+        SpendRankingResponse top = customerService.getTopSpenders(10);
+        assertEquals(1, top.getMatches());
+        assertNull(top.getCustomers().get(0).getLastPurchaseDate());
+        assertEquals(1, customerService.getSpendRange(8000.0, 8000.0, null, 10).getMatches());
+        assertEquals(0, customerService.getSpendRange(null, null, LocalDate.of(1970, 1, 1), 10).getMatches());
+    }
+
+    @Test
+    void createCustomer_shouldAddCustomerToTierSummary() {
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer c = invocation.getArgument(0);
+            c.setId(customerId);
+            return c;
+        });
+        CustomerRequest request = new CustomerRequest();
+        request.setAnnualSpend(500.0);
+
+        customerService.createCustomer(request);
+
+        verify(tierSummaryDAO).add("Silver", summarySlot(), 1, new BigDecimal("500.000000"));
+    }
+
+    @Test
+    void updateCustomer_shouldMoveCustomerBetweenTiersInSummary() {
+        customer.setTier("Gold");
+        CustomerRequest request = new CustomerRequest();
+        request.setAnnualSpend(500.0);
+        when(customerDAO.lockTiersAndSpend(List.of(customerId)))
+                .thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        customerService.updateCustomer(customerId, request);
+
+        InOrder order = inOrder(customerDAO);
+        order.verify(customerDAO).lockTiersAndSpend(List.of(customerId));
+        order.verify(customerDAO).findById(customerId);
+        verify(tierSummaryDAO).add("Gold", summarySlot(), -1, new BigDecimal("-5000.000000"));
+        verify(tierSummaryDAO).add("Silver", summarySlot(), 1, new BigDecimal("500.000000"));
+    }
+
+    @Test
+    void deleteCustomer_shouldTakeDeletedRowOutOfTierSummary_withoutLockingRead() {
+        when(customerDAO.deleteById(customerId)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.deleteCustomer(customerId);
+
+        verify(tierSummaryDAO).add("Gold", summarySlot(), -1, new BigDecimal("-5000.000000"));
+        verify(customerDAO, never()).lockTiersAndSpend(any());
+    }
+
+    @Test
+    void deleteCustomer_withIfMatch_shouldTakeDeletedValuesOutOfTierSummary() {
+        customer.setVersion(3L);
+        customer.setTier("Gold"); // as read before a recompute demoted the row
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.deleteById(customerId, 3L))
+                .thenReturn(List.<Object[]>of(new Object[]{customerId, "Silver", 5000.0, null, null}));
+
+        customerService.deleteCustomer(customerId, ETags.of(3L, "Gold"));
+
+        verify(tierSummaryDAO).add("Silver", summarySlot(), -1, new BigDecimal("-5000.000000"));
+        verify(tierSummaryDAO, never()).add(eq("Gold"), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void deleteCustomers_shouldTakeDeletedRowsOutOfTierSummary() {
+        when(customerDAO.deleteAllById(List.of(customerId))).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.deleteCustomers(List.of(customerId));
+
+        verify(tierSummaryDAO).add("Gold", summarySlot(), -1, new BigDecimal("-5000.000000"));
+        verify(customerDAO, never()).lockTiersAndSpend(any());
+    }
+
+    @Test
+    void recomputeStaleTiers_shouldMoveDemotedCustomersInSummary() {
+        when(customerDAO.findIdsWithStaleTier(any(), any(), isNull(), eq(10))).thenReturn(List.of(customerId));
+        when(customerDAO.recomputeTiers(eq(List.of(customerId)), any(), any())).thenReturn(1);
+        when(customerDAO.lockTiersAndSpend(List.of(customerId))).thenReturn(
+                List.<Object[]>of(new Object[]{customerId, "Platinum", 20000.0, null, null}),
+                List.<Object[]>of(new Object[]{customerId, "Gold", 20000.0, null, null}));
+
+        assertEquals(1, customerService.recomputeStaleTiers(10));
+
+        verify(tierSummaryDAO).add("Platinum", summarySlot(), -1, new BigDecimal("-20000.000000"));
+        verify(tierSummaryDAO).add("Gold", summarySlot(), 1, new BigDecimal("20000.000000"));
+    }
+
+    @Test
+    void writes_shouldQueueChangesInTheOutbox() {
+        customer.setVersion(1L);
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Renamed");
+        request.setAnnualSpend(500.0);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(customerDAO.deleteById(customerId)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.updateCustomer(customerId, request);
+        customerService.deleteCustomer(customerId);
+
+        ArgumentCaptor<OutboxEvent> events = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxDAO, times(2)).save(events.capture());
+        OutboxEvent updated = events.getAllValues().get(0);
+        assertEquals(OutboxEvent.UPDATED, updated.getType());
+        assertEquals(customerId, updated.getCustomerId());
+        assertEquals(1L, updated.getVersion());
+        assertTrue(updated.getPayload().contains("\"name\":\"Renamed\""));
+        OutboxEvent deleted = events.getAllValues().get(1);
+        assertEquals(OutboxEvent.DELETED, deleted.getType());
+        assertNull(deleted.getPayload());
+    }
+
+    @Test
+    void deleteCustomer_shouldNotQueueChange_whenNothingWasDeleted() {
+        when(customerDAO.deleteById(customerId)).thenReturn(List.of());
+
+        customerService.deleteCustomer(customerId);
+
+        verify(outboxDAO, never()).save(any());
+    }
+
+    @Test
+    void deleteCustomers_shouldQueueOneChangePerDeletedRow() {
+        UUID missing = UUID.randomUUID();
+        when(customerDAO.deleteAllById(List.of(customerId, missing))).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.deleteCustomers(List.of(customerId, missing));
+
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxDAO).save(event.capture());
+        assertEquals(customerId, event.getValue().getCustomerId());
+        assertEquals(OutboxEvent.DELETED, event.getValue().getType());
+    }
+
+    @Test
+    void recordPurchase_shouldBufferWithoutTouchingTheDatabase() {
+        PurchaseRequest request = new PurchaseRequest();
+        request.setAmount(25.0);
+        request.setPurchaseDate(new Date(1000));
+
+        assertTrue(customerService.recordPurchase(customerId, request));
+        assertTrue(customerService.recordPurchase(customerId, request));
+
+        verifyNoInteractions(customerDAO);
+        PendingPurchase purchase = purchaseBuffer.drain().get(0);
+        assertEquals(50.0, purchase.getAmount(), 1e-9);
+    }
+
+    @Test
+    void applyPurchases_shouldAddSpend_moveDateForward_andDeriveTier() {
+        Date recent = new Date();
+        customer.setTier("Gold");
+        customer.setVersion(2L);
+        UUID missing = UUID.randomUUID();
+        purchaseBuffer.record(customerId, 6000.0, recent.getTime());
+        purchaseBuffer.record(missing, 10.0, recent.getTime());
+        List<PendingPurchase> purchases = purchaseBuffer.drain();
+        when(customerDAO.lockTiersAndSpend(anyList()))
+                .thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+        when(customerDAO.findAllById(anyList())).thenReturn(List.of(customer));
+
+        assertEquals(1, customerService.applyPurchases(purchases));
+
+        assertEquals(11000.0, customer.getAnnualSpend(), 1e-9);
+        assertEquals(recent, customer.getLastPurchaseDate());
+        assertEquals("Platinum", customer.getTier());
+        InOrder order = inOrder(customerDAO, tierSummaryDAO);
+        order.verify(customerDAO).lockTiersAndSpend(anyList());
+        order.verify(customerDAO).save(customer);
+        order.verify(customerDAO).flush();
+        order.verify(tierSummaryDAO).add("Gold", summarySlot(), -1, new BigDecimal("-5000.000000"));
+        verify(tierSummaryDAO).add("Platinum", summarySlot(), 1, new BigDecimal("11000.000000"));
+        verify(outboxDAO).save(any(OutboxEvent.class));
+    }
+
+    @Test
+    void applyPurchases_shouldNotMoveLastPurchaseDateBack() {
+        Date latest = new Date();
+        customer.setLastPurchaseDate(latest);
+        purchaseBuffer.record(customerId, 1.0, latest.getTime() - 1000);
+        when(customerDAO.findAllById(anyList())).thenReturn(List.of(customer));
+
+        customerService.applyPurchases(purchaseBuffer.drain());
+
+        assertEquals(latest, customer.getLastPurchaseDate());
+        assertEquals(5001.0, customer.getAnnualSpend(), 1e-9);
+    }
+
+    private int summarySlot() {
+        return Math.floorMod(customerId.hashCode(), 8);
+    }
+
+    @Test
+    void getAnalytics_shouldReturnNull_untilSketchesAreBuilt() {
+        assertNull(customerService.getAnalytics());
+    }
+
+    @Test
+    void getAnalytics_shouldReportQuantilesDomainsAndMonths() {
+        ReflectionTestUtils.invokeMethod(customerAnalytics, "markReady");
+        customerAnalytics.written(null, 100.0, "a@one.com", new Date(0));
+        customerAnalytics.written(null, 1000.0, "b@two.com", null);
+
+        AnalyticsResponse analytics = customerService.getAnalytics();
+
+        assertEquals(2, analytics.getCustomers());
+        assertEquals(List.of("p50", "p75", "p90", "p95", "p99"), List.copyOf(analytics.getSpendQuantiles().keySet()));
+        assertEquals(100.0, analytics.getSpendQuantiles().get("p50"), 1.0);
+        assertEquals(1000.0, analytics.getSpendQuantiles().get("p99"), 10.0);
+        assertEquals(2, analytics.getDistinctEmailDomains());
+        assertEquals(Map.of("1970-01", 1L), analytics.getLastPurchaseByMonth());
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void getCustomerByName_shouldPageIndexMatchesInIdOrder() {
+        UUID first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID second = UUID.fromString("7fffffff-0000-0000-0000-000000000002");
+        UUID third = UUID.fromString("ffffffff-0000-0000-0000-000000000003"); // negative msb, still sorts last
+        nameSearchIndex.rebuild(List.of(
+                new Object[]{third, "Page Three"},
+                new Object[]{first, "Page One"},
+                new Object[]{second, "Page Two"}));
+        when(customerDAO.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                Customer c = new Customer(id);
+                c.setName(id.equals(first) ? "Page One" : id.equals(second) ? "Page Two" : "Page Three");
+                return c;
+            }).toList();
+        });
+
+        CustomerPage firstPage = customerService.getCustomerByName("page", null, 2);
+        CustomerPage lastPage = customerService.getCustomerByName("page", PageCursor.decode(firstPage.getNextCursor()), 2);
+
+        assertEquals(List.of(first, second), firstPage.getItems().stream().map(CustomerResponse::getId).toList());
+        assertEquals(PageCursor.encode(second), firstPage.getNextCursor());
+        assertEquals(List.of(third), lastPage.getItems().stream().map(CustomerResponse::getId).toList());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getCustomerByEmail_shouldPageCachedMatchesAfterCursor() {
+        Customer other = new Customer(UUID.fromString("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+        other.setEmail("test@example.com");
+        customer.setId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(List.of(customer, other));
+
+        CustomerPage firstPage = customerService.getCustomerByEmail("test@example.com", null, 1);
+        CustomerPage lastPage = customerService.getCustomerByEmail("test@example.com", customer.getId(), 1);
+
+        assertEquals(customer.getId(), firstPage.getItems().get(0).getId());
+        assertEquals(PageCursor.encode(customer.getId()), firstPage.getNextCursor());
+        assertEquals(other.getId(), lastPage.getItems().get(0).getId());
+        assertNull(lastPage.getNextCursor());
+        verify(customerDAO, times(1)).findByEmail(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void getCustomerByEmail_shouldPageFromDatabase_whenTooManyMatchesToCache() {
+        List<Customer> many = Collections.nCopies(EMAIL_FETCH, customer);
+        when(customerDAO.findByEmail("test@example.com", null, EMAIL_FETCH)).thenReturn(many);
+        when(customerDAO.findByEmail("test@example.com", customerId, 11)).thenReturn(List.of(customer));
+
+        CustomerPage page = customerService.getCustomerByEmail("test@example.com", customerId, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void exportCustomers_shouldWriteOneJsonLinePerCustomer() {
+        Customer other = new Customer(UUID.randomUUID());
+        other.setName("Other User");
+        when(customerDAO.streamAll(anyInt(), any())).thenAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(1);
+            consumer.accept(customer);
+            consumer.accept(other);
+            return 2L;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = customerService.exportCustomers(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Test User\""));
+        assertTrue(lines[1].contains("\"name\":\"Other User\""));
+        verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void exportCustomers_shouldThrowCustomerServiceException_whenDaoFails() {
+        when(customerDAO.streamAll(anyInt(), any())).thenThrow(new RuntimeException("DB error"));
+
+        assertThrows(CustomerServiceException.class, () -> customerService.exportCustomers(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void createCustomer_shouldStoreCalculatedTier() {
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Big Spender");
+        request.setAnnualSpend(20000.0);
+        request.setLastPurchaseDate(new Date());
+        when(customerDAO.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer c = invocation.getArgument(0);
+            c.setId(customerId);
+            return c;
+        });
+
+        customerService.createCustomer(request);
+
+        ArgumentCaptor<Customer> saved = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).save(saved.capture());
+        assertEquals(Customer.TIER_PLATINUM, saved.getValue().getTier());
+    }
+
+    @Test
+    void updateCustomer_shouldRecalculateStoredTier() {
+        customer.setTier(Customer.TIER_GOLD);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Test User");
+        request.setAnnualSpend(10.0);
+
+        customerService.updateCustomer(customerId, request);
+
+        assertEquals(Customer.TIER_SILVER, customer.getTier());
+        verify(customerDAO).save(customer);
+    }
+
+    @Test
+    void saveBatch_shouldStoreCalculatedTiers() {
+        Customer gold = new Customer("Gold", "gold@example.com");
+        gold.setAnnualSpend(5000.0);
+        gold.setLastPurchaseDate(new Date());
+        Customer silver = new Customer("Silver", "silver@example.com");
+
+        customerService.saveBatch(List.of(gold, silver));
+
+        assertEquals(Customer.TIER_GOLD, gold.getTier());
+        assertEquals(Customer.TIER_SILVER, silver.getTier());
+    }
+
+    @Test
+    void getCustomersByTier_shouldPageStoredTier() {
+        Customer next = new Customer(UUID.randomUUID());
+        when(customerDAO.findByTier("Gold", customerId, 2)).thenReturn(List.of(customer, next));
+
+        CustomerPage page = customerService.getCustomersByTier("Gold", customerId, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(customerId, PageCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getCustomersInRange_shouldPageBySpendAndId() {
+        Customer next = new Customer(UUID.randomUUID());
+        next.setAnnualSpend(12000.0);
+        customer.setAnnualSpend(11000.0);
+        Date since = new Date(1709856000000L);
+        when(customerDAO.findBySpendRange(10000.0, null, since, null, null, null, 2)).thenReturn(List.of(customer, next));
+
+        CustomerPage page = customerService.getCustomersInRange(10000.0, null, since, null, null, 1);
+
+        assertEquals(1, page.getItems().size());
+        RangeCursor cursor = RangeCursor.decode(page.getNextCursor());
+        assertTrue(cursor.isBySpend());
+        assertEquals(11000.0, cursor.getAnnualSpend());
+        assertEquals(customerId, cursor.getId());
+
+        customerService.getCustomersInRange(10000.0, null, since, null, cursor, 1);
+
+        verify(customerDAO).findBySpendRange(10000.0, null, since, null, 11000.0, customerId, 2);
+    }
+
+    @Test
+    void getCustomersInRange_shouldPageByLastPurchaseWithoutMinSpend() {
+        Date since = new Date(1709856000000L);
+        RangeCursor bySpend = RangeCursor.bySpend(100.0, customerId);
+        when(customerDAO.findByLastPurchaseRange(since, null, null, null, null, 2)).thenReturn(List.of(customer));
+
+        CustomerPage page = customerService.getCustomersInRange(null, null, since, null, null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertThrows(InvalidCursorException.class,
+                () -> customerService.getCustomersInRange(null, null, since, null, bySpend, 1));
+    }
+
+    @Test
+    void recomputeStaleTiers_shouldUpdateChunksUntilNoneLeft() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(customerDAO.findIdsWithStaleTier(any(), any(), isNull(), eq(2))).thenReturn(List.of(first, second));
+        when(customerDAO.findIdsWithStaleTier(any(), any(), eq(second), eq(2))).thenReturn(List.of(third));
+        when(customerDAO.recomputeTiers(anyCollection(), any(), any())).thenAnswer(invocation -> invocation.<Collection<UUID>>getArgument(0).size());
+
+        int recomputed = customerService.recomputeStaleTiers(2);
+
+        assertEquals(3, recomputed);
+        ArgumentCaptor<Date> sixMonthsAgo = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> twelveMonthsAgo = ArgumentCaptor.forClass(Date.class);
+        verify(customerDAO).recomputeTiers(eq(List.of(first, second)), sixMonthsAgo.capture(), twelveMonthsAgo.capture());
+        verify(customerDAO).recomputeTiers(eq(List.of(third)), any(), any());
+        verify(transactionTemplate, times(2)).execute(any());
+        assertTrue(twelveMonthsAgo.getValue().before(sixMonthsAgo.getValue()));
+    }
+
+    @Test
+    void recomputeStaleTiers_shouldThrowCustomerServiceException_whenDaoFails() {
+        when(customerDAO.findIdsWithStaleTier(any(), any(), any(), anyInt())).thenThrow(new RuntimeException("DB error"));
+
+        assertThrows(CustomerServiceException.class, () -> customerService.recomputeStaleTiers(10));
+    }
+
+    @Test
+    void getCustomerETag_shouldCombineVersionAndCurrentTier() {
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+
+        assertEquals("\"3-Gold\"", customerService.getCustomerETag(customerId));
+        assertNull(customerService.getCustomerETag(UUID.randomUUID()));
+    }
+
+    @Test
+    void updateCustomer_shouldRejectStaleIfMatch() {
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> customerService.updateCustomer(customerId, new CustomerRequest(), "\"2-Gold\""));
+
+        verify(customerDAO, never()).save(any());
+    }
+
+    @Test
+    void updateCustomer_shouldFlushSoResponseCarriesNewVersion() {
+        CustomerRequest request = new CustomerRequest();
+        request.setName("Updated Name");
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        doAnswer(invocation -> {
+            customer.setVersion(4L);
+            return null;
+        }).when(customerDAO).flush();
+
+        CustomerResponse response = customerService.updateCustomer(customerId, request, "\"3-Gold\"");
+
+        assertEquals(4L, response.getVersion());
+    }
+
+    @Test
+    void deleteCustomer_shouldDeleteAtMatchedVersion() {
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.deleteById(customerId, 3L)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.deleteCustomer(customerId, "\"3-Gold\"");
+
+        verify(customerDAO).deleteById(customerId, 3L);
+        verify(customerDAO, never()).deleteById(customerId);
+    }
+
+    @Test
+    void deleteCustomer_shouldAcceptGzipETagAsIfMatch() {
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.deleteById(customerId, 3L)).thenReturn(List.<Object[]>of(new Object[]{customerId, "Gold", 5000.0, null, null}));
+
+        customerService.deleteCustomer(customerId, "\"3-Gold-gzip\"");
+
+        verify(customerDAO).deleteById(customerId, 3L);
+    }
+
+    @Test
+    void deleteCustomer_shouldFailPrecondition_whenChangedOrMissing() {
+        customer.setVersion(3L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+        when(customerDAO.deleteById(customerId, 3L)).thenReturn(List.of()); // updated after the check
+
+        assertThrows(PreconditionFailedException.class, () -> customerService.deleteCustomer(customerId, "\"3-Gold\""));
+        assertThrows(PreconditionFailedException.class, () -> customerService.deleteCustomer(UUID.randomUUID(), "*"));
+    }
+
+    @Test
+    void getEncodedCustomer_shouldReuseBytes_untilCustomerIsUpdated() throws Exception {
+        customer.setVersion(0L);
+        when(customerDAO.findById(customerId)).thenReturn(customer);
+
+        EncodedResponseCache.Entry first = customerService.getEncodedCustomer(customerId);
+        assertSame(first, customerService.getEncodedCustomer(customerId));
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+        assertEquals("\"0-Gold\"", first.getETag());
+
+        customerService.updateCustomer(customerId, new CustomerRequest());
+
+        verify(encodedResponseCache).invalidate(customerId);
+        assertNull(customerService.getEncodedCustomer(UUID.randomUUID()));
+    }
 }
@@ -0,0 +1,122 @@
+package com.pc.customers.service;
+
+import com.pc.customers.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TierEvaluatorTest {
+
+    private static final double[] SPENDS = {500, 999.99, 1000, 5000, 9999.99, 10000, 20000};
+
+    @Test
+    void tier_shouldApplyTierRules() {
+        TierEvaluator evaluator = new TierEvaluator(fixed("2025-06-15T10:00:00Z", "UTC"));
+
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(null, date("2025-06-01T00:00:00Z")));
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(999.0, date("2025-06-01T00:00:00Z")));
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(5000.0, null));
+        assertEquals(Customer.TIER_GOLD, evaluator.tier(5000.0, date("2024-06-15T10:00:00.001Z")));
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(5000.0, date("2024-06-15T10:00:00Z")));
+        assertEquals(Customer.TIER_PLATINUM, evaluator.tier(10000.0, date("2024-12-15T10:00:00.001Z")));
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(10000.0, date("2024-12-15T10:00:00Z")));
+        assertEquals(Customer.TIER_SILVER, evaluator.tier(Double.NaN, date("2025-06-01T00:00:00Z")));
+    }
+
+    @Test
+    void cutoffs_shouldFollowClockAcrossDayRollover() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-08-31T23:59:59.999Z"), ZoneId.of("UTC"));
+        TierEvaluator evaluator = new TierEvaluator(clock);
+
+        // Feb has no 31st, so Calendar clamps to the 28th
+        assertEquals(Instant.parse("2025-02-28T23:59:59.999Z").toEpochMilli(), evaluator.sixMonthsBefore(clock.millis()));
+
+        clock.now = Instant.parse("2025-09-01T00:00:00Z");
+        assertEquals(Instant.parse("2025-03-01T00:00:00Z").toEpochMilli(), evaluator.sixMonthsBefore(clock.millis()));
+        assertEquals(Instant.parse("2024-09-01T00:00:00Z").toEpochMilli(), evaluator.twelveMonthsBefore(clock.millis()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "America/Los_Angeles", "Europe/London", "Australia/Lord_Howe", "America/Santiago"})
+    void tier_shouldMatchCalendarArithmetic(String zoneId) {
+        ZoneId zone = ZoneId.of(zoneId);
+        MutableClock clock = new MutableClock(Instant.EPOCH, zone);
+        TierEvaluator evaluator = new TierEvaluator(clock);
+        Random random = new Random(42);
+        long from = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+        long span = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli() - from;
+
+        for (int i = 0; i < 200_000; i++) {
+            clock.now = Instant.ofEpochMilli(from + (long) (random.nextDouble() * span));
+            // purchases land within a millisecond of the exact cutoff, where any drift would show
+            long cutoff = calendarMonthsBefore(clock.millis(), random.nextBoolean() ? 6 : 12, zone);
+            Date purchase = new Date(cutoff + random.nextInt(3) - 1);
+            double spend = SPENDS[random.nextInt(SPENDS.length)];
+
+            assertEquals(calendarTier(spend, purchase, clock.millis(), zone), evaluator.tier(spend, purchase),
+                    () -> "now=" + clock.now + " purchase=" + purchase.toInstant() + " spend=" + spend);
+        }
+    }
+
+    // the Calendar-based rules the evaluator replaced
+    private static String calendarTier(Double spend, Date date, long now, ZoneId zone) {
+        if (spend == null || spend < 1000) return Customer.TIER_SILVER;
+        if (spend < 10000 && date != null && date.getTime() > calendarMonthsBefore(now, 12, zone)) {
+            return Customer.TIER_GOLD;
+        }
+        if (spend >= 10000 && date != null && date.getTime() > calendarMonthsBefore(now, 6, zone)) {
+            return Customer.TIER_PLATINUM;
+        }
+        return Customer.TIER_SILVER;
+    }
+
+    private static long calendarMonthsBefore(long now, int months, ZoneId zone) {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(zone));
+        cal.setTimeInMillis(now);
+        cal.add(Calendar.MONTH, -months);
+        return cal.getTimeInMillis();
+    }
+
+    private static Clock fixed(String instant, String zone) {
+        return Clock.fixed(Instant.parse(instant), ZoneId.of(zone));
+    }
+
+    private static Date date(String instant) {
+        return Date.from(Instant.parse(instant));
+    }
+
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant now;
+
+        private MutableClock(Instant now, ZoneId zone) {
+            this.now = now;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.pc.customers.service;
+
+import com.pc.customers.dao.ITierSummaryDAO;
+import com.pc.customers.dto.TierSummaryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TierSummaryServiceTest {
+
+    @InjectMocks
+    private TierSummaryService tierSummaryService;
+
+    @Mock
+    private ITierSummaryDAO tierSummaryDAO;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final UUID id = UUID.randomUUID();
+    private int slot;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        slot = Math.floorMod(id.hashCode(), 8);
+        when(tierSummaryDAO.add(anyString(), anyInt(), anyLong(), any())).thenReturn(1);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void apply_shouldNetChangesPerSlot() {
+        tierSummaryService.apply(new TierSummaryService.Delta()
+                .removed(id, "Gold", 100.0)
+                .added(id, "Gold", 150.25)
+                .added(id, null, 99.0)); // no stored tier, not counted
+
+        verify(tierSummaryDAO).add("Gold", slot, 0, new BigDecimal("50.250000"));
+        verifyNoMoreInteractions(tierSummaryDAO);
+    }
+
+    @Test
+    void apply_shouldSkipChangesThatCancelOut() {
+        tierSummaryService.apply(new TierSummaryService.Delta().removed(id, "Silver", 0.1).added(id, "Silver", 0.1));
+
+        verify(tierSummaryDAO, never()).add(anyString(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void apply_shouldMoveCustomerBetweenTiers() {
+        tierSummaryService.apply(new TierSummaryService.Delta()
+                .removed(List.<Object[]>of(new Object[]{id, "Platinum", 20000.0}))
+                .added(List.<Object[]>of(new Object[]{id, "Gold", 20000.0})));
+
+        verify(tierSummaryDAO).add("Platinum", slot, -1, new BigDecimal("-20000.000000"));
+        verify(tierSummaryDAO).add("Gold", slot, 1, new BigDecimal("20000.000000"));
+    }
+
+    @Test
+    void initialize_shouldFillEmptyTableFromCustomers() {
+        when(tierSummaryDAO.findSlots()).thenReturn(List.of());
+        when(tierSummaryDAO.summarizeCustomers()).thenReturn(List.of(
+                new Object[]{"Gold", 0.1, 3L},
+                new Object[]{"Gold", 0.2, 1L},
+                new Object[]{"Silver", null, 2L}));
+
+        tierSummaryService.initialize();
+
+        verify(tierSummaryDAO).insert("Gold", 0, 4, new BigDecimal("0.500000"));
+        verify(tierSummaryDAO).insert("Silver", 0, 2, BigDecimal.ZERO);
+        verify(tierSummaryDAO).insert("Platinum", 0, 0, BigDecimal.ZERO);
+        verify(tierSummaryDAO, times(3 * 8)).insert(anyString(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void initialize_shouldOnlyAddMissingSlots_whenTableHasRows() {
+        List<Object[]> existing = new ArrayList<>();
+        for (String tier : TierSummaryService.TIERS) {
+            for (int i = 0; i < 8; i++) {
+                if (!(tier.equals("Gold") && i == 7)) {
+                    existing.add(new Object[]{tier, i});
+                }
+            }
+        }
+        when(tierSummaryDAO.findSlots()).thenReturn(existing);
+
+        tierSummaryService.initialize();
+
+        verify(tierSummaryDAO).insert("Gold", 7, 0, BigDecimal.ZERO);
+        verify(tierSummaryDAO, times(1)).insert(anyString(), anyInt(), anyLong(), any());
+        verify(tierSummaryDAO, never()).summarizeCustomers();
+    }
+
+    @Test
+    void getSummary_shouldListEveryTier() {
+        when(tierSummaryDAO.findTotals()).thenReturn(List.<Object[]>of(
+                new Object[]{"Gold", 2L, new BigDecimal("10500.750000")},
+                new Object[]{"Silver", 3L, new BigDecimal("1200.000000")}));
+
+        TierSummaryResponse summary = tierSummaryService.getSummary();
+
+        assertEquals(5, summary.getCustomers());
+        assertEquals(new BigDecimal("11700.750000"), summary.getTotalSpend());
+        assertEquals(List.of("Platinum", "Gold", "Silver"), List.copyOf(summary.getTiers().keySet()));
+        assertEquals(0, summary.getTiers().get("Platinum").getCustomers());
+        assertEquals(2, summary.getTiers().get("Gold").getCustomers());
+    }
+}
@@ -0,0 +1,42 @@
+package com.pc.customers.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void of_shouldQuoteVersionAndTier() {
+        assertEquals("\"7-Platinum\"", ETags.of(7L, "Platinum"));
+        assertNull(ETags.of(null, "Silver"));
+    }
+
+    @Test
+    void matches_shouldFindTagInList() {
+        assertTrue(ETags.matches("\"1-Silver\", \"7-Gold\"", "\"7-Gold\"", false));
+        assertTrue(ETags.matches("*", "\"7-Gold\"", false));
+        assertFalse(ETags.matches("\"7-Silver\"", "\"7-Gold\"", false));
+        assertFalse(ETags.matches("\"7-Gold\"", null, true));
+    }
+
+    @Test
+    void gzip_shouldSuffixTheTagInsideTheQuotes() {
+        assertEquals("\"7-Gold-gzip\"", ETags.gzip("\"7-Gold\""));
+        assertNull(ETags.gzip(null));
+    }
+
+    @Test
+    void matchingEncoding_shouldReturnTheMatchedRepresentationsTag() {
+        assertEquals("\"7-Gold\"", ETags.matchingEncoding("\"7-Gold\"", "\"7-Gold\"", false));
+        assertEquals("\"7-Gold-gzip\"", ETags.matchingEncoding("W/\"7-Gold-gzip\"", "\"7-Gold\"", true));
+        assertNull(ETags.matchingEncoding("\"6-Gold-gzip\"", "\"7-Gold\"", true));
+        assertNull(ETags.matchingEncoding("\"7-Gold\"", null, true));
+    }
+
+    @Test
+    void matches_shouldIgnoreWeakTags_onlyForStrongComparison() {
+        assertTrue(ETags.matches("W/\"7-Gold\"", "\"7-Gold\"", true));
+        assertFalse(ETags.matches("W/\"7-Gold\"", "\"7-Gold\"", false));
+    }
+}
@@ -0,0 +1,35 @@
+package com.pc.customers.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidOrderTest {
+
+    @Test
+    void compare_shouldMatchLexicographicOrderOfStringForm() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        List<String> byComparator = ids.stream().sorted(UuidOrder.COMPARATOR).map(UUID::toString).collect(Collectors.toList());
+        List<String> byString = ids.stream().map(UUID::toString).sorted().collect(Collectors.toList());
+
+        assertEquals(byString, byComparator);
+    }
+
+    @Test
+    void compare_shouldTreatHighBitAsLarger() {
+        UUID low = UUID.fromString("7fffffff-ffff-ffff-ffff-ffffffffffff");
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+
+        assertTrue(UuidOrder.compare(low, high) < 0);
+        assertTrue(low.compareTo(high) > 0); // what UUID.compareTo gets wrong
+    }
+}